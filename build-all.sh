@@ -71,6 +71,11 @@ build_docker() {
 echo "🔨 PHASE 1: Building JAR files with Maven"
 echo "=========================================="
 
+# Code partage : installe dans le depot Maven local avant les services qui en dependent
+echo ""
+echo "📦 Installing commons..."
+(cd commons && mvn clean install -DskipTests)
+
 for service in "${SERVICES[@]}"; do
     build_maven $service
 done
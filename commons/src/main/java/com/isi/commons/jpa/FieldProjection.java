@@ -0,0 +1,117 @@
+package com.isi.commons.jpa;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Lecture partielle d'une entite pour le parametre {@code fields=} : la requete Criteria ne
+ * selectionne que les colonnes demandees (Tuple) et chaque ligne devient une Map champ -> valeur,
+ * serialisee telle quelle. Aucune entite n'est chargee dans le contexte de persistance.
+ * Partagee par les quatre services, qui en dependent via le module commons.
+ */
+public final class FieldProjection {
+
+    public static final String ID = "id";
+
+    private FieldProjection() {
+    }
+
+    /**
+     * Champs demandes, sans blancs ni doublons, l'identifiant toujours en tete.
+     */
+    public static List<String> selection(Collection<String> fields) {
+        Set<String> selection = new LinkedHashSet<>();
+        selection.add(ID);
+        fields.stream().filter(Objects::nonNull).map(String::trim).filter(field -> !field.isEmpty()).forEach(selection::add);
+        return new ArrayList<>(selection);
+    }
+
+    /**
+     * Champs de la selection absents de ceux que l'entite expose.
+     */
+    public static List<String> unknown(List<String> selection, Collection<String> allowed) {
+        return selection.stream().filter(field -> !allowed.contains(field)).toList();
+    }
+
+    /**
+     * @param specification filtre optionnel
+     * @param limit         nombre maximal de lignes, ou 0 pour toutes
+     */
+    public static <T> List<Map<String, Object>> select(EntityManager entityManager, Class<T> type, List<String> fields,
+                                                       Specification<T> specification, Sort sort, int limit) {
+        return select(entityManager, type, fields, Map.of(), specification, sort, limit);
+    }
+
+    /**
+     * @param paths chemin d'attribut des champs qui ne sont pas portes par l'entite elle-meme
+     *              ("rapport.texte") ; l'association est alors jointe en LEFT JOIN, une seule fois
+     */
+    public static <T> List<Map<String, Object>> select(EntityManager entityManager, Class<T> type, List<String> fields,
+                                                       Map<String, String> paths, Specification<T> specification,
+                                                       Sort sort, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<T> root = query.from(type);
+        Map<String, Join<?, ?>> joins = new HashMap<>();
+        List<Selection<?>> selections = new ArrayList<>(fields.size());
+        fields.forEach(field -> selections.add(path(root, joins, paths.getOrDefault(field, field)).alias(field)));
+        query.multiselect(selections);
+        if (specification != null) {
+            Predicate predicate = specification.toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+        if (limit > 0) {
+            typedQuery.setMaxResults(limit);
+        }
+        List<Tuple> tuples = typedQuery.getResultList();
+        List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            fields.forEach(field -> row.put(field, tuple.get(field)));
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static Path<?> path(Root<?> root, Map<String, Join<?, ?>> joins, String attributePath) {
+        int dot = attributePath.lastIndexOf('.');
+        if (dot < 0) {
+            return root.get(attributePath);
+        }
+        From<?, ?> from = root;
+        String association = "";
+        for (String attribute : attributePath.substring(0, dot).split("\\.")) {
+            association = association.isEmpty() ? attribute : association + "." + attribute;
+            From<?, ?> parent = from;
+            from = joins.computeIfAbsent(association, key -> parent.join(attribute, JoinType.LEFT));
+        }
+        return from.get(attributePath.substring(dot + 1));
+    }
+}
@@ -0,0 +1,159 @@
+package com.isi.dossier.attachment;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Fichiers des pieces jointes, ranges sur disque sous leur empreinte SHA-256
+ * ({@code ab/cd/abcd...}) : un meme contenu n'est ecrit qu'une fois, quel que soit le nombre de
+ * dossiers qui le referencent. Un fichier n'est jamais modifie une fois en place.
+ * <p>
+ * Un fichier partage ne doit pas etre supprime entre le depot d'un meme contenu et l'ecriture
+ * de la ligne qui le reference : mise en place et suppression d'une empreinte passent par un
+ * verrou choisi parmi {@value #STRIPES}.
+ */
+@Component
+public class AttachmentStore {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int STRIPES = 64;
+
+    private final Path root;
+    private final long maxSize;
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    /**
+     * Contenu enregistre : son empreinte et sa taille en octets.
+     */
+    public record Blob(String sha256, long size) {
+    }
+
+    /**
+     * Envoye quand le contenu depasse la taille maximale ; rien n'est conserve.
+     */
+    @Getter
+    public static class TooLargeException extends IOException {
+
+        private final long maxSize;
+
+        public TooLargeException(long maxSize) {
+            super("Piece jointe au-dela de " + maxSize + " octets");
+            this.maxSize = maxSize;
+        }
+    }
+
+    public AttachmentStore(@Value("${dossier.attachments.dir:./data/pieces-jointes}") Path root,
+                           @Value("${dossier.attachments.max-size:104857600}") long maxSize) {
+        this.root = root.toAbsolutePath().normalize();
+        this.maxSize = maxSize;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        try {
+            Files.createDirectories(this.root.resolve("tmp"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Recopie le flux dans un fichier temporaire en calculant son empreinte au passage, puis le
+     * deplace a son adresse ; si ce contenu est deja stocke, la copie est simplement supprimee.
+     * Le flux n'est jamais garde en memoire au-dela d'un tampon.
+     */
+    public Blob store(InputStream content) throws IOException {
+        return store(content, blob -> blob);
+    }
+
+    /**
+     * Comme {@link #store(InputStream)}, puis appelle {@code register} sous le verrou de
+     * l'empreinte, le fichier en place : la ligne qui le reference est enregistree avant qu'une
+     * suppression concurrente du meme contenu ne verifie s'il sert encore.
+     */
+    public <T> T store(InputStream content, Function<Blob, T> register) throws IOException {
+        Path temp = Files.createTempFile(root.resolve("tmp"), "upload-", ".part");
+        try {
+            MessageDigest digest = sha256();
+            long size = 0;
+            try (DigestInputStream in = new DigestInputStream(content, digest);
+                 OutputStream out = Files.newOutputStream(temp)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                for (int read; (read = in.read(buffer)) != -1; ) {
+                    size += read;
+                    if (size > maxSize) {
+                        throw new TooLargeException(maxSize);
+                    }
+                    out.write(buffer, 0, read);
+                }
+            }
+            String sha256 = HexFormat.of().formatHex(digest.digest());
+            ReentrantLock lock = lockFor(sha256);
+            lock.lock();
+            try {
+                Path target = path(sha256);
+                if (!Files.exists(target)) {
+                    Files.createDirectories(target.getParent());
+                    try {
+                        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                    } catch (FileAlreadyExistsException e) {
+                        // meme contenu deja depose par un envoi concurrent
+                    }
+                }
+                return register.apply(new Blob(sha256, size));
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public Path path(String sha256) {
+        return root.resolve(sha256.substring(0, 2)).resolve(sha256.substring(2, 4)).resolve(sha256);
+    }
+
+    /**
+     * Supprime le fichier si {@code referenced} ne lui trouve plus aucune piece jointe ; le test
+     * et la suppression se font sous le verrou de l'empreinte.
+     *
+     * @return vrai si le fichier a ete supprime
+     */
+    public boolean deleteUnreferenced(String sha256, Predicate<String> referenced) throws IOException {
+        ReentrantLock lock = lockFor(sha256);
+        lock.lock();
+        try {
+            return !referenced.test(sha256) && Files.deleteIfExists(path(sha256));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock lockFor(String sha256) {
+        return locks[Math.floorMod(sha256.hashCode(), STRIPES)];
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,9 +1,16 @@
 package com.isi.dossier.config;
 
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
 import org.springframework.context.MessageSource;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.support.ResourceBundleMessageSource;
+import org.springframework.core.task.support.ContextPropagatingTaskDecorator;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 public class ApplicationConfig {
@@ -16,4 +23,33 @@ public class ApplicationConfig {
         return messageSource;
     }
 
+    /**
+     * Executor de l'archive patient : pages de rendez-vous demandees a rdv-service et pages de
+     * dossiers et de pieces jointes lues en base, chargees pendant que le ZIP s'ecrit. Le
+     * contexte de tracing est propage aux threads du pool. Une page refusee par un pool sature
+     * est lue par le thread qui ecrit l'archive, qui n'est donc jamais tronquee. Injecte
+     * seulement par son nom, pour ne pas remplacer l'executor applicatif.
+     */
+    @Bean(defaultCandidate = false)
+    public ThreadPoolTaskExecutor archiveExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(16);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("dossier-archive-");
+        executor.setTaskDecorator(new ContextPropagatingTaskDecorator());
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+    /**
+     * Executor applicatif de Spring Boot, sur lequel tournent l'export NDJSON et l'archive en
+     * reponse asynchrone ; sans cette declaration, {@link #archiveExecutor()} le remplacerait.
+     */
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    public ThreadPoolTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
 }
@@ -0,0 +1,36 @@
+package com.isi.dossier.config;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Duree de vie des entrees du cache proche : les reponses 404 (Optional vide)
+ * expirent plus vite que les enregistrements trouves.
+ */
+public class NearCacheExpiry<V> implements Expiry<Long, Optional<V>> {
+
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+
+    public NearCacheExpiry(Duration ttl, Duration negativeTtl) {
+        this.ttlNanos = ttl.toNanos();
+        this.negativeTtlNanos = negativeTtl.toNanos();
+    }
+
+    @Override
+    public long expireAfterCreate(Long key, Optional<V> value, long currentTime) {
+        return value.isPresent() ? ttlNanos : negativeTtlNanos;
+    }
+
+    @Override
+    public long expireAfterUpdate(Long key, Optional<V> value, long currentTime, long currentDuration) {
+        return expireAfterCreate(key, value, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(Long key, Optional<V> value, long currentTime, long currentDuration) {
+        return currentDuration;
+    }
+}
@@ -0,0 +1,33 @@
+package com.isi.dossier.controller;
+
+import com.isi.dossier.patient.PatientLookup;
+import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Invalidation du cache proche des patients, appelee par patient-service ; hors du prefixe
+ * /api/v1/dossiers expose par la gateway.
+ */
+@AllArgsConstructor
+@RestController
+@RequestMapping("/internal/cache")
+public class CacheController {
+
+    private final PatientLookup patientLookup;
+
+    @DeleteMapping("/patients/{id}")
+    public ResponseEntity<Void> evictPatient(@PathVariable("id") Long id) {
+        patientLookup.evict(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/patients/absent")
+    public ResponseEntity<Void> evictAbsentPatients() {
+        patientLookup.evictAbsent();
+        return ResponseEntity.noContent().build();
+    }
+}
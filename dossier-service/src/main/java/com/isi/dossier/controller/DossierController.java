@@ -1,18 +1,30 @@
 package com.isi.dossier.controller;
 
 
+import com.isi.dossier.dto.DossierBatchRequest;
+import com.isi.dossier.dto.DossierPageResponse;
 import com.isi.dossier.dto.DossierRequest;
 import com.isi.dossier.dto.DossierResponse;
+import com.isi.dossier.dto.DossierRevisionResponse;
+import com.isi.dossier.dto.DossierSearchResponse;
 import com.isi.dossier.service.DossierService;
+import com.isi.dossier.service.PatientArchiveService;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 @AllArgsConstructor
 @Getter
@@ -22,6 +34,7 @@ import java.util.List;
 public class DossierController {
 
     private final DossierService service;
+    private final PatientArchiveService archiveService;
 
     @PostMapping("/new")
     public ResponseEntity<DossierResponse> newDossier(
@@ -30,6 +43,11 @@ public class DossierController {
     {
         return ResponseEntity.status(HttpStatus.CREATED).body(service.newDossier(request));
     }
+
+    @PostMapping("/batch")
+    public ResponseEntity<List<DossierResponse>> newDossiers(@Valid @RequestBody DossierBatchRequest request) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(service.newDossiers(request.getDossiers()));
+    }
     @GetMapping("/{id}")
     public ResponseEntity<DossierResponse> getDossierById(@PathVariable("id") Long id){
         return ResponseEntity.status(HttpStatus.OK).body(service.getDossierById(id));
@@ -41,6 +59,52 @@ public class DossierController {
         return ResponseEntity.status(HttpStatus.OK).body(service.getAllDossier());
     }
 
+    @GetMapping(value = "/all", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getAllDossier(@RequestParam("fields") List<String> fields) {
+        return ResponseEntity.status(HttpStatus.OK).body(service.getAllDossier(fields));
+    }
+
+    @GetMapping("/patient/{id}")
+    public ResponseEntity<DossierPageResponse> getDossiersByPatient(
+            @PathVariable("id") Long id,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+        return ResponseEntity.status(HttpStatus.OK).body(service.getDossiersByPatient(id, from, to, cursor, size));
+    }
+
+    @GetMapping(value = "/patient/{id}/archive", produces = "application/zip")
+    public ResponseEntity<StreamingResponseBody> exportPatientArchive(@PathVariable("id") Long id) {
+        StreamingResponseBody body = archiveService.exportPatientArchive(id);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("patient-" + id + ".zip").build().toString())
+                .body(body);
+    }
+
+    @GetMapping("/{id}/revisions")
+    public ResponseEntity<List<DossierRevisionResponse>> getRevisions(@PathVariable("id") Long id) {
+        return ResponseEntity.status(HttpStatus.OK).body(service.getRevisions(id));
+    }
+
+    @GetMapping("/{id}/revisions/{numero}")
+    public ResponseEntity<DossierRevisionResponse> getRevision(@PathVariable("id") Long id,
+                                                               @PathVariable("numero") int numero) {
+        return ResponseEntity.status(HttpStatus.OK).body(service.getRevision(id, numero));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<DossierSearchResponse>> searchDossiers(
+            @RequestParam("q") String query,
+            @RequestParam(value = "patientId", required = false) Long patientId,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        return ResponseEntity.status(HttpStatus.OK).body(service.searchDossiers(query, patientId, from, to, limit));
+    }
+
     @PutMapping("/update")
     public ResponseEntity<DossierResponse> updatePatient(
             @Valid @RequestBody DossierRequest request) {
@@ -54,4 +118,9 @@ public class DossierController {
         return ResponseEntity.noContent().build();
     }
 
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportDossiers() {
+        StreamingResponseBody body = service::exportDossiers;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
 }
@@ -0,0 +1,52 @@
+package com.isi.dossier.controller;
+
+import com.isi.dossier.dto.PieceJointeResponse;
+import com.isi.dossier.service.PieceJointeService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.AllArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+@AllArgsConstructor
+@RestController
+@RequestMapping("/api/v1/dossiers/{id}/pieces-jointes")
+public class PieceJointeController {
+
+    private final PieceJointeService service;
+
+    /**
+     * Le corps de la requete est le fichier lui-meme (pas de multipart), avec son type en Content-Type.
+     */
+    @PostMapping
+    public ResponseEntity<PieceJointeResponse> addPieceJointe(
+            @PathVariable("id") Long id,
+            @RequestParam("nom") String nom,
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String typeContenu,
+            InputStream contenu) throws IOException {
+        return ResponseEntity.status(HttpStatus.CREATED).body(service.addPieceJointe(id, nom, typeContenu, contenu));
+    }
+
+    @GetMapping
+    public ResponseEntity<List<PieceJointeResponse>> getPiecesJointes(@PathVariable("id") Long id) {
+        return ResponseEntity.status(HttpStatus.OK).body(service.getPiecesJointes(id));
+    }
+
+    @GetMapping("/{pieceId}")
+    public void getPieceJointe(@PathVariable("id") Long id, @PathVariable("pieceId") Long pieceId,
+                               HttpServletRequest request, HttpServletResponse response) throws IOException {
+        service.sendPieceJointe(id, pieceId, request, response);
+    }
+
+    @DeleteMapping("/{pieceId}")
+    public ResponseEntity<Void> deletePieceJointe(@PathVariable("id") Long id, @PathVariable("pieceId") Long pieceId) {
+        service.deletePieceJointe(id, pieceId);
+        return ResponseEntity.noContent().build();
+    }
+}
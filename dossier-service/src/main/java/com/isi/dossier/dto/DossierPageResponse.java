@@ -0,0 +1,18 @@
+package com.isi.dossier.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class DossierPageResponse {
+
+    private List<DossierResponse> content;
+    private String nextCursor;
+}
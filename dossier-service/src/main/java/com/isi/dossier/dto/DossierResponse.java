@@ -1,5 +1,6 @@
 package com.isi.dossier.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -15,6 +16,10 @@ public class DossierResponse {
 
     private Long id;
     private LocalDate dateConsultation;
+    // Absent des listes : seul le detail d'un dossier relit le texte du compte rendu
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private String compteRendu;
+    private Integer compteRenduLongueur;
+    private Integer revision;
     private Long patientId;
 }
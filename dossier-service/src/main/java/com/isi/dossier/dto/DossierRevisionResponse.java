@@ -0,0 +1,25 @@
+package com.isi.dossier.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class DossierRevisionResponse {
+
+    private Integer numero;
+    private LocalDate dateConsultation;
+    private Long patientId;
+    private Instant creeLe;
+    // Absent de la liste des revisions, renseigne pour une revision demandee par son numero
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String compteRendu;
+}
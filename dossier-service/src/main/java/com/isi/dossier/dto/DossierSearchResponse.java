@@ -0,0 +1,21 @@
+package com.isi.dossier.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class DossierSearchResponse {
+
+    private Long id;
+    private Long patientId;
+    private LocalDate dateConsultation;
+    // Pertinence BM25, seulement comparable entre resultats d'une meme recherche
+    private double score;
+}
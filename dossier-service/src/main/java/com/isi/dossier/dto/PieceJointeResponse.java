@@ -0,0 +1,23 @@
+package com.isi.dossier.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class PieceJointeResponse {
+
+    private Long id;
+    private Long dossierId;
+    private String nom;
+    private String typeContenu;
+    private long taille;
+    private String sha256;
+    private Instant creeLe;
+}
@@ -9,6 +9,6 @@ import lombok.Setter;
 @NoArgsConstructor
 @Getter
 @Setter
-public class EntityExistsException extends RuntimeException{
+public class EntityExistsException extends StacklessException {
     private String message;
 }
@@ -3,15 +3,46 @@ package com.isi.dossier.mapper;
 
 import com.isi.dossier.dto.DossierRequest;
 import com.isi.dossier.dto.DossierResponse;
+import com.isi.dossier.dto.DossierRevisionResponse;
+import com.isi.dossier.dto.PieceJointeResponse;
 import com.isi.dossier.model.Dossier;
+import com.isi.dossier.model.DossierRevision;
+import com.isi.dossier.model.PieceJointe;
+import com.isi.dossier.repository.DossierRevisionRepository;
+import org.mapstruct.IterableMapping;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.Named;
 
 import java.util.List;
 
 @Mapper
 public interface DossierMapper {
 
+    @Mapping(target = "rapport", ignore = true)
+    @Mapping(target = "compteRenduLongueur", ignore = true)
+    @Mapping(target = "revision", ignore = true)
     Dossier toDossier(DossierRequest request);
     DossierResponse toDossierResponse(Dossier response);
     List<DossierResponse> toDossierResponseList(List<Dossier> dossiers);
+
+    // Sans le texte du compte rendu (seulement sa longueur), pour ne pas charger le rapport lazy
+    @Named("summary")
+    @Mapping(target = "compteRendu", ignore = true)
+    DossierResponse toDossierSummary(Dossier dossier);
+
+    @IterableMapping(qualifiedByName = "summary")
+    List<DossierResponse> toDossierSummaryList(List<Dossier> dossiers);
+
+    // Le compte rendu d'une revision se reconstruit a partir des deltas, il est renseigne par le service
+    @Mapping(target = "compteRendu", ignore = true)
+    DossierRevisionResponse toRevisionResponse(DossierRevision revision);
+
+    @Mapping(target = "compteRendu", ignore = true)
+    DossierRevisionResponse toRevisionResponse(DossierRevisionRepository.Summary revision);
+
+    List<DossierRevisionResponse> toRevisionResponseList(List<DossierRevisionRepository.Summary> revisions);
+
+    PieceJointeResponse toPieceJointeResponse(PieceJointe pieceJointe);
+    List<PieceJointeResponse> toPieceJointeResponseList(List<PieceJointe> piecesJointes);
 }
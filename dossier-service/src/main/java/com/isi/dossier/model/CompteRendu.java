@@ -0,0 +1,28 @@
+package com.isi.dossier.model;
+
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Texte d'un compte rendu, dans sa propre table : le dossier n'y pointe qu'en lazy, une liste
+ * de dossiers ne lit donc jamais ces colonnes.
+ */
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Table(name = "compte_rendu")
+public class CompteRendu {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "compte_rendu_seq")
+    @SequenceGenerator(name = "compte_rendu_seq", sequenceName = "compte_rendu_seq", allocationSize = 50)
+    private Long id;
+
+    @Lob
+    @Convert(converter = CompteRenduConverter.class)
+    @Column(name = "contenu")
+    private String texte;
+}
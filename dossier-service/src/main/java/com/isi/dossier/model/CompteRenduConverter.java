@@ -0,0 +1,85 @@
+package com.isi.dossier.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Stockage compresse des comptes rendus. Le premier octet indique le format du reste :
+ * {@value #BRUT} pour de l'UTF-8 tel quel, {@value #DEFLATE} pour de l'UTF-8 compresse.
+ * Sous {@value #SEUIL_COMPRESSION} octets, ou si la compression ne fait rien gagner, le
+ * texte est garde brut : un court compte rendu se compresse mal et se relit sans calcul.
+ */
+@Converter
+public class CompteRenduConverter implements AttributeConverter<String, byte[]> {
+
+    static final byte BRUT = 0;
+    static final byte DEFLATE = 1;
+    static final int SEUIL_COMPRESSION = 512;
+
+    @Override
+    public byte[] convertToDatabaseColumn(String texte) {
+        if (texte == null) {
+            return null;
+        }
+        byte[] utf8 = texte.getBytes(StandardCharsets.UTF_8);
+        if (utf8.length >= SEUIL_COMPRESSION) {
+            byte[] compresse = deflate(utf8);
+            if (compresse.length < utf8.length) {
+                return withHeader(DEFLATE, compresse);
+            }
+        }
+        return withHeader(BRUT, utf8);
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] colonne) {
+        if (colonne == null) {
+            return null;
+        }
+        if (colonne.length == 0) {
+            throw new IllegalStateException("Compte rendu sans en-tete de format");
+        }
+        return switch (colonne[0]) {
+            case BRUT -> new String(colonne, 1, colonne.length - 1, StandardCharsets.UTF_8);
+            case DEFLATE -> new String(inflate(colonne), StandardCharsets.UTF_8);
+            default -> throw new IllegalStateException("Format de compte rendu inconnu : " + colonne[0]);
+        };
+    }
+
+    private static byte[] withHeader(byte format, byte[] contenu) {
+        byte[] colonne = new byte[contenu.length + 1];
+        colonne[0] = format;
+        System.arraycopy(contenu, 0, colonne, 1, contenu.length);
+        return colonne;
+    }
+
+    private static byte[] deflate(byte[] utf8) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(utf8.length / 2);
+        try (DeflaterOutputStream deflate = new DeflaterOutputStream(out, deflater)) {
+            deflate.write(utf8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] inflate(byte[] colonne) {
+        try (InflaterInputStream inflate = new InflaterInputStream(new ByteArrayInputStream(colonne, 1, colonne.length - 1))) {
+            return inflate.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -12,13 +12,65 @@ import java.time.LocalDate;
 @Getter
 @Setter
 @Builder
-@Table(name = "dossier")
+@Table(name = "dossier", indexes = {
+        @Index(name = "idx_dossier_patient_date", columnList = "patient_id, date_consultation DESC, id")
+})
 public class Dossier {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "dossier_seq")
+    @SequenceGenerator(name = "dossier_seq", sequenceName = "dossier_seq", allocationSize = 50)
     private Long id;
+
+    // Deux mises a jour concurrentes avancent le meme numero de revision : la seconde echoue au flush
+    @Version
+    private Long version;
+
     private LocalDate dateConsultation;
-    private String compteRendu;
     private Long patientId;
+
+    // Texte charge a la demande, seulement quand getCompteRendu() est appele
+    @OneToOne(fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
+    @JoinColumn(name = "compte_rendu_id")
+    private CompteRendu rapport;
+
+    // Nombre de caracteres du compte rendu, tenu a jour par setCompteRendu pour les listes
+    private Integer compteRenduLongueur;
+
+    // Numero de la derniere DossierRevision enregistree ; nul tant que le dossier n'en a aucune
+    private Integer revision;
+
+    public String getCompteRendu() {
+        return rapport == null ? null : rapport.getTexte();
+    }
+
+    public void setCompteRendu(String texte) {
+        compteRenduLongueur = texte == null ? null : texte.length();
+        if (texte == null) {
+            rapport = null;
+        } else if (rapport == null) {
+            rapport = new CompteRendu(null, texte);
+        } else {
+            rapport.setTexte(texte);
+        }
+    }
+
+    /**
+     * Avance le numero de revision avant une ecriture, qui enregistre la DossierRevision correspondante.
+     */
+    public void nextRevision() {
+        revision = revision == null ? 1 : revision + 1;
+    }
+
+    /**
+     * Complete le builder genere : {@code .compteRendu(texte)} cree le rapport et sa longueur.
+     */
+    public static class DossierBuilder {
+
+        public DossierBuilder compteRendu(String texte) {
+            this.rapport = texte == null ? null : new CompteRendu(null, texte);
+            this.compteRenduLongueur = texte == null ? null : texte.length();
+            return this;
+        }
+    }
 }
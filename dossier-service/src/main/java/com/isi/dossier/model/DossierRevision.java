@@ -0,0 +1,94 @@
+package com.isi.dossier.model;
+
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Une ecriture d'un dossier, jamais modifiee ensuite. Le compte rendu est soit complet
+ * ({@code snapshot}), soit un delta contre la revision precedente : les {@code prefixe} premiers
+ * et {@code suffixe} derniers caracteres sont repris de celle-ci et {@code texte} remplace le
+ * milieu. Une revision sur {@value #SNAPSHOT_INTERVAL} est complete, si bien qu'en relire une
+ * applique au plus {@value #SNAPSHOT_INTERVAL} - 1 deltas.
+ */
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Table(name = "dossier_revision", indexes = {
+        @Index(name = "idx_dossier_revision_numero", columnList = "dossier_id, numero", unique = true)
+})
+public class DossierRevision {
+
+    public static final int SNAPSHOT_INTERVAL = 10;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "dossier_revision_seq")
+    @SequenceGenerator(name = "dossier_revision_seq", sequenceName = "dossier_revision_seq", allocationSize = 50)
+    private Long id;
+    private Long dossierId;
+    private int numero;
+    private LocalDate dateConsultation;
+    private Long patientId;
+    private Instant creeLe;
+    private boolean snapshot;
+    private int prefixe;
+    private int suffixe;
+
+    @Lob
+    @Convert(converter = CompteRenduConverter.class)
+    private String texte;
+
+    /**
+     * Revision correspondant a l'etat courant du dossier (numero deja avance), {@code precedent}
+     * etant le compte rendu de la revision d'avant.
+     */
+    public static DossierRevision of(Dossier dossier, String precedent) {
+        DossierRevision revision = new DossierRevision();
+        revision.dossierId = dossier.getId();
+        revision.numero = dossier.getRevision();
+        revision.dateConsultation = dossier.getDateConsultation();
+        revision.patientId = dossier.getPatientId();
+        revision.creeLe = Instant.now();
+        String courant = dossier.getCompteRendu();
+        revision.snapshot = (revision.numero - 1) % SNAPSHOT_INTERVAL == 0 || precedent == null || courant == null;
+        if (revision.snapshot) {
+            revision.texte = courant;
+            return revision;
+        }
+        int prefixe = 0;
+        int max = Math.min(precedent.length(), courant.length());
+        while (prefixe < max && precedent.charAt(prefixe) == courant.charAt(prefixe)) {
+            prefixe++;
+        }
+        if (prefixe > 0 && Character.isHighSurrogate(courant.charAt(prefixe - 1))) {
+            prefixe--;
+        }
+        int suffixe = 0;
+        while (suffixe < max - prefixe
+                && precedent.charAt(precedent.length() - 1 - suffixe) == courant.charAt(courant.length() - 1 - suffixe)) {
+            suffixe++;
+        }
+        if (suffixe > 0 && Character.isLowSurrogate(courant.charAt(courant.length() - suffixe))) {
+            suffixe--;
+        }
+        revision.prefixe = prefixe;
+        revision.suffixe = suffixe;
+        revision.texte = courant.substring(prefixe, courant.length() - suffixe);
+        return revision;
+    }
+
+    /**
+     * Compte rendu de cette revision, a partir de celui de la precedente (ignore pour un snapshot).
+     */
+    public String applyTo(String precedent) {
+        if (snapshot) {
+            return texte;
+        }
+        return precedent.substring(0, prefixe) + texte + precedent.substring(precedent.length() - suffixe);
+    }
+}
@@ -0,0 +1,37 @@
+package com.isi.dossier.model;
+
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Piece jointe d'un dossier (scan, PDF d'analyse, imagerie). Seules ses metadonnees sont en base :
+ * le contenu est un fichier de l'AttachmentStore, designe par son empreinte SHA-256 et partage
+ * entre toutes les pieces jointes de meme contenu.
+ */
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+@Table(name = "piece_jointe", indexes = {
+        @Index(name = "idx_piece_jointe_dossier", columnList = "dossier_id, id"),
+        @Index(name = "idx_piece_jointe_sha256", columnList = "sha256")
+})
+public class PieceJointe {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "piece_jointe_seq")
+    @SequenceGenerator(name = "piece_jointe_seq", sequenceName = "piece_jointe_seq", allocationSize = 50)
+    private Long id;
+    private Long dossierId;
+    private String nom;
+    private String typeContenu;
+    private long taille;
+    @Column(length = 64)
+    private String sha256;
+    private Instant creeLe;
+}
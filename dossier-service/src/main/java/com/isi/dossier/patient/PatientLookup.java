@@ -0,0 +1,94 @@
+package com.isi.dossier.patient;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.isi.dossier.config.NearCacheExpiry;
+import feign.FeignException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Cache proche (read-through) devant {@link PatientClient}. Les patients absents sont
+ * aussi mis en cache, avec une duree de vie courte. patient-service invalide les
+ * entrees via {@code DELETE /internal/cache/patients/{id}} apres une modification,
+ * et vide les absents apres une creation.
+ */
+@Component
+public class PatientLookup {
+
+    static final int MAX_BATCH_SIZE = 100;
+
+    private final PatientClient patientClient;
+    private final Cache<Long, Optional<PatientResponse>> cache;
+
+    public PatientLookup(PatientClient patientClient,
+                         MeterRegistry meterRegistry,
+                         @Value("${dossier.near-cache.max-size:10000}") long maxSize,
+                         @Value("${dossier.near-cache.ttl:10m}") Duration ttl,
+                         @Value("${dossier.near-cache.negative-ttl:30s}") Duration negativeTtl) {
+        this.patientClient = patientClient;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new NearCacheExpiry<PatientResponse>(ttl, negativeTtl))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "patient-near-cache");
+    }
+
+    public Optional<PatientResponse> findPatientById(Long patientId) {
+        return cache.get(patientId, this::load);
+    }
+
+    /**
+     * Resout plusieurs patients : seuls les identifiants absents du cache sont
+     * demandes a patient-service, par lots de {@value #MAX_BATCH_SIZE}.
+     */
+    public Map<Long, PatientResponse> findPatientsByIds(Collection<Long> patientIds) {
+        Map<Long, PatientResponse> patients = new HashMap<>();
+        cache.getAll(patientIds, this::loadAll)
+                .forEach((id, patient) -> patient.ifPresent(value -> patients.put(id, value)));
+        return patients;
+    }
+
+    public void evict(Long patientId) {
+        cache.invalidate(patientId);
+    }
+
+    /**
+     * Un identifiant tout juste cree ne peut figurer dans le cache que comme absent :
+     * vider les absents suffit a rendre visibles les creations, quel que soit leur nombre.
+     */
+    public void evictAbsent() {
+        cache.asMap().values().removeIf(Optional::isEmpty);
+    }
+
+    private Optional<PatientResponse> load(Long patientId) {
+        try {
+            return patientClient.findPatientById(patientId);
+        } catch (FeignException.NotFound e) {
+            return Optional.empty();
+        }
+    }
+
+    private Map<Long, Optional<PatientResponse>> loadAll(Set<? extends Long> patientIds) {
+        List<Long> ids = new ArrayList<>(patientIds);
+        Map<Long, Optional<PatientResponse>> loaded = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += MAX_BATCH_SIZE) {
+            var batch = patientClient.findPatientsByIds(ids.subList(from, Math.min(from + MAX_BATCH_SIZE, ids.size())));
+            batch.getPatients().forEach(patient -> loaded.put(patient.getId(), Optional.of(patient)));
+            batch.getMissingIds().forEach(id -> loaded.put(id, Optional.empty()));
+        }
+        return loaded;
+    }
+}
@@ -0,0 +1,20 @@
+package com.isi.dossier.rdv;
+
+
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+@FeignClient(
+        name = "rdv-service"
+)
+public interface RdvClient {
+
+    /**
+     * Une page des rendez-vous du patient ; {@code cursor} vaut le nextCursor de la page precedente.
+     */
+    @GetMapping("/api/v1/rdv/all")
+    RdvPageResponse findRdvsByPatient(@RequestParam("patientId") Long patientId,
+                                      @RequestParam(value = "cursor", required = false) String cursor,
+                                      @RequestParam("size") int size);
+}
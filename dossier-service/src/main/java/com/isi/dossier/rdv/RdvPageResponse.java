@@ -0,0 +1,18 @@
+package com.isi.dossier.rdv;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class RdvPageResponse {
+
+    private List<RdvResponse> content;
+    private String nextCursor;
+}
@@ -0,0 +1,22 @@
+package com.isi.dossier.rdv;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class RdvResponse {
+
+    private Long id;
+    private LocalDateTime date;
+    private Integer duree;
+    private String motif;
+    private Long patientId;
+    private Long medecinId;
+}
@@ -0,0 +1,21 @@
+package com.isi.dossier.repository;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fragment de {@link DossierRepository} pour les reponses allegees ({@code fields=}) : une liste
+ * sans compteRendu ne joint pas la table compte_rendu, qui porte de loin les plus grosses valeurs.
+ */
+public interface DossierFieldsRepository {
+
+    /**
+     * Champs selectionnables : ceux de DossierResponse.
+     */
+    List<String> FIELDS = List.of("id", "dateConsultation", "compteRendu", "compteRenduLongueur", "patientId");
+
+    /**
+     * Tous les dossiers par id croissant, reduits aux champs donnes (deja valides).
+     */
+    List<Map<String, Object>> findAllFields(List<String> fields);
+}
@@ -0,0 +1,24 @@
+package com.isi.dossier.repository;
+
+import com.isi.commons.jpa.FieldProjection;
+import com.isi.dossier.model.Dossier;
+import jakarta.persistence.EntityManager;
+import lombok.AllArgsConstructor;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.Map;
+
+@AllArgsConstructor
+class DossierFieldsRepositoryImpl implements DossierFieldsRepository {
+
+    // Le texte vit dans la table compte_rendu, jointe seulement s'il est demande
+    private static final Map<String, String> PATHS = Map.of("compteRendu", "rapport.texte");
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> findAllFields(List<String> fields) {
+        return FieldProjection.select(entityManager, Dossier.class, fields, PATHS, null, Sort.by(FieldProjection.ID), 0);
+    }
+}
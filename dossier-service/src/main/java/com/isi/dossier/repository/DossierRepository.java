@@ -1,7 +1,31 @@
 package com.isi.dossier.repository;
 
 import com.isi.dossier.model.Dossier;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
-public interface DossierRepository extends JpaRepository<Dossier, Long> {
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface DossierRepository extends JpaRepository<Dossier, Long>, JpaSpecificationExecutor<Dossier>, DossierFieldsRepository {
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    // L'export ecrit chaque compte rendu : jointure pour eviter une requete par dossier
+    @Query("select d from Dossier d left join fetch d.rapport order by d.id")
+    Stream<Dossier> streamAll();
+
+    // Page de l'historique du patient apres le dossier afterId (pagination par cle), texte compris
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("select d from Dossier d left join fetch d.rapport where d.patientId = :patientId and d.id > :afterId "
+            + "order by d.id")
+    List<Dossier> findPageByPatientId(@Param("patientId") Long patientId, @Param("afterId") Long afterId, Limit limit);
 }
@@ -0,0 +1,35 @@
+package com.isi.dossier.repository;
+
+import com.isi.dossier.model.DossierRevision;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DossierRevisionRepository extends JpaRepository<DossierRevision, Long> {
+
+    /**
+     * Colonnes de la liste des revisions : le texte (delta ou snapshot) n'est pas lu.
+     */
+    interface Summary {
+        Integer getNumero();
+        LocalDate getDateConsultation();
+        Long getPatientId();
+        Instant getCreeLe();
+    }
+
+    List<Summary> findByDossierIdOrderByNumero(Long dossierId);
+
+    /**
+     * Revisions a appliquer pour reconstruire {@code numero} : du dernier snapshot qui le precede
+     * jusqu'a lui, soit au plus {@link DossierRevision#SNAPSHOT_INTERVAL} lignes lues par l'index.
+     */
+    @Query("select r from DossierRevision r where r.dossierId = :dossierId and r.numero <= :numero "
+            + "and r.numero >= (select max(s.numero) from DossierRevision s "
+            + "where s.dossierId = :dossierId and s.snapshot = true and s.numero <= :numero) "
+            + "order by r.numero")
+    List<DossierRevision> findChain(@Param("dossierId") Long dossierId, @Param("numero") int numero);
+}
@@ -0,0 +1,45 @@
+package com.isi.dossier.repository;
+
+import com.isi.dossier.model.Dossier;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class DossierSpecifications {
+
+    /**
+     * Ordre de l'historique d'un patient, du plus recent au plus ancien : il doit rester aligne
+     * sur l'index (patient_id, date_consultation DESC, id) de la table dossier.
+     */
+    public static final Sort TIMELINE_ORDER = Sort.by(Sort.Order.desc("dateConsultation"), Sort.Order.asc("id"));
+
+    private DossierSpecifications() {
+    }
+
+    /**
+     * Dossiers du patient, bornes optionnelles comprises ; seules celles renseignees sont ajoutees.
+     */
+    public static Specification<Dossier> timeline(Long patientId, LocalDate from, LocalDate to) {
+        List<Specification<Dossier>> specifications = new ArrayList<>();
+        specifications.add((root, query, cb) -> cb.equal(root.get("patientId"), patientId));
+        if (from != null) {
+            specifications.add((root, query, cb) -> cb.greaterThanOrEqualTo(root.get("dateConsultation"), from));
+        }
+        if (to != null) {
+            specifications.add((root, query, cb) -> cb.lessThanOrEqualTo(root.get("dateConsultation"), to));
+        }
+        return Specification.allOf(specifications);
+    }
+
+    /**
+     * Dossiers situes apres la position (dateConsultation, id) dans l'ordre {@link #TIMELINE_ORDER}.
+     */
+    public static Specification<Dossier> after(LocalDate dateConsultation, Long id) {
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.get("dateConsultation"), dateConsultation),
+                cb.and(cb.equal(root.get("dateConsultation"), dateConsultation), cb.greaterThan(root.get("id"), id)));
+    }
+}
@@ -0,0 +1,7 @@
+package com.isi.dossier.repository;
+
+/**
+ * Ce qu'il faut pour recopier le fichier d'une piece jointe dans une archive, sans charger l'entite.
+ */
+public record PieceJointeFichier(Long id, Long dossierId, String sha256, String nom) {
+}
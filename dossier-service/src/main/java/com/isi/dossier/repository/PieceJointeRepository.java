@@ -0,0 +1,31 @@
+package com.isi.dossier.repository;
+
+import com.isi.dossier.model.PieceJointe;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface PieceJointeRepository extends JpaRepository<PieceJointe, Long> {
+
+    List<PieceJointe> findByDossierIdOrderById(Long dossierId);
+
+    Optional<PieceJointe> findByIdAndDossierId(Long id, Long dossierId);
+
+    boolean existsBySha256(String sha256);
+
+    /**
+     * Page des pieces jointes du patient apres ({@code afterDossierId}, {@code afterId}), dans l'ordre
+     * de l'index idx_piece_jointe_dossier.
+     */
+    @Query("select new com.isi.dossier.repository.PieceJointeFichier(p.id, p.dossierId, p.sha256, p.nom) "
+            + "from PieceJointe p where p.dossierId in (select d.id from Dossier d where d.patientId = :patientId) "
+            + "and (p.dossierId > :afterDossierId or (p.dossierId = :afterDossierId and p.id > :afterId)) "
+            + "order by p.dossierId, p.id")
+    List<PieceJointeFichier> findFichiersByPatientId(@Param("patientId") Long patientId,
+                                                     @Param("afterDossierId") Long afterDossierId,
+                                                     @Param("afterId") Long afterId, Limit limit);
+}
@@ -0,0 +1,205 @@
+package com.isi.dossier.search;
+
+import com.isi.dossier.dto.DossierSearchResponse;
+import com.isi.dossier.model.Dossier;
+import com.isi.dossier.repository.DossierRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Index inverse des comptes rendus, en memoire : pour chaque terme (voir {@link FrenchAnalyzer}),
+ * les dossiers qui le contiennent et son nombre d'occurrences. Une recherche ne parcourt que les
+ * listes des termes demandes et classe les dossiers par BM25 ; la table n'est jamais relue.
+ * Les ecritures sont visibles des le commit de leur transaction.
+ */
+@Component
+@Slf4j
+public class CompteRenduIndex {
+
+    // Parametres BM25 usuels : saturation de la frequence et poids de la longueur du texte
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final Comparator<DossierSearchResponse> RANKING =
+            Comparator.comparingDouble(DossierSearchResponse::getScore).reversed()
+                    .thenComparing(DossierSearchResponse::getDateConsultation, Comparator.nullsLast(Comparator.reverseOrder()))
+                    .thenComparing(DossierSearchResponse::getId);
+
+    private final DossierRepository repository;
+    private final EntityManager entityManager;
+    private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long totalLength;
+
+    /**
+     * Ce que l'index retient d'un dossier : ses filtres, la longueur analysee et ses termes distincts.
+     */
+    record Entry(Long id, Long patientId, LocalDate dateConsultation, int length, Map<String, Integer> frequencies) {
+
+        static Entry of(Dossier dossier) {
+            Map<String, Integer> frequencies = new HashMap<>();
+            List<String> terms = FrenchAnalyzer.analyze(dossier.getCompteRendu());
+            terms.forEach(term -> frequencies.merge(term, 1, Integer::sum));
+            return new Entry(dossier.getId(), dossier.getPatientId(), dossier.getDateConsultation(), terms.size(), frequencies);
+        }
+
+        boolean matches(Long patientId, LocalDate from, LocalDate to) {
+            return (patientId == null || patientId.equals(this.patientId))
+                    && (from == null || dateConsultation != null && !dateConsultation.isBefore(from))
+                    && (to == null || dateConsultation != null && !dateConsultation.isAfter(to));
+        }
+    }
+
+    public CompteRenduIndex(DossierRepository repository, EntityManager entityManager) {
+        this.repository = repository;
+        this.entityManager = entityManager;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            entries.clear();
+            totalLength = 0;
+            try (Stream<Dossier> dossiers = repository.streamAll()) {
+                dossiers.forEach(dossier -> {
+                    put(Entry.of(dossier));
+                    entityManager.detach(dossier);
+                });
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Index des comptes rendus construit : {} dossiers, {} termes", entries.size(), postings.size());
+    }
+
+    /**
+     * Indexe (ou reindexe) des dossiers, apres le commit si une transaction est en cours.
+     */
+    public void index(Collection<Dossier> dossiers) {
+        List<Entry> indexed = dossiers.stream().map(Entry::of).toList();
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                indexed.forEach(this::put);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void index(Dossier dossier) {
+        index(List.of(dossier));
+    }
+
+    public void remove(Long dossierId) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                remove(entries.remove(dossierId));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Les {@code limit} dossiers les plus pertinents pour {@code query}, parmi ceux du patient et de
+     * la periode donnes (bornes comprises, criteres nuls ignores). A score egal, le plus recent d'abord.
+     */
+    public List<DossierSearchResponse> search(String query, Long patientId, LocalDate from, LocalDate to, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(FrenchAnalyzer.analyze(query)));
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            if (entries.isEmpty()) {
+                return List.of();
+            }
+            double averageLength = Math.max(1.0, (double) totalLength / entries.size());
+            Map<Long, Double> scores = new HashMap<>();
+            for (String term : terms) {
+                Map<Long, Integer> matching = postings.get(term);
+                if (matching == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (entries.size() - matching.size() + 0.5) / (matching.size() + 0.5));
+                matching.forEach((dossierId, frequency) -> {
+                    Entry entry = entries.get(dossierId);
+                    if (entry.matches(patientId, from, to)) {
+                        double norm = K1 * (1 - B + B * entry.length() / averageLength);
+                        scores.merge(dossierId, idf * frequency * (K1 + 1) / (frequency + norm), Double::sum);
+                    }
+                });
+            }
+            PriorityQueue<DossierSearchResponse> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+            scores.forEach((dossierId, score) -> {
+                Entry entry = entries.get(dossierId);
+                best.add(new DossierSearchResponse(dossierId, entry.patientId(), entry.dateConsultation(), score));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            });
+            List<DossierSearchResponse> hits = new ArrayList<>(best);
+            hits.sort(RANKING);
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void put(Entry entry) {
+        remove(entries.put(entry.id(), entry));
+        entry.frequencies().forEach((term, frequency) ->
+                postings.computeIfAbsent(term, key -> new HashMap<>()).put(entry.id(), frequency));
+        totalLength += entry.length();
+    }
+
+    private void remove(Entry entry) {
+        if (entry == null) {
+            return;
+        }
+        entry.frequencies().keySet().forEach(term -> {
+            Map<Long, Integer> matching = postings.get(term);
+            if (matching != null && matching.remove(entry.id()) != null && matching.isEmpty()) {
+                postings.remove(term);
+            }
+        });
+        totalLength -= entry.length();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
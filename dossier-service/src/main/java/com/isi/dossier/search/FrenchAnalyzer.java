@@ -0,0 +1,68 @@
+package com.isi.dossier.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Decoupe un texte francais en termes d'index : minuscules, accents retires, mots vides ecartes,
+ * puis racinisation legere (pluriel et suffixes courants). "Fractures", "fracturée" et "fracture"
+ * donnent le meme terme ; le texte d'une recherche passe par la meme chaine.
+ */
+public final class FrenchAnalyzer {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Set<String> STOP_WORDS = Set.of(
+            "au", "aux", "avec", "ce", "ces", "cet", "cette", "dans", "de", "des", "du", "elle", "elles", "en",
+            "est", "et", "il", "ils", "je", "la", "le", "les", "leur", "leurs", "lui", "mais", "me", "ne", "nous",
+            "on", "ou", "par", "pas", "pour", "qu", "que", "qui", "sa", "se", "ses", "son", "sont", "sur", "ta",
+            "te", "tes", "ton", "tu", "un", "une", "vous");
+    // Du plus long au plus court : le premier suffixe trouve est retire
+    private static final List<String> SUFFIXES = List.of(
+            "issement", "atrice", "ement", "ateur", "ation", "euse", "ique", "iste", "eur", "ive", "ee", "er", "if",
+            "e");
+    private static final int MIN_STEM = 3;
+
+    private FrenchAnalyzer() {
+    }
+
+    public static List<String> analyze(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> terms = new ArrayList<>();
+        for (String token : SEPARATORS.split(folded)) {
+            if (token.length() > 1 && !STOP_WORDS.contains(token)) {
+                terms.add(stem(token));
+            }
+        }
+        return terms;
+    }
+
+    static String stem(String word) {
+        if (word.length() <= MIN_STEM + 1 || Character.isDigit(word.charAt(word.length() - 1))) {
+            return word;
+        }
+        String stem = word;
+        if (stem.endsWith("aux")) {
+            stem = stem.substring(0, stem.length() - 3) + "al";
+        } else if (stem.endsWith("s") || stem.endsWith("x")) {
+            stem = stem.substring(0, stem.length() - 1);
+        }
+        for (String suffix : SUFFIXES) {
+            if (stem.endsWith(suffix) && stem.length() - suffix.length() >= MIN_STEM) {
+                stem = stem.substring(0, stem.length() - suffix.length());
+                break;
+            }
+        }
+        // "annuelle" -> "annuell" rejoint "annuel"
+        int last = stem.length() - 1;
+        return stem.charAt(last) == stem.charAt(last - 1) ? stem.substring(0, last) : stem;
+    }
+}
@@ -1,15 +1,30 @@
 package com.isi.dossier.service;
 
+import com.isi.dossier.dto.DossierPageResponse;
 import com.isi.dossier.dto.DossierRequest;
 import com.isi.dossier.dto.DossierResponse;
+import com.isi.dossier.dto.DossierRevisionResponse;
+import com.isi.dossier.dto.DossierSearchResponse;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface DossierService {
 
     DossierResponse newDossier(DossierRequest request);
+    List<DossierResponse> newDossiers(List<DossierRequest> requests);
     DossierResponse getDossierById(Long id);
     List<DossierResponse> getAllDossier();
+    List<Map<String, Object>> getAllDossier(Collection<String> fields);
+    DossierPageResponse getDossiersByPatient(Long patientId, LocalDate from, LocalDate to, String cursor, int size);
+    List<DossierSearchResponse> searchDossiers(String query, Long patientId, LocalDate from, LocalDate to, int limit);
     DossierResponse updateDossier(DossierRequest request);
+    List<DossierRevisionResponse> getRevisions(Long id);
+    DossierRevisionResponse getRevision(Long id, int numero);
     void deleteDossierById(Long id);
+    void exportDossiers(OutputStream out) throws IOException;
 }
@@ -0,0 +1,8 @@
+package com.isi.dossier.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+public interface PatientArchiveService {
+
+    StreamingResponseBody exportPatientArchive(Long patientId);
+}
@@ -0,0 +1,17 @@
+package com.isi.dossier.service;
+
+import com.isi.dossier.dto.PieceJointeResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+public interface PieceJointeService {
+
+    PieceJointeResponse addPieceJointe(Long dossierId, String nom, String typeContenu, InputStream contenu) throws IOException;
+    List<PieceJointeResponse> getPiecesJointes(Long dossierId);
+    void sendPieceJointe(Long dossierId, Long id, HttpServletRequest request, HttpServletResponse response) throws IOException;
+    void deletePieceJointe(Long dossierId, Long id);
+}
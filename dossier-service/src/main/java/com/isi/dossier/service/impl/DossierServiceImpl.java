@@ -1,21 +1,50 @@
 package com.isi.dossier.service.impl;
 
+import com.isi.commons.jpa.FieldProjection;
+import com.isi.dossier.dto.DossierPageResponse;
 import com.isi.dossier.dto.DossierRequest;
 import com.isi.dossier.dto.DossierResponse;
+import com.isi.dossier.dto.DossierRevisionResponse;
+import com.isi.dossier.dto.DossierSearchResponse;
 import com.isi.dossier.exception.EntityNotFoundException;
+import com.isi.dossier.exception.RequestException;
 import com.isi.dossier.mapper.DossierMapper;
 import com.isi.dossier.model.Dossier;
-import com.isi.dossier.patient.PatientClient;
+import com.isi.dossier.model.DossierRevision;
+import com.isi.dossier.patient.PatientLookup;
 import com.isi.dossier.repository.DossierRepository;
+import com.isi.dossier.repository.DossierRevisionRepository;
+import com.isi.dossier.repository.DossierSpecifications;
+import com.isi.dossier.search.CompteRenduIndex;
 import com.isi.dossier.service.DossierService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.context.MessageSource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 
 @Service
@@ -24,25 +53,81 @@ import java.util.Locale;
 @Setter
 public class DossierServiceImpl implements DossierService {
 
+    private static final int EXPORT_FLUSH_SIZE = 500;
+    public static final int MAX_CREATE_BATCH_SIZE = 10_000;
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+    public static final int DEFAULT_SEARCH_LIMIT = 20;
+    public static final int MAX_SEARCH_LIMIT = 100;
+
     private final DossierRepository repository;
     private final DossierMapper mapper;
     private final MessageSource messageSource;
-    private final PatientClient patientClient;
+    private final PatientLookup patientLookup;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final BatchWriter batchWriter;
+    private final CompteRenduIndex searchIndex;
+    private final DossierRevisionRepository revisionRepository;
+    private final TransactionTemplate transactionTemplate;
 
 
+    /**
+     * Le patient est resolu avant d'ouvrir la transaction : aucune connexion n'est tenue
+     * pendant l'appel a patient-service.
+     */
     @Override
     public DossierResponse newDossier(DossierRequest request) {
-        var patient = this.patientClient.findPatientById(request.getPatientId())
+        var patient = this.patientLookup.findPatientById(request.getPatientId())
                 .orElseThrow(() -> new EntityNotFoundException(messageSource.getMessage("patient.notfound", new Object[]{request.getPatientId()}, Locale.getDefault())));
 
-        Dossier dossier = mapper.toDossier(request);
-        dossier.setPatientId(patient.getId());
-        var savedDossier = repository.save(dossier);
-        return mapper.toDossierResponse(savedDossier);
+        return transactionTemplate.execute(status -> {
+            Dossier dossier = mapper.toDossier(request);
+            dossier.setPatientId(patient.getId());
+            dossier.nextRevision();
+            var savedDossier = repository.save(dossier);
+            revisionRepository.save(DossierRevision.of(savedDossier, null));
+            searchIndex.index(savedDossier);
+            return mapper.toDossierResponse(savedDossier);
+        });
+    }
 
+    /**
+     * Cree un lot de dossiers : les patients sont resolus en un appel groupe (via le cache
+     * proche), puis les insertions partent par tranches via {@link BatchWriter}, dans une
+     * transaction ouverte seulement une fois les patients resolus.
+     */
+    @Override
+    public List<DossierResponse> newDossiers(List<DossierRequest> requests) {
+        if (requests.size() > MAX_CREATE_BATCH_SIZE) {
+            throw new RequestException(messageSource.getMessage("batch.create.size.exceeded",
+                    new Object[]{requests.size(), MAX_CREATE_BATCH_SIZE}, Locale.getDefault()), HttpStatus.BAD_REQUEST);
+        }
+        Set<Long> patientIds = new LinkedHashSet<>();
+        requests.forEach(request -> patientIds.add(request.getPatientId()));
+        var patients = patientLookup.findPatientsByIds(patientIds);
+        patientIds.stream().filter(id -> !patients.containsKey(id)).findFirst().ifPresent(id -> {
+            throw new EntityNotFoundException(messageSource.getMessage("patient.notfound", new Object[]{id}, Locale.getDefault()));
+        });
+        List<Dossier> dossiers = requests.stream()
+                .map(request -> {
+                    Dossier dossier = mapper.toDossier(request);
+                    dossier.setId(null);
+                    dossier.setPatientId(request.getPatientId());
+                    dossier.nextRevision();
+                    return dossier;
+                })
+                .toList();
+        return transactionTemplate.execute(status -> {
+            List<Dossier> saved = batchWriter.saveAll(repository, dossiers);
+            batchWriter.saveAll(revisionRepository, saved.stream().map(dossier -> DossierRevision.of(dossier, null)).toList());
+            searchIndex.index(saved);
+            return mapper.toDossierResponseList(saved);
+        });
     }
 
     @Override
+    @Transactional(readOnly = true)
     public DossierResponse getDossierById(Long id) {
         return repository.findById(id)
                 .map(mapper::toDossierResponse)
@@ -51,19 +136,121 @@ public class DossierServiceImpl implements DossierService {
 
     @Override
     public List<DossierResponse> getAllDossier() {
-        return mapper.toDossierResponseList(repository.findAll());
+        return mapper.toDossierSummaryList(repository.findAll());
+    }
+
+    /**
+     * Liste reduite aux champs demandes ; sans compteRendu, le texte des consultations n'est pas lu.
+     */
+    @Override
+    public List<Map<String, Object>> getAllDossier(Collection<String> fields) {
+        List<String> selection = FieldProjection.selection(fields);
+        List<String> unknown = FieldProjection.unknown(selection, DossierRepository.FIELDS);
+        if (!unknown.isEmpty()) {
+            throw new RequestException(messageSource.getMessage("fields.invalid",
+                    new Object[]{String.join(", ", unknown), String.join(", ", DossierRepository.FIELDS)}, Locale.getDefault()),
+                    HttpStatus.BAD_REQUEST);
+        }
+        return repository.findAllFields(selection);
+    }
+
+    /**
+     * Historique d'un patient, du plus recent au plus ancien, pagine par cle (dateConsultation, id) :
+     * une page est un seul parcours de l'index (patient_id, date_consultation DESC, id), sans OFFSET,
+     * quel que soit le nombre total de dossiers. Les comptes rendus ne sont pas charges.
+     */
+    @Override
+    public DossierPageResponse getDossiersByPatient(Long patientId, LocalDate from, LocalDate to, String cursor, int size) {
+        int pageSize = size <= 0 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        Specification<Dossier> specification = DossierSpecifications.timeline(patientId, from, to);
+        if (cursor != null && !cursor.isBlank()) {
+            String[] position = decodeCursor(cursor);
+            specification = specification.and(DossierSpecifications.after(LocalDate.parse(position[0]), Long.valueOf(position[1])));
+        }
+        List<Dossier> dossiers = repository.findBy(specification, query -> query
+                .sortBy(DossierSpecifications.TIMELINE_ORDER)
+                .limit(pageSize + 1)
+                .all());
+        String nextCursor = null;
+        if (dossiers.size() > pageSize) {
+            dossiers = dossiers.subList(0, pageSize);
+            Dossier last = dossiers.get(pageSize - 1);
+            nextCursor = encodeCursor(last.getDateConsultation(), last.getId());
+        }
+        return new DossierPageResponse(mapper.toDossierSummaryList(dossiers), nextCursor);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<DossierRevisionResponse> getRevisions(Long id) {
+        var revisions = revisionRepository.findByDossierIdOrderByNumero(id);
+        if (revisions.isEmpty() && !repository.existsById(id)) {
+            throw new EntityNotFoundException(messageSource.getMessage("dossier.notfound", new Object[]{id}, Locale.getDefault()));
+        }
+        return mapper.toRevisionResponseList(revisions);
+    }
+
+    /**
+     * Reconstruit la revision {@code numero} : son dernier snapshot, puis les deltas qui le suivent.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public DossierRevisionResponse getRevision(Long id, int numero) {
+        List<DossierRevision> chain = revisionRepository.findChain(id, numero);
+        if (chain.isEmpty() || chain.get(chain.size() - 1).getNumero() != numero) {
+            throw new EntityNotFoundException(messageSource.getMessage("dossier.revision.notfound", new Object[]{numero, id}, Locale.getDefault()));
+        }
+        String compteRendu = null;
+        for (DossierRevision revision : chain) {
+            compteRendu = revision.applyTo(compteRendu);
+        }
+        DossierRevisionResponse response = mapper.toRevisionResponse(chain.get(chain.size() - 1));
+        response.setCompteRendu(compteRendu);
+        return response;
     }
 
+    /**
+     * Recherche plein texte dans les comptes rendus, via l'index en memoire ; une requete vide
+     * ne renvoie rien.
+     */
+    @Override
+    public List<DossierSearchResponse> searchDossiers(String query, Long patientId, LocalDate from, LocalDate to, int limit) {
+        int max = limit <= 0 ? DEFAULT_SEARCH_LIMIT : Math.min(limit, MAX_SEARCH_LIMIT);
+        return searchIndex.search(query, patientId, from, to, max);
+    }
+
+    /**
+     * Le patient est resolu hors transaction ; le compte rendu lazy est ensuite relu puis remplace
+     * dans une meme session. L'ancien texte n'est pas perdu, la nouvelle revision n'en garde que
+     * la difference. Un dossier anterieur aux revisions recoit d'abord un snapshot de son etat.
+     * Une mise a jour concurrente du meme dossier est refusee en 409.
+     */
     @Override
     public DossierResponse updateDossier(DossierRequest request) {
+        var patient = this.patientLookup.findPatientById(request.getPatientId())
+                .orElseThrow(() -> new EntityNotFoundException(messageSource.getMessage("patient.notfound", new Object[]{request.getPatientId()}, Locale.getDefault())));
+        try {
+            return transactionTemplate.execute(status -> update(request, patient.getId()));
+        } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+            throw new RequestException(messageSource.getMessage("dossier.update.conflict", new Object[]{request.getId()}, Locale.getDefault()), HttpStatus.CONFLICT);
+        }
+    }
+
+    private DossierResponse update(DossierRequest request, Long patientId) {
         var dossier = repository.findById(request.getId())
                 .orElseThrow(() -> new EntityNotFoundException(messageSource.getMessage("dossier.notfound", new Object[]{request.getId()}, Locale.getDefault())));
-        var patient = this.patientClient.findPatientById(request.getPatientId())
-                .orElseThrow(() -> new EntityNotFoundException(messageSource.getMessage("patient.notfound", new Object[]{request.getPatientId()}, Locale.getDefault())));
+        if (dossier.getRevision() == null) {
+            dossier.nextRevision();
+            revisionRepository.save(DossierRevision.of(dossier, null));
+        }
+        String precedent = dossier.getCompteRendu();
         dossier.setDateConsultation(request.getDateConsultation());
         dossier.setCompteRendu(request.getCompteRendu());
-        dossier.setPatientId(patient.getId());
+        dossier.setPatientId(patientId);
+        dossier.nextRevision();
         var updateDossier = repository.save(dossier);
+        revisionRepository.save(DossierRevision.of(updateDossier, precedent));
+        searchIndex.index(updateDossier);
         return mapper.toDossierResponse(updateDossier);
     }
 
@@ -73,6 +260,50 @@ public class DossierServiceImpl implements DossierService {
         Dossier dossier = repository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(messageSource.getMessage("dossier.notfound", new Object[]{id}, Locale.getDefault() )));
         repository.delete(dossier);
+        searchIndex.remove(dossier.getId());
     }
-}
 
+    /**
+     * Ecrit les dossiers en NDJSON au fil de la lecture : le curseur JDBC est parcouru dans une
+     * transaction en lecture seule et chaque entite est detachee une fois ecrite, la memoire
+     * utilisee ne depend donc pas du nombre de lignes.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportDossiers(OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(DossierResponse.class);
+        try (Stream<Dossier> dossiers = repository.streamAll()) {
+            int count = 0;
+            for (var iterator = dossiers.iterator(); iterator.hasNext(); ) {
+                Dossier dossier = iterator.next();
+                out.write(writer.writeValueAsBytes(mapper.toDossierResponse(dossier)));
+                out.write('\n');
+                entityManager.detach(dossier);
+                if (++count % EXPORT_FLUSH_SIZE == 0) {
+                    out.flush();
+                }
+            }
+        }
+        out.flush();
+    }
+
+    private static String encodeCursor(LocalDate dateConsultation, Long id) {
+        String position = dateConsultation + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (position.length == 2) {
+                LocalDate.parse(position[0]);
+                Long.parseLong(position[1]);
+                return position;
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            // curseur invalide, traite ci-dessous
+        }
+        throw new RequestException(messageSource.getMessage("cursor.invalid", new Object[]{cursor}, Locale.getDefault()),
+                HttpStatus.BAD_REQUEST);
+    }
+}
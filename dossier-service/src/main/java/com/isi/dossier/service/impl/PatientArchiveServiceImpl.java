@@ -0,0 +1,182 @@
+package com.isi.dossier.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.isi.dossier.attachment.AttachmentStore;
+import com.isi.dossier.dto.DossierResponse;
+import com.isi.dossier.exception.EntityNotFoundException;
+import com.isi.dossier.mapper.DossierMapper;
+import com.isi.dossier.patient.PatientLookup;
+import com.isi.dossier.patient.PatientResponse;
+import com.isi.dossier.rdv.RdvClient;
+import com.isi.dossier.rdv.RdvPageResponse;
+import com.isi.dossier.rdv.RdvResponse;
+import com.isi.dossier.repository.DossierRepository;
+import com.isi.dossier.repository.PieceJointeFichier;
+import com.isi.dossier.repository.PieceJointeRepository;
+import com.isi.dossier.service.PatientArchiveService;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.MessageSource;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Archive ZIP de tout le dossier medical d'un patient : sa fiche, ses dossiers, leurs pieces
+ * jointes et ses rendez-vous. Dossiers et pieces jointes sont lus par pages (pagination par cle),
+ * chacune dans sa propre transaction courte : aucune connexion n'est tenue pendant que la reponse
+ * s'ecrit au rythme du client. Les premieres pages des trois sources sont demandees ensemble, puis
+ * chaque page suivante est chargee pendant que la courante s'ecrit.
+ */
+@Service
+@AllArgsConstructor
+@Slf4j
+public class PatientArchiveServiceImpl implements PatientArchiveService {
+
+    static final int RDV_PAGE_SIZE = 100;
+    static final int PAGE_SIZE = 100;
+
+    private final PatientLookup patientLookup;
+    private final RdvClient rdvClient;
+    private final DossierRepository repository;
+    private final PieceJointeRepository pieceJointeRepository;
+    private final AttachmentStore store;
+    private final DossierMapper mapper;
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+    private final MessageSource messageSource;
+    @Qualifier("archiveExecutor")
+    private final Executor archiveExecutor;
+
+    /**
+     * Le patient est resolu tout de suite, pour qu'un id inconnu donne un 404 et non une archive
+     * tronquee ; tout le reste se fait pendant l'ecriture de la reponse.
+     */
+    @Override
+    public StreamingResponseBody exportPatientArchive(Long patientId) {
+        PatientResponse patient = patientLookup.findPatientById(patientId)
+                .orElseThrow(() -> new EntityNotFoundException(messageSource.getMessage("patient.notfound", new Object[]{patientId}, Locale.getDefault())));
+        return out -> {
+            CompletableFuture<RdvPageResponse> rdvs = fetchRdvs(patientId, null);
+            CompletableFuture<List<DossierResponse>> dossiers = fetchDossiers(patientId, 0L);
+            CompletableFuture<List<PieceJointeFichier>> piecesJointes = fetchPiecesJointes(patientId, 0L, 0L);
+            ZipOutputStream zip = new ZipOutputStream(out);
+            zip.putNextEntry(new ZipEntry("patient.json"));
+            zip.write(objectMapper.writeValueAsBytes(patient));
+            zip.closeEntry();
+
+            writeDossiers(zip, patientId, dossiers);
+            writePiecesJointes(zip, patientId, piecesJointes);
+            writeRdvs(zip, patientId, rdvs);
+            zip.finish();
+            zip.flush();
+        };
+    }
+
+    private void writeDossiers(ZipOutputStream zip, Long patientId, CompletableFuture<List<DossierResponse>> next) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(DossierResponse.class);
+        zip.putNextEntry(new ZipEntry("dossiers.ndjson"));
+        while (next != null) {
+            List<DossierResponse> page = next.join();
+            next = page.size() < PAGE_SIZE ? null : fetchDossiers(patientId, page.get(page.size() - 1).getId());
+            for (DossierResponse dossier : page) {
+                zip.write(writer.writeValueAsBytes(dossier));
+                zip.write('\n');
+            }
+        }
+        zip.closeEntry();
+    }
+
+    /**
+     * Fichiers recopies tels quels depuis le disque, hors de toute transaction : scans et PDF sont
+     * deja compresses, les deflater ne ferait que ralentir l'archive.
+     */
+    private void writePiecesJointes(ZipOutputStream zip, Long patientId, CompletableFuture<List<PieceJointeFichier>> next) throws IOException {
+        zip.setLevel(Deflater.NO_COMPRESSION);
+        try {
+            while (next != null) {
+                List<PieceJointeFichier> page = next.join();
+                PieceJointeFichier last = page.isEmpty() ? null : page.get(page.size() - 1);
+                next = page.size() < PAGE_SIZE ? null : fetchPiecesJointes(patientId, last.dossierId(), last.id());
+                for (PieceJointeFichier pieceJointe : page) {
+                    writePieceJointe(zip, pieceJointe);
+                }
+            }
+        } finally {
+            zip.setLevel(Deflater.DEFAULT_COMPRESSION);
+        }
+    }
+
+    private void writePieceJointe(ZipOutputStream zip, PieceJointeFichier pieceJointe) throws IOException {
+        Path file = store.path(pieceJointe.sha256());
+        if (!Files.exists(file)) {
+            log.warn("Fichier absent pour la piece jointe {} du dossier {}", pieceJointe.id(), pieceJointe.dossierId());
+            return;
+        }
+        zip.putNextEntry(new ZipEntry("pieces-jointes/" + pieceJointe.dossierId() + "/" + pieceJointe.id()
+                + "-" + entryName(pieceJointe.nom())));
+        Files.copy(file, zip);
+        zip.closeEntry();
+    }
+
+    /**
+     * Ecrit chaque page de rendez-vous pendant que la suivante est deja demandee a rdv-service.
+     */
+    private void writeRdvs(ZipOutputStream zip, Long patientId, CompletableFuture<RdvPageResponse> next) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(RdvResponse.class);
+        zip.putNextEntry(new ZipEntry("rendez-vous.ndjson"));
+        while (next != null) {
+            RdvPageResponse page = next.join();
+            next = page.getNextCursor() == null ? null : fetchRdvs(patientId, page.getNextCursor());
+            for (RdvResponse rdv : page.getContent()) {
+                zip.write(writer.writeValueAsBytes(rdv));
+                zip.write('\n');
+            }
+            zip.flush();
+        }
+        zip.closeEntry();
+    }
+
+    private CompletableFuture<RdvPageResponse> fetchRdvs(Long patientId, String cursor) {
+        return CompletableFuture.supplyAsync(() -> rdvClient.findRdvsByPatient(patientId, cursor, RDV_PAGE_SIZE), archiveExecutor);
+    }
+
+    private CompletableFuture<List<DossierResponse>> fetchDossiers(Long patientId, Long afterId) {
+        return readPage(status -> mapper.toDossierResponseList(
+                repository.findPageByPatientId(patientId, afterId, Limit.of(PAGE_SIZE))));
+    }
+
+    private CompletableFuture<List<PieceJointeFichier>> fetchPiecesJointes(Long patientId, Long afterDossierId, Long afterId) {
+        return readPage(status -> pieceJointeRepository.findFichiersByPatientId(patientId, afterDossierId, afterId, Limit.of(PAGE_SIZE)));
+    }
+
+    /**
+     * Une page par transaction en lecture seule : la connexion est rendue des la page lue.
+     */
+    private <T> CompletableFuture<T> readPage(TransactionCallback<T> query) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        return CompletableFuture.supplyAsync(() -> transaction.execute(query), archiveExecutor);
+    }
+
+    private static String entryName(String nom) {
+        String name = nom == null ? "" : nom.replaceAll("[/\\\\]", "_").strip();
+        return name.isEmpty() ? "piece-jointe" : name;
+    }
+}
@@ -0,0 +1,109 @@
+package com.isi.dossier.service.impl;
+
+import com.isi.dossier.attachment.AttachmentSender;
+import com.isi.dossier.attachment.AttachmentStore;
+import com.isi.dossier.dto.PieceJointeResponse;
+import com.isi.dossier.exception.EntityNotFoundException;
+import com.isi.dossier.exception.RequestException;
+import com.isi.dossier.mapper.DossierMapper;
+import com.isi.dossier.model.PieceJointe;
+import com.isi.dossier.repository.DossierRepository;
+import com.isi.dossier.repository.PieceJointeRepository;
+import com.isi.dossier.service.PieceJointeService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.MessageSource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+
+@Service
+@AllArgsConstructor
+@Slf4j
+public class PieceJointeServiceImpl implements PieceJointeService {
+
+    private final PieceJointeRepository repository;
+    private final DossierRepository dossierRepository;
+    private final DossierMapper mapper;
+    private final MessageSource messageSource;
+    private final AttachmentStore store;
+    private final AttachmentSender sender;
+
+    /**
+     * Le contenu part sur disque au fil de la lecture, hors transaction : seule la ligne de
+     * metadonnees est ecrite en base, une fois le fichier en place et sous le verrou de son
+     * empreinte, pour qu'une suppression concurrente du meme contenu la voie.
+     */
+    @Override
+    public PieceJointeResponse addPieceJointe(Long dossierId, String nom, String typeContenu, InputStream contenu) throws IOException {
+        if (!dossierRepository.existsById(dossierId)) {
+            throw new EntityNotFoundException(messageSource.getMessage("dossier.notfound", new Object[]{dossierId}, Locale.getDefault()));
+        }
+        PieceJointe saved;
+        try {
+            saved = store.store(contenu, blob -> repository.save(PieceJointe.builder()
+                    .dossierId(dossierId)
+                    .nom(nom)
+                    .typeContenu(typeContenu == null ? MediaType.APPLICATION_OCTET_STREAM_VALUE : typeContenu)
+                    .taille(blob.size())
+                    .sha256(blob.sha256())
+                    .creeLe(Instant.now())
+                    .build()));
+        } catch (AttachmentStore.TooLargeException e) {
+            throw new RequestException(messageSource.getMessage("piecejointe.too.large", new Object[]{e.getMaxSize()}, Locale.getDefault()),
+                    HttpStatus.PAYLOAD_TOO_LARGE);
+        }
+        return mapper.toPieceJointeResponse(saved);
+    }
+
+    @Override
+    public List<PieceJointeResponse> getPiecesJointes(Long dossierId) {
+        return mapper.toPieceJointeResponseList(repository.findByDossierIdOrderById(dossierId));
+    }
+
+    @Override
+    public void sendPieceJointe(Long dossierId, Long id, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        PieceJointe pieceJointe = find(dossierId, id);
+        sender.send(store.path(pieceJointe.getSha256()), pieceJointe.getSha256(), pieceJointe.getTypeContenu(),
+                pieceJointe.getNom(), request, response);
+    }
+
+    /**
+     * Supprime la piece jointe ; son fichier ne disparait, apres le commit, que si aucune autre
+     * piece jointe ne partage ce contenu.
+     */
+    @Override
+    @Transactional
+    public void deletePieceJointe(Long dossierId, Long id) {
+        PieceJointe pieceJointe = find(dossierId, id);
+        repository.delete(pieceJointe);
+        String sha256 = pieceJointe.getSha256();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    store.deleteUnreferenced(sha256, repository::existsBySha256);
+                } catch (IOException e) {
+                    log.warn("Fichier de piece jointe {} non supprime", sha256, e);
+                }
+            }
+        });
+    }
+
+    private PieceJointe find(Long dossierId, Long id) {
+        return repository.findByIdAndDossierId(id, dossierId)
+                .orElseThrow(() -> new EntityNotFoundException(messageSource.getMessage("piecejointe.notfound",
+                        new Object[]{id, dossierId}, Locale.getDefault())));
+    }
+}
@@ -0,0 +1,105 @@
+package com.isi.dossier.attachment;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AttachmentSenderTest {
+
+    private static final String SHA256 = "abc123";
+
+    @TempDir
+    Path root;
+
+    private final AttachmentSender sender = new AttachmentSender();
+    private Path file;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = Files.writeString(root.resolve(SHA256), "0123456789");
+        request = new MockHttpServletRequest();
+        response = new MockHttpServletResponse();
+    }
+
+    @Test
+    void sendsWholeFileWithEtag() throws IOException {
+        send();
+
+        assertEquals(200, response.getStatus());
+        assertEquals("\"abc123\"", response.getHeader(HttpHeaders.ETAG));
+        assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+        assertEquals("0123456789", response.getContentAsString());
+        assertTrue(response.getHeader(HttpHeaders.CONTENT_DISPOSITION).contains("scan.pdf"));
+    }
+
+    @Test
+    void sendsRequestedRange() throws IOException {
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+
+        send();
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 2-5/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals(4, response.getContentLengthLong());
+        assertEquals("2345", response.getContentAsString());
+    }
+
+    @Test
+    void ifRangeWithAnotherEtagSendsWholeFile() throws IOException {
+        request.addHeader(HttpHeaders.RANGE, "bytes=-3");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"autre\"");
+
+        send();
+
+        assertEquals(200, response.getStatus());
+        assertEquals("0123456789", response.getContentAsString());
+    }
+
+    @Test
+    void matchingEtagIsNotModified() throws IOException {
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"abc123\"");
+
+        send();
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void rangeBeyondFileIsNotSatisfiable() throws IOException {
+        request.addHeader(HttpHeaders.RANGE, "bytes=20-30");
+
+        send();
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void sendfileIsDelegatedToTomcatWhenSupported() throws IOException {
+        request.setAttribute(AttachmentSender.SENDFILE_SUPPORT, Boolean.TRUE);
+        request.addHeader(HttpHeaders.RANGE, "bytes=4-");
+
+        send();
+
+        assertEquals(file.toAbsolutePath().toString(), request.getAttribute(AttachmentSender.SENDFILE_FILENAME));
+        assertEquals(4L, request.getAttribute(AttachmentSender.SENDFILE_START));
+        assertEquals(10L, request.getAttribute(AttachmentSender.SENDFILE_END));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    private void send() throws IOException {
+        sender.send(file, SHA256, "application/pdf", "scan.pdf", request, response);
+    }
+}
@@ -0,0 +1,121 @@
+package com.isi.dossier.attachment;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AttachmentStoreTest {
+
+    @TempDir
+    Path root;
+
+    private AttachmentStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new AttachmentStore(root, 16);
+    }
+
+    @Test
+    void storeWritesContentUnderItsSha256() throws IOException {
+        AttachmentStore.Blob blob = store.store(stream("bilan sanguin"));
+
+        assertEquals("ea5e9be35043b2352dec8f399ff02c48c54ac375b8b2739349c251b730387757", blob.sha256());
+        assertEquals(13, blob.size());
+        Path file = store.path(blob.sha256());
+        assertEquals(root.resolve(blob.sha256().substring(0, 2)).resolve(blob.sha256().substring(2, 4)).resolve(blob.sha256()), file);
+        assertEquals("bilan sanguin", Files.readString(file));
+    }
+
+    @Test
+    void sameContentIsStoredOnce() throws IOException {
+        AttachmentStore.Blob first = store.store(stream("radio thorax"));
+        AttachmentStore.Blob second = store.store(stream("radio thorax"));
+
+        assertEquals(first.sha256(), second.sha256());
+        assertEquals(1, files());
+    }
+
+    @Test
+    void tooLargeContentLeavesNothingBehind() throws IOException {
+        assertThrows(AttachmentStore.TooLargeException.class, () -> store.store(stream("x".repeat(17))));
+
+        assertEquals(0, files());
+    }
+
+    @Test
+    void uploadOfTheSameContentDuringADeleteKeepsItsFile() throws Exception {
+        String sha256 = store.store(stream("ecg")).sha256();
+        Set<String> referenced = ConcurrentHashMap.newKeySet();
+        CountDownLatch checking = new CountDownLatch(1);
+        CountDownLatch uploading = new CountDownLatch(1);
+
+        CompletableFuture<Boolean> delete = CompletableFuture.supplyAsync(() -> {
+            try {
+                return store.deleteUnreferenced(sha256, sha -> {
+                    checking.countDown();
+                    try {
+                        // laisse a l'envoi le temps d'aller aussi loin qu'il le peut
+                        uploading.await(5, TimeUnit.SECONDS);
+                        Thread.sleep(200);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return referenced.contains(sha);
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        assertTrue(checking.await(5, TimeUnit.SECONDS));
+        CompletableFuture<AttachmentStore.Blob> upload = CompletableFuture.supplyAsync(() -> {
+            uploading.countDown();
+            try {
+                return store.store(stream("ecg"), blob -> {
+                    referenced.add(blob.sha256());
+                    return blob;
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        assertTrue(delete.get(5, TimeUnit.SECONDS));
+        assertEquals(sha256, upload.get(5, TimeUnit.SECONDS).sha256());
+        assertEquals("ecg", Files.readString(store.path(sha256)));
+    }
+
+    @Test
+    void referencedContentIsNotDeleted() throws IOException {
+        String sha256 = store.store(stream("irm")).sha256();
+
+        assertFalse(store.deleteUnreferenced(sha256, sha -> true));
+
+        assertTrue(Files.exists(store.path(sha256)));
+    }
+
+    private long files() throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            return paths.filter(Files::isRegularFile).count();
+        }
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
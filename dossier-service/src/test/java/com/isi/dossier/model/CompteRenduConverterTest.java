@@ -0,0 +1,41 @@
+package com.isi.dossier.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompteRenduConverterTest {
+
+    private final CompteRenduConverter converter = new CompteRenduConverter();
+
+    @Test
+    void shortTextIsStoredRaw() {
+        String texte = "Suivi hypertension - tension stabilisée";
+
+        byte[] colonne = converter.convertToDatabaseColumn(texte);
+
+        assertEquals(CompteRenduConverter.BRUT, colonne[0]);
+        assertEquals(texte.getBytes(StandardCharsets.UTF_8).length + 1, colonne.length);
+        assertEquals(texte, converter.convertToEntityAttribute(colonne));
+    }
+
+    @Test
+    void longTextIsDeflatedAndReadBack() {
+        String texte = "Patient vu pour douleur thoracique. ECG sans anomalie, tension 13/8. ".repeat(40);
+
+        byte[] colonne = converter.convertToDatabaseColumn(texte);
+
+        assertEquals(CompteRenduConverter.DEFLATE, colonne[0]);
+        assertTrue(colonne.length < texte.length() / 4);
+        assertEquals(texte, converter.convertToEntityAttribute(colonne));
+    }
+
+    @Test
+    void nullStaysNullAndUnknownFormatIsRejected() {
+        assertNull(converter.convertToDatabaseColumn(null));
+        assertNull(converter.convertToEntityAttribute(null));
+        assertThrows(IllegalStateException.class, () -> converter.convertToEntityAttribute(new byte[]{7, 1}));
+    }
+}
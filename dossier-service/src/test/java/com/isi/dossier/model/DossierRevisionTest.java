@@ -0,0 +1,66 @@
+package com.isi.dossier.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DossierRevisionTest {
+
+    @Test
+    void deltaKeepsOnlyTheChangedMiddle() {
+        Dossier dossier = dossier("Tension 14/9, traitement inchangé.");
+        dossier.setRevision(1);
+        dossier.nextRevision();
+        dossier.setCompteRendu("Tension 12/8, traitement inchangé.");
+
+        DossierRevision revision = DossierRevision.of(dossier, "Tension 14/9, traitement inchangé.");
+
+        assertFalse(revision.isSnapshot());
+        assertEquals("2/8", revision.getTexte());
+        assertEquals("Tension 12/8, traitement inchangé.", revision.applyTo("Tension 14/9, traitement inchangé."));
+    }
+
+    @Test
+    void everyRevisionIsRebuiltFromItsLastSnapshot() {
+        Dossier dossier = dossier("Consultation initiale");
+        List<DossierRevision> revisions = new ArrayList<>();
+        List<String> textes = new ArrayList<>();
+        String precedent = null;
+        for (int i = 1; i <= 25; i++) {
+            String texte = i % 7 == 0 ? null : "Consultation " + i + " 😷 suivi " + "x".repeat(i % 3);
+            dossier.setCompteRendu(texte);
+            dossier.nextRevision();
+            revisions.add(DossierRevision.of(dossier, precedent));
+            textes.add(texte);
+            precedent = texte;
+        }
+
+        for (int numero = 1; numero <= 25; numero++) {
+            int debut = numero;
+            while (!revisions.get(debut - 1).isSnapshot()) {
+                debut--;
+            }
+            assertTrue(numero - debut < DossierRevision.SNAPSHOT_INTERVAL);
+            String texte = null;
+            for (DossierRevision revision : revisions.subList(debut - 1, numero)) {
+                texte = revision.applyTo(texte);
+            }
+            assertEquals(textes.get(numero - 1), texte);
+        }
+        assertTrue(revisions.get(10).isSnapshot());
+        assertTrue(revisions.get(20).isSnapshot());
+    }
+
+    private static Dossier dossier(String compteRendu) {
+        Dossier dossier = new Dossier();
+        dossier.setId(1L);
+        dossier.setPatientId(1L);
+        dossier.setDateConsultation(LocalDate.of(2024, 1, 15));
+        dossier.setCompteRendu(compteRendu);
+        return dossier;
+    }
+}
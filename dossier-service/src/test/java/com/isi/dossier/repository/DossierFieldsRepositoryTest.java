@@ -0,0 +1,69 @@
+package com.isi.dossier.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.cloud.consul.enabled=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.isi.dossier.repository.DossierFieldsRepositoryTest$SqlCapture"
+})
+class DossierFieldsRepositoryTest {
+
+    @Autowired
+    private DossierRepository repository;
+
+    /**
+     * Retient le SQL emis pour verifier les colonnes reellement lues.
+     */
+    public static class SqlCapture implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        SqlCapture.STATEMENTS.clear();
+    }
+
+    @Test
+    void findAllFieldsSkipsCompteRendu() {
+        List<Map<String, Object>> rows = repository.findAllFields(List.of("id", "patientId", "dateConsultation"));
+
+        assertFalse(rows.isEmpty());
+        rows.forEach(row -> assertEquals(List.of("id", "patientId", "dateConsultation"), List.copyOf(row.keySet())));
+        assertEquals(1L, rows.get(0).get("patientId"));
+        assertEquals(LocalDate.of(2024, 1, 15), rows.get(0).get("dateConsultation"));
+
+        String sql = SqlCapture.STATEMENTS.stream()
+                .filter(statement -> statement.toLowerCase(Locale.ROOT).contains("from dossier"))
+                .findFirst().orElseThrow().toLowerCase(Locale.ROOT);
+        assertTrue(sql.contains("patient_id"));
+        assertFalse(sql.contains("compte_rendu"));
+    }
+
+    @Test
+    void findAllFieldsJoinsCompteRenduOnlyWhenAsked() {
+        List<Map<String, Object>> rows = repository.findAllFields(List.of("id", "compteRendu", "compteRenduLongueur"));
+
+        assertEquals("Consultation annuelle - bilan de santé normal", rows.get(0).get("compteRendu"));
+        assertEquals(45, rows.get(0).get("compteRenduLongueur"));
+        assertTrue(SqlCapture.STATEMENTS.stream().anyMatch(sql -> sql.toLowerCase(Locale.ROOT).contains("left join compte_rendu")));
+    }
+}
@@ -0,0 +1,93 @@
+package com.isi.dossier.search;
+
+import com.isi.dossier.dto.DossierSearchResponse;
+import com.isi.dossier.model.Dossier;
+import com.isi.dossier.repository.DossierRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CompteRenduIndexTest {
+
+    @Mock
+    private DossierRepository repository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private CompteRenduIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new CompteRenduIndex(repository, entityManager);
+        index.index(List.of(
+                dossier(1L, 1L, LocalDate.of(2024, 1, 15), "Suivi hypertension - tension stabilisée"),
+                dossier(2L, 1L, LocalDate.of(2024, 3, 2), "Hypertension artérielle sévère, hypertension mal contrôlée"),
+                dossier(3L, 2L, LocalDate.of(2024, 2, 20), "Fractures du poignet gauche, plâtre posé"),
+                dossier(4L, 2L, LocalDate.of(2024, 5, 4), "Consultation pour fièvre - infection virale")));
+    }
+
+    @Test
+    void analyzerFoldsAccentsAndStems() {
+        assertEquals(List.of("fractur", "fractur", "poignet"), FrenchAnalyzer.analyze("Fracturée, fracture du poignet"));
+        assertEquals(List.of("consult", "annuel", "bilan"), FrenchAnalyzer.analyze("Consultations annuelles : le bilan"));
+    }
+
+    @Test
+    void searchRanksByRelevance() {
+        assertEquals(List.of(2L, 1L), ids(index.search("HYPERTENSION", null, null, null, 10)));
+        assertEquals(List.of(3L), ids(index.search("fracturé", null, null, null, 10)));
+        assertEquals(List.of(), ids(index.search("de la", null, null, null, 10)));
+    }
+
+    @Test
+    void searchFiltersByPatientAndDateRange() {
+        assertEquals(List.of(), ids(index.search("hypertension", 2L, null, null, 10)));
+        assertEquals(List.of(1L), ids(index.search("hypertension", 1L, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31), 10)));
+        assertEquals(List.of(2L), ids(index.search("hypertension", null, null, null, 1)));
+    }
+
+    @Test
+    void updateAndRemoveAreIncremental() {
+        index.index(dossier(3L, 2L, LocalDate.of(2024, 2, 20), "Contrôle hypertension"));
+        assertEquals(List.of(), ids(index.search("fracture", null, null, null, 10)));
+        assertEquals(3, index.search("hypertension", null, null, null, 10).size());
+
+        index.remove(2L);
+        assertEquals(List.of(1L, 3L), ids(index.search("hypertension", null, null, null, 10)).stream().sorted().toList());
+    }
+
+    @Test
+    void rebuildReadsEveryDossier() {
+        when(repository.streamAll()).thenReturn(Stream.of(dossier(7L, 3L, LocalDate.of(2024, 6, 1), "Crise d'asthme")));
+
+        index.rebuild();
+
+        assertEquals(List.of(7L), ids(index.search("asthme", null, null, null, 10)));
+        assertEquals(List.of(), ids(index.search("hypertension", null, null, null, 10)));
+    }
+
+    private static List<Long> ids(List<DossierSearchResponse> hits) {
+        return hits.stream().map(DossierSearchResponse::getId).toList();
+    }
+
+    private static Dossier dossier(Long id, Long patientId, LocalDate date, String compteRendu) {
+        Dossier dossier = new Dossier();
+        dossier.setId(id);
+        dossier.setPatientId(patientId);
+        dossier.setDateConsultation(date);
+        dossier.setCompteRendu(compteRendu);
+        return dossier;
+    }
+}
@@ -1,28 +1,42 @@
 package com.isi.dossier.service.impl;
 
+import com.isi.dossier.dto.DossierPageResponse;
 import com.isi.dossier.dto.DossierRequest;
 import com.isi.dossier.dto.DossierResponse;
+import com.isi.dossier.dto.DossierRevisionResponse;
+import com.isi.dossier.dto.DossierSearchResponse;
 import com.isi.dossier.exception.EntityNotFoundException;
+import com.isi.dossier.exception.RequestException;
 import com.isi.dossier.mapper.DossierMapper;
 import com.isi.dossier.model.Dossier;
-import com.isi.dossier.patient.PatientClient;
+import com.isi.dossier.model.DossierRevision;
+import com.isi.dossier.patient.PatientLookup;
 import com.isi.dossier.patient.PatientResponse;
 import com.isi.dossier.repository.DossierRepository;
+import com.isi.dossier.repository.DossierRevisionRepository;
+import com.isi.dossier.search.CompteRenduIndex;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.context.MessageSource;
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -38,14 +52,32 @@ class DossierServiceImplTest {
     private MessageSource messageSource;
 
     @Mock
-    private PatientClient patientClient;
+    private PatientLookup patientLookup;
+
+    @Mock
+    private BatchWriter batchWriter;
+
+    @Mock
+    private CompteRenduIndex searchIndex;
+
+    @Mock
+    private DossierRevisionRepository revisionRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
 
     @InjectMocks
     private DossierServiceImpl service;
 
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
     @Test
     void newDossierOK() {
-        when(patientClient.findPatientById(anyLong()))
+        when(patientLookup.findPatientById(anyLong()))
                 .thenReturn(Optional.of(getPatientResponse()));
         when(mapper.toDossier(any())).thenReturn(getDossier());
         when(repository.save(any())).thenReturn(getDossier());
@@ -55,12 +87,12 @@ class DossierServiceImplTest {
 
         assertNotNull(response);
         assertEquals(1L, response.getId());
-        verify(patientClient, times(1)).findPatientById(anyLong());
+        verify(patientLookup, times(1)).findPatientById(anyLong());
     }
 
     @Test
     void newDossierKO_PatientNotFound() {
-        when(patientClient.findPatientById(anyLong())).thenReturn(Optional.empty());
+        when(patientLookup.findPatientById(anyLong())).thenReturn(Optional.empty());
         when(messageSource.getMessage(eq("patient.notfound"), any(), any(Locale.class)))
                 .thenReturn("Patient not found");
 
@@ -70,6 +102,20 @@ class DossierServiceImplTest {
         assertEquals("Patient not found", exception.getMessage());
     }
 
+    @Test
+    void newDossiersKO_PatientNotFound() {
+        when(patientLookup.findPatientsByIds(any())).thenReturn(Map.of());
+        when(messageSource.getMessage(eq("patient.notfound"), any(), any(Locale.class)))
+                .thenReturn("Patient not found");
+
+        EntityNotFoundException exception = assertThrows(EntityNotFoundException.class,
+                () -> service.newDossiers(List.of(getDossierRequest())));
+
+        assertEquals("Patient not found", exception.getMessage());
+        verifyNoInteractions(batchWriter);
+        verify(patientLookup, never()).findPatientById(anyLong());
+    }
+
     @Test
     void getDossierByIdOK() {
         when(repository.findById(anyLong())).thenReturn(Optional.of(getDossier()));
@@ -93,10 +139,20 @@ class DossierServiceImplTest {
         assertEquals("Dossier not found", exception.getMessage());
     }
 
+    @Test
+    void getAllDossierWithFieldsKO_UnknownField() {
+        when(messageSource.getMessage(eq("fields.invalid"), any(), any(Locale.class))).thenReturn("Unknown fields: contenu");
+
+        RequestException exception = assertThrows(RequestException.class, () -> service.getAllDossier(List.of("contenu")));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        verifyNoInteractions(repository);
+    }
+
     @Test
     void getAllDossier() {
         when(repository.findAll()).thenReturn(List.of(getDossier()));
-        when(mapper.toDossierResponseList(any())).thenReturn(List.of(getDossierResponse()));
+        when(mapper.toDossierSummaryList(any())).thenReturn(List.of(getDossierResponse()));
 
         List<DossierResponse> list = service.getAllDossier();
 
@@ -104,10 +160,50 @@ class DossierServiceImplTest {
         assertEquals(1, list.size());
     }
 
+    @Test
+    void getDossiersByPatientReturnsCursorWhenMoreRowsExist() {
+        Dossier second = getDossier();
+        second.setId(2L);
+        when(repository.findBy(any(), any())).thenReturn(List.of(getDossier(), second));
+        when(mapper.toDossierSummaryList(any())).thenReturn(List.of(getDossierResponse()));
+
+        DossierPageResponse page = service.getDossiersByPatient(1L, null, null, null, 1);
+
+        assertEquals(1, page.getContent().size());
+        assertNotNull(page.getNextCursor());
+        verify(mapper).toDossierSummaryList(argThat(dossiers -> dossiers.size() == 1));
+
+        when(repository.findBy(any(), any())).thenReturn(List.of(second));
+        DossierPageResponse next = service.getDossiersByPatient(1L, LocalDate.of(2023, 1, 1), null, page.getNextCursor(), 1);
+
+        assertNull(next.getNextCursor());
+    }
+
+    @Test
+    void searchDossiersCapsLimit() {
+        List<DossierSearchResponse> hits = List.of(new DossierSearchResponse(1L, 1L, LocalDate.of(2024, 1, 15), 1.5));
+        when(searchIndex.search("hypertension", 1L, null, null, DossierServiceImpl.MAX_SEARCH_LIMIT)).thenReturn(hits);
+
+        assertSame(hits, service.searchDossiers("hypertension", 1L, null, null, 1_000));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void getDossiersByPatientKO_InvalidCursor() {
+        when(messageSource.getMessage(eq("cursor.invalid"), any(), any(Locale.class)))
+                .thenReturn("Invalid cursor");
+
+        RequestException exception = assertThrows(RequestException.class,
+                () -> service.getDossiersByPatient(1L, null, null, "pas-un-curseur", 20));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        verify(repository, never()).findBy(any(), any());
+    }
+
     @Test
     void updateDossierOK() {
         when(repository.findById(anyLong())).thenReturn(Optional.of(getDossier()));
-        when(patientClient.findPatientById(anyLong()))
+        when(patientLookup.findPatientById(anyLong()))
                 .thenReturn(Optional.of(getPatientResponse()));
         when(repository.save(any())).thenReturn(getDossier());
         when(mapper.toDossierResponse(any())).thenReturn(getDossierResponse());
@@ -116,11 +212,101 @@ class DossierServiceImplTest {
 
         assertNotNull(response);
         assertEquals(1L, response.getId());
-        verify(patientClient, times(1)).findPatientById(anyLong());
+        verify(patientLookup, times(1)).findPatientById(anyLong());
+    }
+
+    @Test
+    void updateDossierRecordsDeltaRevision() {
+        Dossier dossier = getDossier();
+        dossier.setRevision(4);
+        when(repository.findById(anyLong())).thenReturn(Optional.of(dossier));
+        when(patientLookup.findPatientById(anyLong())).thenReturn(Optional.of(getPatientResponse()));
+        when(repository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        DossierRequest request = getDossierRequest();
+        request.setCompteRendu("Compte rendu de consultation de suivi");
+
+        service.updateDossier(request);
+
+        verify(revisionRepository).save(argThat(revision -> revision.getNumero() == 5 && !revision.isSnapshot()
+                && revision.getPrefixe() == 28 && " de suivi".equals(revision.getTexte())));
+        assertEquals(5, dossier.getRevision());
+    }
+
+    @Test
+    void firstUpdateOfADossierWithoutRevisionKeepsItsPriorText() {
+        Dossier dossier = getDossier();
+        dossier.setRevision(null);
+        when(repository.findById(anyLong())).thenReturn(Optional.of(dossier));
+        when(patientLookup.findPatientById(anyLong())).thenReturn(Optional.of(getPatientResponse()));
+        when(repository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        DossierRequest request = getDossierRequest();
+        request.setCompteRendu("Compte rendu de consultation de suivi");
+
+        service.updateDossier(request);
+
+        var inOrder = inOrder(revisionRepository);
+        inOrder.verify(revisionRepository).save(argThat(revision -> revision.getNumero() == 1 && revision.isSnapshot()
+                && "Compte rendu de consultation".equals(revision.getTexte())));
+        inOrder.verify(revisionRepository).save(argThat(revision -> revision.getNumero() == 2 && !revision.isSnapshot()
+                && " de suivi".equals(revision.getTexte())));
+        assertEquals(2, dossier.getRevision());
+    }
+
+    @Test
+    void updateDossierKO_ConcurrentUpdate() {
+        when(patientLookup.findPatientById(anyLong())).thenReturn(Optional.of(getPatientResponse()));
+        doThrow(new ObjectOptimisticLockingFailureException(Dossier.class, 1L)).when(transactionTemplate).execute(any());
+        when(messageSource.getMessage(eq("dossier.update.conflict"), any(), any(Locale.class)))
+                .thenReturn("Dossier modified concurrently");
+
+        RequestException exception = assertThrows(RequestException.class, () -> service.updateDossier(getDossierRequest()));
+
+        assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+    }
+
+    @Test
+    void getRevisionsKO_DossierNotFound() {
+        when(revisionRepository.findByDossierIdOrderByNumero(1L)).thenReturn(List.of());
+        when(repository.existsById(1L)).thenReturn(false);
+        when(messageSource.getMessage(eq("dossier.notfound"), any(), any(Locale.class)))
+                .thenReturn("Dossier not found");
+
+        EntityNotFoundException exception = assertThrows(EntityNotFoundException.class, () -> service.getRevisions(1L));
+
+        assertEquals("Dossier not found", exception.getMessage());
+    }
+
+    @Test
+    void getRevisionAppliesDeltasFromLastSnapshot() {
+        Dossier dossier = getDossier();
+        dossier.setRevision(11);
+        DossierRevision snapshot = DossierRevision.of(dossier, null);
+        dossier.nextRevision();
+        dossier.setCompteRendu("Compte rendu de consultation de suivi");
+        DossierRevision delta = DossierRevision.of(dossier, "Compte rendu de consultation");
+        when(revisionRepository.findChain(1L, 12)).thenReturn(List.of(snapshot, delta));
+        when(mapper.toRevisionResponse(delta)).thenReturn(new DossierRevisionResponse());
+
+        DossierRevisionResponse response = service.getRevision(1L, 12);
+
+        assertTrue(snapshot.isSnapshot());
+        assertEquals("Compte rendu de consultation de suivi", response.getCompteRendu());
+    }
+
+    @Test
+    void getRevisionKO_NotFound() {
+        when(revisionRepository.findChain(1L, 3)).thenReturn(List.of());
+        when(messageSource.getMessage(eq("dossier.revision.notfound"), any(), any(Locale.class)))
+                .thenReturn("Revision not found");
+
+        EntityNotFoundException exception = assertThrows(EntityNotFoundException.class, () -> service.getRevision(1L, 3));
+
+        assertEquals("Revision not found", exception.getMessage());
     }
 
     @Test
     void updateDossierKO_DossierNotFound() {
+        when(patientLookup.findPatientById(anyLong())).thenReturn(Optional.of(getPatientResponse()));
         when(repository.findById(anyLong())).thenReturn(Optional.empty());
         when(messageSource.getMessage(eq("dossier.notfound"), any(), any(Locale.class)))
                 .thenReturn("Dossier not found");
@@ -133,8 +319,7 @@ class DossierServiceImplTest {
 
     @Test
     void updateDossierKO_PatientNotFound() {
-        when(repository.findById(anyLong())).thenReturn(Optional.of(getDossier()));
-        when(patientClient.findPatientById(anyLong())).thenReturn(Optional.empty());
+        when(patientLookup.findPatientById(anyLong())).thenReturn(Optional.empty());
         when(messageSource.getMessage(eq("patient.notfound"), any(), any(Locale.class)))
                 .thenReturn("Patient not found");
 
@@ -142,6 +327,7 @@ class DossierServiceImplTest {
                 () -> service.updateDossier(getDossierRequest()));
 
         assertEquals("Patient not found", exception.getMessage());
+        verifyNoInteractions(repository, transactionTemplate);
     }
 
     @Test
@@ -151,6 +337,7 @@ class DossierServiceImplTest {
         service.deleteDossierById(1L);
 
         verify(repository, times(1)).delete(any());
+        verify(searchIndex).remove(1L);
     }
 
     @Test
@@ -181,6 +368,7 @@ class DossierServiceImplTest {
         dossier.setPatientId(1L);
         dossier.setDateConsultation(LocalDate.now());
         dossier.setCompteRendu("Compte rendu de consultation");
+        dossier.setRevision(1);
         return dossier;
     }
 
@@ -0,0 +1,174 @@
+package com.isi.dossier.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.isi.dossier.attachment.AttachmentStore;
+import com.isi.dossier.dto.DossierResponse;
+import com.isi.dossier.exception.EntityNotFoundException;
+import com.isi.dossier.mapper.DossierMapper;
+import com.isi.dossier.model.Dossier;
+import com.isi.dossier.patient.PatientLookup;
+import com.isi.dossier.patient.PatientResponse;
+import com.isi.dossier.rdv.RdvClient;
+import com.isi.dossier.rdv.RdvPageResponse;
+import com.isi.dossier.rdv.RdvResponse;
+import com.isi.dossier.repository.DossierRepository;
+import com.isi.dossier.repository.PieceJointeFichier;
+import com.isi.dossier.repository.PieceJointeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.MessageSource;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.LongStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PatientArchiveServiceImplTest {
+
+    @Mock
+    private PatientLookup patientLookup;
+
+    @Mock
+    private RdvClient rdvClient;
+
+    @Mock
+    private DossierRepository repository;
+
+    @Mock
+    private PieceJointeRepository pieceJointeRepository;
+
+    @Mock
+    private AttachmentStore store;
+
+    @Mock
+    private DossierMapper mapper;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private MessageSource messageSource;
+
+    @TempDir
+    Path root;
+
+    private PatientArchiveServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new PatientArchiveServiceImpl(patientLookup, rdvClient, repository, pieceJointeRepository, store, mapper,
+                new ObjectMapper().findAndRegisterModules(), transactionManager, messageSource, Runnable::run);
+    }
+
+    @Test
+    void archiveContainsPatientDossiersAttachmentsAndEveryRdvPage() throws IOException {
+        when(patientLookup.findPatientById(1L)).thenReturn(Optional.of(
+                new PatientResponse(1L, "Doe", "John", LocalDate.of(1980, 1, 1), "M", "Dakar", "770000000", "john@example.com")));
+        Dossier dossier = new Dossier();
+        dossier.setId(5L);
+        when(repository.findPageByPatientId(eq(1L), eq(0L), any(Limit.class))).thenReturn(List.of(dossier));
+        DossierResponse response = new DossierResponse();
+        response.setId(5L);
+        response.setCompteRendu("Suivi hypertension");
+        when(mapper.toDossierResponseList(List.of(dossier))).thenReturn(List.of(response));
+        when(pieceJointeRepository.findFichiersByPatientId(eq(1L), eq(0L), eq(0L), any(Limit.class)))
+                .thenReturn(List.of(new PieceJointeFichier(9L, 5L, "abc123", "radio/thorax.png")));
+        when(store.path("abc123")).thenReturn(Files.writeString(root.resolve("abc123"), "PNG"));
+        when(rdvClient.findRdvsByPatient(1L, null, PatientArchiveServiceImpl.RDV_PAGE_SIZE))
+                .thenReturn(new RdvPageResponse(List.of(rdv(1L)), "page-2"));
+        when(rdvClient.findRdvsByPatient(1L, "page-2", PatientArchiveServiceImpl.RDV_PAGE_SIZE))
+                .thenReturn(new RdvPageResponse(List.of(rdv(2L)), null));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.exportPatientArchive(1L).writeTo(out);
+
+        Map<String, String> entries = unzip(out.toByteArray());
+        assertEquals(List.of("patient.json", "dossiers.ndjson", "pieces-jointes/5/9-radio_thorax.png", "rendez-vous.ndjson"),
+                List.copyOf(entries.keySet()));
+        assertTrue(entries.get("patient.json").contains("\"nom\":\"Doe\""));
+        assertTrue(entries.get("dossiers.ndjson").contains("Suivi hypertension"));
+        assertEquals("PNG", entries.get("pieces-jointes/5/9-radio_thorax.png"));
+        assertEquals(2, entries.get("rendez-vous.ndjson").lines().count());
+    }
+
+    @Test
+    void fullPagesAreFollowedFromTheirLastKey() throws IOException {
+        when(patientLookup.findPatientById(1L)).thenReturn(Optional.of(
+                new PatientResponse(1L, "Doe", "John", LocalDate.of(1980, 1, 1), "M", "Dakar", "770000000", "john@example.com")));
+        List<Dossier> fullPage = LongStream.rangeClosed(1, PatientArchiveServiceImpl.PAGE_SIZE).mapToObj(id -> new Dossier()).toList();
+        when(repository.findPageByPatientId(eq(1L), anyLong(), any(Limit.class))).thenReturn(fullPage, List.of());
+        when(mapper.toDossierResponseList(any())).thenAnswer(invocation -> {
+            List<Dossier> dossiers = invocation.getArgument(0);
+            return LongStream.rangeClosed(1, dossiers.size()).mapToObj(id -> {
+                DossierResponse response = new DossierResponse();
+                response.setId(id);
+                return response;
+            }).toList();
+        });
+        List<PieceJointeFichier> missingFiles = LongStream.rangeClosed(1, PatientArchiveServiceImpl.PAGE_SIZE)
+                .mapToObj(id -> new PieceJointeFichier(id, 7L, "absent", "scan.pdf")).toList();
+        when(pieceJointeRepository.findFichiersByPatientId(eq(1L), anyLong(), anyLong(), any(Limit.class)))
+                .thenReturn(missingFiles, List.of());
+        when(store.path("absent")).thenReturn(root.resolve("absent"));
+        when(rdvClient.findRdvsByPatient(1L, null, PatientArchiveServiceImpl.RDV_PAGE_SIZE))
+                .thenReturn(new RdvPageResponse(List.of(), null));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.exportPatientArchive(1L).writeTo(out);
+
+        Map<String, String> entries = unzip(out.toByteArray());
+        assertEquals(PatientArchiveServiceImpl.PAGE_SIZE, entries.get("dossiers.ndjson").lines().count());
+        verify(repository).findPageByPatientId(eq(1L), eq((long) PatientArchiveServiceImpl.PAGE_SIZE), any(Limit.class));
+        verify(pieceJointeRepository).findFichiersByPatientId(eq(1L), eq(7L), eq((long) PatientArchiveServiceImpl.PAGE_SIZE), any(Limit.class));
+    }
+
+    @Test
+    void unknownPatientFailsBeforeStreaming() {
+        when(patientLookup.findPatientById(1L)).thenReturn(Optional.empty());
+        when(messageSource.getMessage(eq("patient.notfound"), any(), any(Locale.class)))
+                .thenReturn("Patient not found");
+
+        assertThrows(EntityNotFoundException.class, () -> service.exportPatientArchive(1L));
+
+        verifyNoInteractions(rdvClient, repository);
+    }
+
+    private static RdvResponse rdv(Long id) {
+        return new RdvResponse(id, LocalDateTime.of(2024, 6, 22, 9, 15), 30, "Suivi", 1L, 2L);
+    }
+
+    private static Map<String, String> unzip(byte[] archive) throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            for (ZipEntry entry; (entry = zip.getNextEntry()) != null; ) {
+                entries.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,95 @@
+package com.isi.dossier.service.impl;
+
+import com.isi.dossier.attachment.AttachmentSender;
+import com.isi.dossier.attachment.AttachmentStore;
+import com.isi.dossier.dto.PieceJointeResponse;
+import com.isi.dossier.exception.EntityNotFoundException;
+import com.isi.dossier.exception.RequestException;
+import com.isi.dossier.mapper.DossierMapper;
+import com.isi.dossier.model.PieceJointe;
+import com.isi.dossier.repository.DossierRepository;
+import com.isi.dossier.repository.PieceJointeRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.MessageSource;
+import org.springframework.http.HttpStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PieceJointeServiceImplTest {
+
+    @Mock
+    private PieceJointeRepository repository;
+
+    @Mock
+    private DossierRepository dossierRepository;
+
+    @Mock
+    private DossierMapper mapper;
+
+    @Mock
+    private MessageSource messageSource;
+
+    @Mock
+    private AttachmentStore store;
+
+    @Mock
+    private AttachmentSender sender;
+
+    @InjectMocks
+    private PieceJointeServiceImpl service;
+
+    private final InputStream contenu = new ByteArrayInputStream(new byte[]{1, 2, 3});
+
+    @Test
+    void addPieceJointeStoresContentThenMetadata() throws IOException {
+        when(dossierRepository.existsById(1L)).thenReturn(true);
+        when(store.store(eq(contenu), any())).thenAnswer(invocation -> invocation
+                .<Function<AttachmentStore.Blob, PieceJointe>>getArgument(1).apply(new AttachmentStore.Blob("abc123", 3)));
+        when(repository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(mapper.toPieceJointeResponse(any())).thenReturn(new PieceJointeResponse());
+
+        assertNotNull(service.addPieceJointe(1L, "scan.pdf", null, contenu));
+
+        verify(repository).save(argThat((PieceJointe piece) -> piece.getDossierId() == 1L && piece.getTaille() == 3
+                && "abc123".equals(piece.getSha256()) && "application/octet-stream".equals(piece.getTypeContenu())));
+    }
+
+    @Test
+    void addPieceJointeKO_DossierNotFound() {
+        when(dossierRepository.existsById(1L)).thenReturn(false);
+        when(messageSource.getMessage(eq("dossier.notfound"), any(), any(Locale.class)))
+                .thenReturn("Dossier not found");
+
+        assertThrows(EntityNotFoundException.class, () -> service.addPieceJointe(1L, "scan.pdf", "application/pdf", contenu));
+
+        verifyNoInteractions(store, repository);
+    }
+
+    @Test
+    void addPieceJointeKO_TooLarge() throws IOException {
+        when(dossierRepository.existsById(1L)).thenReturn(true);
+        when(store.store(eq(contenu), any())).thenThrow(new AttachmentStore.TooLargeException(2));
+        when(messageSource.getMessage(eq("piecejointe.too.large"), any(), any(Locale.class)))
+                .thenReturn("Too large");
+
+        RequestException exception = assertThrows(RequestException.class,
+                () -> service.addPieceJointe(1L, "scan.pdf", "application/pdf", contenu));
+
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, exception.getStatus());
+        verifyNoInteractions(repository);
+    }
+}
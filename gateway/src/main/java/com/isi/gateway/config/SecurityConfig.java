@@ -19,6 +19,8 @@ public class SecurityConfig {
                         .pathMatchers("/consul/**", "/actuator/health", "/actuator/health/**", "/swagger-ui.html", "/v2/api-docs", "/v3/api-docs",
                                 "/v3/api-docs/**", "/swagger-ui/**")
                         .permitAll()
+                        .pathMatchers("/internal/**", "/*/internal/**")
+                        .denyAll()
                         .anyExchange()
                         .authenticated()
                 )
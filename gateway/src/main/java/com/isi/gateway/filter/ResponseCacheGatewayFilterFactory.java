@@ -0,0 +1,362 @@
+package com.isi.gateway.filter;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.security.Principal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache des reponses GET d'une route, a declarer route par route :
+ * {@code filters[0]=ResponseCache=10485760, 30s} (taille maximale en octets, duree de fraicheur
+ * quand le service ne donne pas de {@code max-age}).
+ * <p>
+ * La cle contient le nom du principal authentifie : les services filtrent leurs reponses selon
+ * le role de l'appelant, une reponse ne doit donc jamais etre rejouee pour un autre utilisateur.
+ * Une entree perimee portant un ETag est revalidee par {@code If-None-Match} ; sur un 304 du
+ * service, le corps en cache est renvoye et sa fraicheur prolongee.
+ * <p>
+ * Toute ecriture (POST, PUT, PATCH, DELETE) reussie sur la route vide son cache, pour tous les
+ * utilisateurs : l'auteur relit aussitot sa modification et un If-Match repart du bon ETag. Les
+ * compteurs {@code gateway.cache.requests} et {@code gateway.cache.invalidations} et la jauge
+ * {@code gateway.cache.hit.ratio} sont publies par route.
+ */
+@Component
+public class ResponseCacheGatewayFilterFactory extends AbstractGatewayFilterFactory<ResponseCacheGatewayFilterFactory.Config> {
+
+    static final String CACHE_STATUS_HEADER = "X-Cache";
+    static final String HIT = "HIT";
+    static final String MISS = "MISS";
+    static final String REVALIDATED = "REVALIDATED";
+
+    private static final String ANONYMOUS = "anonymous";
+    private static final Set<HttpMethod> SAFE_METHODS = Set.of(HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS, HttpMethod.TRACE);
+    private static final Set<String> UNCACHED_HEADERS = Set.of(
+            HttpHeaders.CONNECTION.toLowerCase(Locale.ROOT),
+            HttpHeaders.CONTENT_LENGTH.toLowerCase(Locale.ROOT),
+            HttpHeaders.TRANSFER_ENCODING.toLowerCase(Locale.ROOT),
+            CACHE_STATUS_HEADER.toLowerCase(Locale.ROOT));
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, RouteCache> caches = new ConcurrentHashMap<>();
+
+    public ResponseCacheGatewayFilterFactory(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("maxBytes", "ttl");
+    }
+
+    /**
+     * Le cache d'une route survit au rafraichissement des routes tant que sa taille ne change pas.
+     */
+    @Override
+    public GatewayFilter apply(Config config) {
+        String routeId = config.getRouteId() == null ? "default" : config.getRouteId();
+        RouteCache cache = caches.compute(routeId, (id, previous) ->
+                previous != null && previous.store.maxBytes() == config.getMaxBytes() ? previous : new RouteCache(config.getMaxBytes()));
+        Gauge.builder("gateway.cache.hit.ratio", caches, routes -> routes.get(routeId).hitRatio())
+                .description("Part des GET servis depuis le cache de la gateway")
+                .tag("route", routeId)
+                .register(meterRegistry);
+        Gauge.builder("gateway.cache.size", caches, routes -> routes.get(routeId).store.bytes())
+                .baseUnit("bytes")
+                .tag("route", routeId)
+                .register(meterRegistry);
+        return (exchange, chain) -> filter(exchange, chain, routeId, cache, config.getTtl());
+    }
+
+    private Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain, String routeId, RouteCache cache, Duration ttl) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!SAFE_METHODS.contains(request.getMethod())) {
+            return chain.filter(exchange).then(Mono.fromRunnable(() -> invalidate(exchange, routeId, cache)));
+        }
+        Set<String> requestDirectives = directives(request.getHeaders());
+        if (request.getMethod() != HttpMethod.GET || request.getHeaders().containsKey(HttpHeaders.RANGE)
+                || requestDirectives.contains("no-store")) {
+            return chain.filter(exchange);
+        }
+        return exchange.getPrincipal()
+                .map(Principal::getName)
+                .defaultIfEmpty(ANONYMOUS)
+                .flatMap(principal -> {
+                    String key = key(principal, request);
+                    long generation = cache.store.generation();
+                    ResponseCacheStore.Entry entry = cache.store.get(key);
+                    if (entry != null && !requestDirectives.contains("no-cache") && entry.isFresh(Instant.now())) {
+                        record(routeId, cache, HIT);
+                        return replay(exchange.getResponse(), request, entry, HIT);
+                    }
+                    boolean revalidating = entry != null && entry.etag() != null
+                            && !request.getHeaders().containsKey(HttpHeaders.IF_NONE_MATCH);
+                    ServerHttpRequest forwarded = revalidating
+                            ? request.mutate().headers(headers -> headers.setIfNoneMatch(entry.etag())).build()
+                            : request;
+                    CachingResponse response = new CachingResponse(exchange.getResponse(), request, routeId, cache, key,
+                            generation, revalidating ? entry : null, ttl);
+                    return chain.filter(exchange.mutate().request(forwarded).response(response).build());
+                });
+    }
+
+    /**
+     * Une ecriture en echec n'a rien modifie : le cache n'est vide qu'apres une reponse sans erreur.
+     */
+    private void invalidate(ServerWebExchange exchange, String routeId, RouteCache cache) {
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        if (status == null || !status.isError()) {
+            cache.store.invalidateAll();
+            meterRegistry.counter("gateway.cache.invalidations", "route", routeId).increment();
+        }
+    }
+
+    private void record(String routeId, RouteCache cache, String result) {
+        cache.lookups.increment();
+        if (!MISS.equals(result)) {
+            cache.hits.increment();
+        }
+        meterRegistry.counter("gateway.cache.requests", "route", routeId, "result", result.toLowerCase(Locale.ROOT)).increment();
+    }
+
+    /**
+     * Renvoie une entree du cache, ou un 304 si le client possede deja cette version.
+     */
+    private static Mono<Void> replay(ServerHttpResponse response, ServerHttpRequest request, ResponseCacheStore.Entry entry, String result) {
+        HttpHeaders headers = response.getHeaders();
+        headers.putAll(entry.headers());
+        headers.set(CACHE_STATUS_HEADER, result);
+        if (entry.etag() != null && request.getHeaders().getIfNoneMatch().contains(entry.etag())) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            return response.setComplete();
+        }
+        response.setStatusCode(HttpStatusCode.valueOf(entry.status()));
+        headers.setContentLength(entry.body().length);
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(entry.body())));
+    }
+
+    private static String key(String principal, ServerHttpRequest request) {
+        String query = request.getURI().getRawQuery();
+        return principal + ' ' + request.getURI().getRawPath() + (query == null ? "" : '?' + query)
+                + ' ' + String.join(",", request.getHeaders().getOrEmpty(HttpHeaders.ACCEPT));
+    }
+
+    private static Set<String> directives(HttpHeaders headers) {
+        Set<String> directives = new HashSet<>();
+        for (String value : headers.getOrEmpty(HttpHeaders.CACHE_CONTROL)) {
+            for (String directive : value.split(",")) {
+                directives.add(directive.strip().toLowerCase(Locale.ROOT));
+            }
+        }
+        return directives;
+    }
+
+    /**
+     * Duree de fraicheur annoncee par le service ({@code s-maxage}, puis {@code max-age}), a defaut
+     * celle de la route ; {@code no-cache} impose de revalider a chaque lecture.
+     */
+    static Duration freshness(HttpHeaders headers, Duration ttl) {
+        Set<String> directives = directives(headers);
+        if (directives.contains("no-cache")) {
+            return Duration.ZERO;
+        }
+        Long maxAge = null;
+        for (String directive : directives) {
+            int equals = directive.indexOf('=');
+            if (equals < 0) {
+                continue;
+            }
+            String name = directive.substring(0, equals).strip();
+            if (name.equals("s-maxage") || (name.equals("max-age") && maxAge == null)) {
+                try {
+                    maxAge = Long.parseLong(directive.substring(equals + 1).strip().replace("\"", ""));
+                } catch (NumberFormatException e) {
+                    return Duration.ZERO;
+                }
+                if (name.equals("s-maxage")) {
+                    break;
+                }
+            }
+        }
+        return maxAge == null ? ttl : Duration.ofSeconds(maxAge);
+    }
+
+    private static boolean isStorable(HttpStatusCode status, HttpHeaders headers) {
+        Set<String> directives = directives(headers);
+        return HttpStatus.OK.isSameCodeAs(status)
+                && !directives.contains("no-store")
+                && !headers.containsKey(HttpHeaders.SET_COOKIE)
+                && !headers.getOrEmpty(HttpHeaders.VARY).contains("*");
+    }
+
+    /**
+     * Copie le corps au fil de son envoi au client et le range dans le cache une fois complet ;
+     * sur un 304 obtenu en revalidant, remplace la reponse vide par le corps deja en cache.
+     */
+    private class CachingResponse extends ServerHttpResponseDecorator {
+
+        private final ServerHttpRequest request;
+        private final String routeId;
+        private final RouteCache cache;
+        private final String key;
+        private final long generation;
+        private final ResponseCacheStore.Entry stale;
+        private final Duration ttl;
+
+        CachingResponse(ServerHttpResponse delegate, ServerHttpRequest request, String routeId, RouteCache cache, String key,
+                        long generation, ResponseCacheStore.Entry stale, Duration ttl) {
+            super(delegate);
+            this.request = request;
+            this.routeId = routeId;
+            this.cache = cache;
+            this.key = key;
+            this.generation = generation;
+            this.stale = stale;
+            this.ttl = ttl;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            HttpStatusCode status = getStatusCode();
+            HttpHeaders headers = getHeaders();
+            if (stale != null && status != null && HttpStatus.NOT_MODIFIED.isSameCodeAs(status)) {
+                ResponseCacheStore.Entry refreshed = stale.withExpiresAt(Instant.now().plus(freshness(headers, ttl)));
+                cache.store.put(key, refreshed, generation);
+                record(routeId, cache, REVALIDATED);
+                return Flux.from(body)
+                        .doOnNext(DataBufferUtils::release)
+                        .then(Mono.defer(() -> replay(getDelegate(), request, refreshed, REVALIDATED)));
+            }
+            record(routeId, cache, MISS);
+            headers.set(CACHE_STATUS_HEADER, MISS);
+            String etag = headers.getETag();
+            Duration freshness = freshness(headers, ttl);
+            if (status == null || !isStorable(status, headers) || (freshness.isZero() && etag == null)) {
+                if (status == null || !HttpStatus.NOT_MODIFIED.isSameCodeAs(status)) {
+                    cache.store.remove(key);
+                }
+                return super.writeWith(body);
+            }
+            Map<String, List<String>> cached = new LinkedHashMap<>();
+            headers.forEach((name, values) -> {
+                String lower = name.toLowerCase(Locale.ROOT);
+                if (!UNCACHED_HEADERS.contains(lower) && !lower.startsWith("access-control-")) {
+                    cached.put(name, new ArrayList<>(values));
+                }
+            });
+            Capture capture = new Capture();
+            Flux<? extends DataBuffer> copied = Flux.from(body)
+                    .doOnNext(capture::append)
+                    .doOnComplete(() -> {
+                        if (capture.content != null) {
+                            cache.store.put(key, new ResponseCacheStore.Entry(status.value(), cached, capture.content.toByteArray(),
+                                    etag, Instant.now().plus(freshness)), generation);
+                        }
+                    });
+            return super.writeWith(copied);
+        }
+
+        /**
+         * Corps recopie jusqu'a la taille maximale d'une entree ; au-dela, la copie est abandonnee.
+         */
+        private class Capture {
+
+            private ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+            void append(DataBuffer buffer) {
+                if (content == null) {
+                    return;
+                }
+                int length = buffer.readableByteCount();
+                if (!cache.store.accepts((long) content.size() + length)) {
+                    content = null;
+                    return;
+                }
+                ByteBuffer bytes = ByteBuffer.allocate(length);
+                buffer.toByteBuffer(buffer.readPosition(), bytes, 0, length);
+                content.write(bytes.array(), 0, length);
+            }
+        }
+    }
+
+    private static class RouteCache {
+
+        private final ResponseCacheStore store;
+        private final LongAdder lookups = new LongAdder();
+        private final LongAdder hits = new LongAdder();
+
+        RouteCache(long maxBytes) {
+            this.store = new ResponseCacheStore(maxBytes);
+        }
+
+        double hitRatio() {
+            long total = lookups.sum();
+            return total == 0 ? 0 : (double) hits.sum() / total;
+        }
+    }
+
+    public static class Config implements HasRouteId {
+
+        private long maxBytes = 10L * 1024 * 1024;
+        private Duration ttl = Duration.ofSeconds(30);
+        private String routeId;
+
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+
+        public void setMaxBytes(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        @Override
+        public String getRouteId() {
+            return routeId;
+        }
+
+        @Override
+        public void setRouteId(String routeId) {
+            this.routeId = routeId;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.isi.gateway.filter;
+
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reponses mises en cache pour une route, evincees de la moins recemment lue a la plus recente
+ * des que leur poids cumule (corps, en-tetes et cle) depasse la taille maximale. Une reponse
+ * pesant plus du quart du cache n'y entre pas, pour ne pas vider le cache a elle seule.
+ * <p>
+ * Chaque invalidation avance une generation : une reponse lue avant l'invalidation mais
+ * terminee apres ne doit pas etre rangee, sans quoi elle reintroduirait l'etat d'avant.
+ */
+public class ResponseCacheStore {
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long generation;
+
+    /**
+     * Reponse en cache : fraiche jusqu'a {@code expiresAt}, puis revalidable par son ETag s'il y en a un.
+     */
+    public record Entry(int status, Map<String, List<String>> headers, byte[] body, String etag, Instant expiresAt) {
+
+        public boolean isFresh(Instant now) {
+            return now.isBefore(expiresAt);
+        }
+
+        public Entry withExpiresAt(Instant expiresAt) {
+            return new Entry(status, headers, body, etag, expiresAt);
+        }
+    }
+
+    public ResponseCacheStore(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public long maxBytes() {
+        return maxBytes;
+    }
+
+    public long maxEntryBytes() {
+        return maxBytes / 4;
+    }
+
+    /**
+     * Permet d'abandonner la copie d'un corps des qu'il ne pourra plus etre conserve.
+     */
+    public boolean accepts(long bodySize) {
+        return bodySize <= maxEntryBytes();
+    }
+
+    public synchronized long generation() {
+        return generation;
+    }
+
+    public synchronized Entry get(String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Remplace l'entree de la cle puis evince les plus anciennes ; une entree trop lourde retire
+     * simplement l'ancienne valeur.
+     */
+    public synchronized boolean put(String key, Entry entry) {
+        return put(key, entry, generation);
+    }
+
+    /**
+     * Comme {@link #put(String, Entry)}, sauf si le cache a ete invalide depuis {@code generation},
+     * lue au debut de la requete.
+     */
+    public synchronized boolean put(String key, Entry entry, long generation) {
+        if (generation != this.generation) {
+            return false;
+        }
+        long weight = weight(key, entry);
+        if (weight > maxEntryBytes()) {
+            remove(key);
+            return false;
+        }
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            bytes -= weight(key, previous);
+        }
+        bytes += weight;
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Entry> evicted = eldest.next();
+            bytes -= weight(evicted.getKey(), evicted.getValue());
+            eldest.remove();
+        }
+        return true;
+    }
+
+    public synchronized void remove(String key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            bytes -= weight(key, removed);
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+        bytes = 0;
+        generation++;
+    }
+
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static long weight(String key, Entry entry) {
+        long weight = key.length() + entry.body().length;
+        for (Map.Entry<String, List<String>> header : entry.headers().entrySet()) {
+            weight += header.getKey().length();
+            for (String value : header.getValue()) {
+                weight += value.length();
+            }
+        }
+        return weight;
+    }
+}
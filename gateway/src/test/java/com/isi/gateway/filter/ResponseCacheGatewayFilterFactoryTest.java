@@ -0,0 +1,166 @@
+package com.isi.gateway.filter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseCacheGatewayFilterFactoryTest {
+
+    private static final String ROUTE = "patient-service";
+    private static final String PATIENTS = "/api/v1/patients";
+
+    private MeterRegistry meterRegistry;
+    private GatewayFilter filter;
+    private final List<ServerHttpRequest> forwarded = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ResponseCacheGatewayFilterFactory.Config config = new ResponseCacheGatewayFilterFactory.Config();
+        config.setRouteId(ROUTE);
+        config.setMaxBytes(10_000);
+        config.setTtl(Duration.ofSeconds(30));
+        filter = new ResponseCacheGatewayFilterFactory(meterRegistry).apply(config);
+    }
+
+    @Test
+    void secondReadIsServedFromTheCache() {
+        MockServerHttpResponse first = get("alice", ok("[1]"));
+        MockServerHttpResponse second = get("alice", ok("[2]"));
+
+        assertEquals(1, forwarded.size());
+        assertEquals("[1]", second.getBodyAsString().block());
+        assertEquals(ResponseCacheGatewayFilterFactory.MISS, first.getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_STATUS_HEADER));
+        assertEquals(ResponseCacheGatewayFilterFactory.HIT, second.getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_STATUS_HEADER));
+        assertEquals(1, requests("hit"));
+        assertEquals(1, requests("miss"));
+        assertEquals(0.5, meterRegistry.get("gateway.cache.hit.ratio").tag("route", ROUTE).gauge().value());
+    }
+
+    @Test
+    void responseIsNeverReplayedForAnotherPrincipal() {
+        get("medecin", ok("[dossiers du medecin]"));
+
+        MockServerHttpResponse response = get("patient", ok("[]"));
+
+        assertEquals(2, forwarded.size());
+        assertEquals("[]", response.getBodyAsString().block());
+    }
+
+    @Test
+    void staleEntryIsRevalidatedAndA304BecomesTheCachedBody() {
+        get("alice", chain(HttpStatus.OK, "\"v1\"", "[1]", "no-cache"));
+
+        MockServerHttpResponse response = get("alice", chain(HttpStatus.NOT_MODIFIED, "\"v1\"", null, "no-cache"));
+
+        assertEquals(2, forwarded.size());
+        assertEquals(List.of("\"v1\""), forwarded.get(1).getHeaders().getIfNoneMatch());
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("[1]", response.getBodyAsString().block());
+        assertEquals(ResponseCacheGatewayFilterFactory.REVALIDATED,
+                response.getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_STATUS_HEADER));
+        assertEquals(1, requests("revalidated"));
+    }
+
+    @Test
+    void successfulWriteEvictsTheRouteForEveryPrincipal() {
+        get("alice", ok("[1]"));
+        get("bob", ok("[1]"));
+
+        send(MockServerHttpRequest.put(PATIENTS + "/1"), "alice", status(HttpStatus.OK));
+        MockServerHttpResponse response = get("bob", ok("[2]"));
+
+        assertEquals("[2]", response.getBodyAsString().block());
+        assertEquals(4, forwarded.size());
+        assertEquals(1, meterRegistry.get("gateway.cache.invalidations").tag("route", ROUTE).counter().count());
+    }
+
+    @Test
+    void failedWriteKeepsTheCache() {
+        get("alice", ok("[1]"));
+
+        send(MockServerHttpRequest.post(PATIENTS), "alice", status(HttpStatus.BAD_REQUEST));
+        MockServerHttpResponse response = get("alice", ok("[2]"));
+
+        assertEquals("[1]", response.getBodyAsString().block());
+        assertTrue(meterRegistry.find("gateway.cache.invalidations").counters().isEmpty());
+    }
+
+    @Test
+    void readAnsweredBeforeAWriteIsNotStoredAfterIt() {
+        get("alice", exchange -> {
+            send(MockServerHttpRequest.delete(PATIENTS + "/1"), "bob", status(HttpStatus.NO_CONTENT));
+            return ok("[avant]").filter(exchange);
+        });
+
+        MockServerHttpResponse response = get("alice", ok("[apres]"));
+
+        assertEquals("[apres]", response.getBodyAsString().block());
+    }
+
+    // Méthodes utilitaires
+    private MockServerHttpResponse get(String principal, GatewayFilterChain chain) {
+        return send(MockServerHttpRequest.get(PATIENTS), principal, chain);
+    }
+
+    private MockServerHttpResponse send(MockServerHttpRequest.BaseBuilder<?> request, String principal, GatewayFilterChain chain) {
+        ServerWebExchange exchange = MockServerWebExchange.from(request.build()).mutate()
+                .principal(Mono.just((Principal) () -> principal))
+                .build();
+        filter.filter(exchange, chain).block();
+        return (MockServerHttpResponse) exchange.getResponse();
+    }
+
+    private long requests(String result) {
+        return (long) meterRegistry.get("gateway.cache.requests").tags("route", ROUTE, "result", result).counter().count();
+    }
+
+    private GatewayFilterChain ok(String body) {
+        return chain(HttpStatus.OK, null, body, null);
+    }
+
+    private GatewayFilterChain status(HttpStatus status) {
+        return chain(status, null, null, null);
+    }
+
+    /**
+     * Service simule : ecrit sa reponse comme NettyWriteResponseFilter, par writeWith meme sans corps.
+     */
+    private GatewayFilterChain chain(HttpStatus status, String etag, String body, String cacheControl) {
+        return exchange -> {
+            forwarded.add(exchange.getRequest());
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(status);
+            if (etag != null) {
+                response.getHeaders().setETag(etag);
+            }
+            if (cacheControl != null) {
+                response.getHeaders().set(HttpHeaders.CACHE_CONTROL, cacheControl);
+            }
+            return response.writeWith(body == null
+                    ? Flux.empty()
+                    : Flux.just(response.bufferFactory().wrap(body.getBytes(StandardCharsets.UTF_8))));
+        };
+    }
+}
@@ -0,0 +1,98 @@
+package com.isi.gateway.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseCacheStoreTest {
+
+    private static final Instant EXPIRES_AT = Instant.parse("2025-01-01T00:00:00Z");
+
+    @Test
+    void leastRecentlyReadEntryIsEvictedFirst() {
+        ResponseCacheStore store = new ResponseCacheStore(400);
+        store.put("a", entry(90));
+        store.put("b", entry(90));
+        store.put("c", entry(90));
+        store.get("a");
+
+        store.put("d", entry(90));
+        store.put("e", entry(90));
+
+        assertNotNull(store.get("a"));
+        assertNull(store.get("b"));
+        assertTrue(store.bytes() <= 400);
+    }
+
+    @Test
+    void replacingAnEntryReplacesItsWeight() {
+        ResponseCacheStore store = new ResponseCacheStore(400);
+        store.put("a", entry(90));
+        store.put("a", entry(10));
+
+        assertEquals(1, store.size());
+        assertEquals(1 + 10, store.bytes());
+    }
+
+    @Test
+    void entryHeavierThanAQuarterIsRejectedAndDropsTheOldValue() {
+        ResponseCacheStore store = new ResponseCacheStore(400);
+        store.put("a", entry(10));
+
+        assertFalse(store.put("a", entry(100)));
+
+        assertNull(store.get("a"));
+        assertEquals(0, store.bytes());
+        assertFalse(store.accepts(101));
+    }
+
+    @Test
+    void headersCountTowardsTheWeight() {
+        ResponseCacheStore store = new ResponseCacheStore(400);
+        store.put("a", new ResponseCacheStore.Entry(200, Map.of("ETag", List.of("\"v1\"")), new byte[10], "\"v1\"", EXPIRES_AT));
+
+        assertEquals(1 + 10 + 4 + 4, store.bytes());
+    }
+
+    @Test
+    void invalidateAllEmptiesTheStore() {
+        ResponseCacheStore store = new ResponseCacheStore(400);
+        store.put("a", entry(10));
+        store.put("b", entry(10));
+
+        store.invalidateAll();
+
+        assertNull(store.get("a"));
+        assertEquals(0, store.size());
+        assertEquals(0, store.bytes());
+    }
+
+    @Test
+    void responseReadBeforeAnInvalidationIsNotStored() {
+        ResponseCacheStore store = new ResponseCacheStore(400);
+        long generation = store.generation();
+
+        store.invalidateAll();
+
+        assertFalse(store.put("a", entry(10), generation));
+        assertNull(store.get("a"));
+        assertTrue(store.put("a", entry(10), store.generation()));
+    }
+
+    @Test
+    void freshnessEndsAtExpiry() {
+        ResponseCacheStore.Entry entry = entry(1);
+
+        assertTrue(entry.isFresh(EXPIRES_AT.minusSeconds(1)));
+        assertFalse(entry.isFresh(EXPIRES_AT));
+        assertTrue(entry.withExpiresAt(EXPIRES_AT.plusSeconds(30)).isFresh(EXPIRES_AT));
+    }
+
+    private static ResponseCacheStore.Entry entry(int size) {
+        return new ResponseCacheStore.Entry(200, Map.of(), new byte[size], null, EXPIRES_AT);
+    }
+}
@@ -0,0 +1,30 @@
+package com.isi.medecin.controller;
+
+/**
+ * ETag fort tire de la colonne version : {@code "3"} pour la version 3.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String of(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Version attendue par un en-tete If-Match, ou null s'il est absent ou vaut "*".
+     *
+     * @throws NumberFormatException si l'en-tete n'est pas un ETag fort produit par {@link #of(Long)}
+     */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String etag = ifMatch.trim();
+        if (etag.length() < 2 || !etag.startsWith("\"") || !etag.endsWith("\"")) {
+            throw new NumberFormatException(etag);
+        }
+        return Long.valueOf(etag.substring(1, etag.length() - 1));
+    }
+}
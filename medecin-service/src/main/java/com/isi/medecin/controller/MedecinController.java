@@ -1,6 +1,10 @@
 package com.isi.medecin.controller;
 
 
+import com.isi.medecin.dto.ImportReportResponse;
+import com.isi.medecin.dto.MedecinBatchResponse;
+import com.isi.medecin.dto.MedecinDirectoryResponse;
+import com.isi.medecin.dto.MedecinBatchRequest;
 import com.isi.medecin.dto.MedecinRequest;
 import com.isi.medecin.dto.MedecinResponse;
 import com.isi.medecin.service.MedecinService;
@@ -8,11 +12,18 @@ import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
 
 @AllArgsConstructor
 @Getter
@@ -31,9 +42,32 @@ public class MedecinController {
         return ResponseEntity.status(HttpStatus.CREATED).body(service.newMedecin(request));
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<List<MedecinResponse>> newMedecins(@Valid @RequestBody MedecinBatchRequest request) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(service.newMedecins(request.getMedecins()));
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportReportResponse> importMedecins(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "separator", defaultValue = ",") char separator) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            return ResponseEntity.status(HttpStatus.OK).body(service.importMedecins(in, separator));
+        }
+    }
+
+    /**
+     * Renvoie la version en ETag ; Spring repond 304 sans corps si If-None-Match la contient deja.
+     */
     @GetMapping("/{id}")
     public ResponseEntity<MedecinResponse> getMedecinById(@PathVariable("id") Long id){
-        return ResponseEntity.status(HttpStatus.OK).body(service.getMedecinById(id));
+        MedecinResponse medecin = service.getMedecinById(id);
+        return ResponseEntity.status(HttpStatus.OK).eTag(ETags.of(medecin.getVersion())).body(medecin);
+    }
+
+    @GetMapping(params = "ids")
+    public ResponseEntity<MedecinBatchResponse> getMedecinsByIds(@RequestParam("ids") List<Long> ids) {
+        return ResponseEntity.status(HttpStatus.OK).body(service.getMedecinsByIds(ids));
     }
 
     @GetMapping("/all")
@@ -41,11 +75,28 @@ public class MedecinController {
         return ResponseEntity.status(HttpStatus.OK).body(service.getAllMedecin());
     }
 
+    @GetMapping(value = "/all", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getAllMedecin(@RequestParam("fields") List<String> fields) {
+        return ResponseEntity.status(HttpStatus.OK).body(service.getAllMedecin(fields));
+    }
+
+    /**
+     * Ex. {@code /directory?specialite=cardiologie&nom=d} : cardiologues dont le nom commence par D.
+     */
+    @GetMapping("/directory")
+    public ResponseEntity<MedecinDirectoryResponse> searchDirectory(
+            @RequestParam(value = "specialite", required = false) String specialite,
+            @RequestParam(value = "nom", required = false) String nom,
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        return ResponseEntity.status(HttpStatus.OK).body(service.searchDirectory(specialite, nom, limit));
+    }
+
     @PutMapping("/update")
     public ResponseEntity<MedecinResponse> updateMedecin(
-            @Valid @RequestBody MedecinRequest request) {
-        MedecinResponse updateMedecin = service.updateMedecin(request);
-        return ResponseEntity.ok(updateMedecin);
+            @Valid @RequestBody MedecinRequest request,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        MedecinResponse updateMedecin = service.updateMedecin(request, ETags.expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.of(updateMedecin.getVersion())).body(updateMedecin);
     }
 
     @DeleteMapping("/delete/{id}")
@@ -53,4 +104,10 @@ public class MedecinController {
         service.deleteMedecinById(id);
         return ResponseEntity.noContent().build();
     }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportMedecins() {
+        StreamingResponseBody body = service::exportMedecins;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
 }
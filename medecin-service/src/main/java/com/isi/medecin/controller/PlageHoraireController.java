@@ -0,0 +1,37 @@
+package com.isi.medecin.controller;
+
+import com.isi.medecin.dto.HorairesRequest;
+import com.isi.medecin.dto.PlageHoraireResponse;
+import com.isi.medecin.service.PlageHoraireService;
+import jakarta.validation.Valid;
+import lombok.AllArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@AllArgsConstructor
+@RestController
+@RequestMapping("/api/v1/medecins")
+public class PlageHoraireController {
+
+    private final PlageHoraireService service;
+
+    @GetMapping("/{id}/horaires")
+    public ResponseEntity<List<PlageHoraireResponse>> getHoraires(@PathVariable("id") Long id) {
+        return ResponseEntity.status(HttpStatus.OK).body(service.getHoraires(id));
+    }
+
+    @PutMapping("/{id}/horaires")
+    public ResponseEntity<List<PlageHoraireResponse>> replaceHoraires(
+            @PathVariable("id") Long id,
+            @Valid @RequestBody HorairesRequest request) {
+        return ResponseEntity.ok(service.replaceHoraires(id, request.getPlages()));
+    }
+
+    @GetMapping(value = "/horaires", params = "specialite")
+    public ResponseEntity<List<PlageHoraireResponse>> getHorairesBySpecialite(@RequestParam("specialite") String specialite) {
+        return ResponseEntity.status(HttpStatus.OK).body(service.getHorairesBySpecialite(specialite));
+    }
+}
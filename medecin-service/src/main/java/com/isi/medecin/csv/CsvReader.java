@@ -0,0 +1,118 @@
+package com.isi.medecin.csv;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lecteur CSV (RFC 4180) enregistrement par enregistrement : seul l'enregistrement courant
+ * est en memoire, quelle que soit la taille du fichier. Les champs entre guillemets peuvent
+ * contenir le separateur, des retours a la ligne et des guillemets doubles ("").
+ */
+public class CsvReader implements Closeable {
+
+    private static final char QUOTE = '"';
+    private static final char BOM = '\uFEFF';
+    // Bornent la memoire d'un enregistrement : guillemet ouvert par erreur qui avale la suite
+    // du fichier, fichier binaire sans fin de ligne, ou ligne faite de separateurs
+    static final int MAX_FIELD_LENGTH = 64 * 1024;
+    static final int MAX_FIELDS = 256;
+
+    private final BufferedReader reader;
+    private final char separator;
+    private long line = 1;
+    private long recordLine;
+    private boolean first = true;
+
+    public CsvReader(Reader reader, char separator) {
+        this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        this.separator = separator;
+    }
+
+    /**
+     * Champs de l'enregistrement suivant, ou null a la fin du fichier.
+     *
+     * @throws CsvException si un guillemet n'est jamais referme, si un champ est demesure ou
+     *                      si l'enregistrement compte plus de {@value #MAX_FIELDS} champs
+     */
+    public List<String> next() throws IOException {
+        int c = reader.read();
+        if (first && c == BOM) {
+            c = reader.read();
+        }
+        first = false;
+        if (c == -1) {
+            return null;
+        }
+        recordLine = line;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new CsvException(recordLine, "guillemet non referme");
+                }
+                if (c == QUOTE) {
+                    reader.mark(1);
+                    if (reader.read() == QUOTE) {
+                        append(field, QUOTE);
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    append(field, (char) c);
+                }
+            } else if (c == -1 || c == '\n' || c == '\r') {
+                fields.add(field.toString());
+                if (c == '\r') {
+                    reader.mark(1);
+                    if (reader.read() != '\n') {
+                        reader.reset();
+                    }
+                }
+                if (c != -1) {
+                    line++;
+                }
+                return fields;
+            } else if (c == separator) {
+                fields.add(field.toString());
+                field.setLength(0);
+                if (fields.size() == MAX_FIELDS) {
+                    throw new CsvException(recordLine, "plus de " + MAX_FIELDS + " champs");
+                }
+            } else if (c == QUOTE && field.isEmpty()) {
+                quoted = true;
+            } else {
+                append(field, (char) c);
+            }
+            c = reader.read();
+        }
+    }
+
+    private void append(StringBuilder field, char c) {
+        if (field.length() == MAX_FIELD_LENGTH) {
+            throw new CsvException(recordLine, "champ de plus de " + MAX_FIELD_LENGTH + " caracteres");
+        }
+        field.append(c);
+    }
+
+    /**
+     * Numero de la ligne du fichier ou commence le dernier enregistrement lu (a partir de 1).
+     */
+    public long recordLine() {
+        return recordLine;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
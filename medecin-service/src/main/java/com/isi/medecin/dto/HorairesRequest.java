@@ -0,0 +1,20 @@
+package com.isi.medecin.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class HorairesRequest {
+
+    @NotNull(message = "Les plages sont obligatoires")
+    private List<@Valid PlageHoraireRequest> plages;
+}
@@ -0,0 +1,16 @@
+package com.isi.medecin.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class ImportErrorResponse {
+
+    private long line;
+    private String message;
+}
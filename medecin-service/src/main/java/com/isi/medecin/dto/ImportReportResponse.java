@@ -0,0 +1,26 @@
+package com.isi.medecin.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class ImportReportResponse {
+
+    private long rows;
+    private long imported;
+    private long rejected;
+    // Limitee aux premieres erreurs ; rejected donne le total
+    private List<ImportErrorResponse> errors = new ArrayList<>();
+    // Un enregistrement illisible arrete la lecture : aborted signale que la fin du fichier
+    // n'a pas ete importee, abortError donne la ligne et le motif
+    private boolean aborted;
+    private ImportErrorResponse abortError;
+}
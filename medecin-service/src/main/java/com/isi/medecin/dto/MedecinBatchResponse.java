@@ -0,0 +1,19 @@
+package com.isi.medecin.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.Set;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class MedecinBatchResponse {
+
+    private List<MedecinResponse> medecins;
+    private Set<Long> missingIds;
+}
@@ -0,0 +1,21 @@
+package com.isi.medecin.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class MedecinDirectoryResponse {
+
+    private List<MedecinResponse> medecins;
+    // Nombre total de medecins retenus, au-dela de la limite
+    private int total;
+    // Decompte par specialite pour le prefixe de nom, quelle que soit la specialite choisie
+    private List<SpecialiteFacetResponse> facets;
+}
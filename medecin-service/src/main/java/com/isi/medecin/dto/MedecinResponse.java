@@ -1,6 +1,7 @@
 package com.isi.medecin.dto;
 
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -19,4 +20,7 @@ public class MedecinResponse {
     private String telephone;
     private String email;
     private String adresseCabinet;
+    // Transmise dans l'en-tete ETag, pas dans le corps
+    @JsonIgnore
+    private Long version;
 }
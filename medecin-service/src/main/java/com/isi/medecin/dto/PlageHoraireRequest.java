@@ -0,0 +1,24 @@
+package com.isi.medecin.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class PlageHoraireRequest {
+
+    @NotNull(message = "Le jour est obligatoire")
+    private DayOfWeek jour;
+    @NotNull(message = "L'heure de debut est obligatoire")
+    private LocalTime heureDebut;
+    @NotNull(message = "L'heure de fin est obligatoire")
+    private LocalTime heureFin;
+}
@@ -0,0 +1,22 @@
+package com.isi.medecin.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class PlageHoraireResponse {
+
+    private Long id;
+    private Long medecinId;
+    private DayOfWeek jour;
+    private LocalTime heureDebut;
+    private LocalTime heureFin;
+}
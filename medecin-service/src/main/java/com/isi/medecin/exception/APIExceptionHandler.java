@@ -1,5 +1,6 @@
 package com.isi.medecin.exception;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -48,7 +49,7 @@ public class APIExceptionHandler {
     @ExceptionHandler(value = {EntityExistsException.class})
     public ResponseEntity<APIException> handleEntityExistException(EntityExistsException e) {
         APIException exception = new APIException(e.getMessage(), HttpStatus.CONFLICT, LocalDateTime.now());
-        return new ResponseEntity<>(exception, BAD_REQUEST);
+        return new ResponseEntity<>(exception, HttpStatus.CONFLICT);
     }
 
     @ExceptionHandler(value = {InvalidDateException.class})
@@ -57,6 +58,12 @@ public class APIExceptionHandler {
         return new ResponseEntity<>(exception, BAD_REQUEST);
     }
 
+    @ExceptionHandler(value = {OptimisticLockingFailureException.class})
+    public ResponseEntity<APIException> handleOptimisticLockingFailureException(OptimisticLockingFailureException e) {
+        APIException exception = new APIException(HttpStatus.PRECONDITION_FAILED.getReasonPhrase(), HttpStatus.PRECONDITION_FAILED, LocalDateTime.now());
+        return new ResponseEntity<>(exception, HttpStatus.PRECONDITION_FAILED);
+    }
+
     @ExceptionHandler(value = {NumberFormatException.class})
     public ResponseEntity<APIException> handleNumberFormatException(NumberFormatException e) {
         APIException exception = new APIException(BAD_REQUEST.getReasonPhrase(), BAD_REQUEST, LocalDateTime.now());
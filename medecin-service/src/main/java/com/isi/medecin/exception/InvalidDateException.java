@@ -9,6 +9,6 @@ import lombok.Setter;
 @NoArgsConstructor
 @Getter
 @Setter
-public class InvalidDateException extends RuntimeException {
+public class InvalidDateException extends StacklessException {
     private String message;
 }
@@ -4,12 +4,16 @@ import com.isi.medecin.dto.MedecinRequest;
 import com.isi.medecin.dto.MedecinResponse;
 import com.isi.medecin.model.Medecin;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
 import java.util.List;
 
 @Mapper
 public interface MedecinMapper {
 
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "emailNormalise", ignore = true)
+    @Mapping(target = "telephoneNormalise", ignore = true)
     Medecin toMedecin (MedecinRequest request);
     MedecinResponse toMedecinResponse(Medecin medecin);
     List<MedecinResponse> toMedecinResponseList(List<Medecin> medecins);
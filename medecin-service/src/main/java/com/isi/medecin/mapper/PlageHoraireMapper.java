@@ -0,0 +1,19 @@
+package com.isi.medecin.mapper;
+
+import com.isi.medecin.dto.PlageHoraireRequest;
+import com.isi.medecin.dto.PlageHoraireResponse;
+import com.isi.medecin.model.PlageHoraire;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import java.util.List;
+
+@Mapper
+public interface PlageHoraireMapper {
+
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "medecinId", ignore = true)
+    PlageHoraire toPlageHoraire(PlageHoraireRequest request);
+    PlageHoraireResponse toPlageHoraireResponse(PlageHoraire plageHoraire);
+    List<PlageHoraireResponse> toPlageHoraireResponseList(List<PlageHoraire> plagesHoraires);
+}
@@ -3,23 +3,61 @@ package com.isi.medecin.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import java.util.Locale;
 
 @Entity
+// Relu par id (Feign) a chaque creation ou modification de rdv : garde en cache de second niveau
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Medecin.CACHE_REGION)
 @AllArgsConstructor
 @NoArgsConstructor
 @Getter
 @Setter
 @Builder
-@Table(name = "medecin")
+@Table(name = "medecin", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_medecin_email", columnNames = "email_normalise"),
+        @UniqueConstraint(name = "uk_medecin_telephone", columnNames = "telephone_normalise")
+})
 public class Medecin {
 
+    public static final String CACHE_REGION = "medecin";
+    public static final String CONTACT_QUERY_REGION = "medecin-contact";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "medecin_seq")
+    @SequenceGenerator(name = "medecin_seq", sequenceName = "medecin_seq", allocationSize = 50)
     private Long id;
+
+    // Incremente a chaque mise a jour ; sert d'ETag et de garde contre les ecritures perdues
+    @Version
+    private Long version;
+
     private String nom;
     private String prenom;
     private String specialite;
     private String telephone;
     private String email;
     private String adresseCabinet;
+
+    // Formes normalisees portant les contraintes d'unicite, tenues a jour par normalise()
+    private String emailNormalise;
+    private String telephoneNormalise;
+
+    @PrePersist
+    @PreUpdate
+    void normalise() {
+        emailNormalise = normaliseEmail(email);
+        telephoneNormalise = normaliseTelephone(telephone);
+    }
+
+    public static String normaliseEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public static String normaliseTelephone(String telephone) {
+        return telephone == null ? null : telephone.replaceAll("\\D", "");
+    }
 }
@@ -0,0 +1,34 @@
+package com.isi.medecin.model;
+
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+
+/**
+ * Plage de travail hebdomadaire d'un medecin, par exemple le lundi de 09:00 a 12:30.
+ * Les bornes sont des multiples d'un quart d'heure.
+ */
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+@Table(name = "plage_horaire", indexes = {
+        @Index(name = "idx_plage_horaire_medecin", columnList = "medecin_id, jour, heure_debut")
+})
+public class PlageHoraire {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "plage_horaire_seq")
+    @SequenceGenerator(name = "plage_horaire_seq", sequenceName = "plage_horaire_seq", allocationSize = 50)
+    private Long id;
+    private Long medecinId;
+    @Enumerated(EnumType.STRING)
+    private DayOfWeek jour;
+    private LocalTime heureDebut;
+    private LocalTime heureFin;
+}
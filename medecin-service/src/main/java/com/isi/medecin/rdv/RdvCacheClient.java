@@ -0,0 +1,17 @@
+package com.isi.medecin.rdv;
+
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+
+@FeignClient(
+        name = "rdv-service"
+)
+public interface RdvCacheClient {
+
+    @DeleteMapping("/internal/cache/medecins/{medecin-id}")
+    void evictMedecin(@PathVariable("medecin-id") Long medecinId);
+
+    @DeleteMapping("/internal/cache/medecins/absent")
+    void evictAbsentMedecins();
+}
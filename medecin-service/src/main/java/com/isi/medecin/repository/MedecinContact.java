@@ -0,0 +1,7 @@
+package com.isi.medecin.repository;
+
+/**
+ * Projection minimale utilisee pour les controles d'unicite : pas d'entite chargee.
+ */
+public record MedecinContact(Long id, String emailNormalise, String telephoneNormalise) {
+}
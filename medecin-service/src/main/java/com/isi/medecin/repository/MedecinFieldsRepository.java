@@ -0,0 +1,20 @@
+package com.isi.medecin.repository;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fragment de {@link MedecinRepository} pour les reponses allegees ({@code fields=}).
+ */
+public interface MedecinFieldsRepository {
+
+    /**
+     * Champs selectionnables : ceux de MedecinResponse.
+     */
+    List<String> FIELDS = List.of("id", "nom", "prenom", "specialite", "telephone", "email", "adresseCabinet");
+
+    /**
+     * Tous les medecins par id croissant, reduits aux champs donnes (deja valides).
+     */
+    List<Map<String, Object>> findAllFields(List<String> fields);
+}
@@ -0,0 +1,21 @@
+package com.isi.medecin.repository;
+
+import com.isi.commons.jpa.FieldProjection;
+import com.isi.medecin.model.Medecin;
+import jakarta.persistence.EntityManager;
+import lombok.AllArgsConstructor;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.Map;
+
+@AllArgsConstructor
+class MedecinFieldsRepositoryImpl implements MedecinFieldsRepository {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> findAllFields(List<String> fields) {
+        return FieldProjection.select(entityManager, Medecin.class, fields, null, Sort.by(FieldProjection.ID), 0);
+    }
+}
@@ -2,12 +2,46 @@ package com.isi.medecin.repository;
 
 
 import com.isi.medecin.model.Medecin;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface MedecinRepository extends JpaRepository<Medecin, Long> {
+public interface MedecinRepository extends JpaRepository<Medecin, Long>, MedecinFieldsRepository {
 
     Optional<Medecin> findByEmail(String email);
     Optional<Medecin> findByTelephone(String telephone);
+
+    // Controle d'unicite de chaque creation et modification. Resultats gardes dans le cache de
+    // requetes, invalide par Hibernate a chaque ecriture sur la table : une soumission en double,
+    // rejetee sans rien ecrire, est resolue sans requete.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = Medecin.CONTACT_QUERY_REGION)
+    })
+    @Query("select new com.isi.medecin.repository.MedecinContact(m.id, m.emailNormalise, m.telephoneNormalise) "
+            + "from Medecin m where m.emailNormalise = :email or m.telephoneNormalise = :telephone")
+    List<MedecinContact> findContacts(@Param("email") String email, @Param("telephone") String telephone);
+
+    @Query("select m.emailNormalise from Medecin m where m.emailNormalise in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    @Query("select m.telephoneNormalise from Medecin m where m.telephoneNormalise in :telephones")
+    List<String> findExistingTelephones(@Param("telephones") Collection<String> telephones);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            // Un parcours complet viderait le cache de second niveau de ses entrees utiles
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query("select m from Medecin m order by m.id")
+    Stream<Medecin> streamAll();
 }
@@ -0,0 +1,23 @@
+package com.isi.medecin.repository;
+
+import com.isi.medecin.model.PlageHoraire;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface PlageHoraireRepository extends JpaRepository<PlageHoraire, Long> {
+
+    List<PlageHoraire> findByMedecinIdOrderByJourAscHeureDebutAsc(Long medecinId);
+
+    @Query("select h from PlageHoraire h where h.medecinId in "
+            + "(select m.id from Medecin m where m.specialite = :specialite) "
+            + "order by h.medecinId, h.jour, h.heureDebut")
+    List<PlageHoraire> findBySpecialite(@Param("specialite") String specialite);
+
+    @Modifying
+    @Query("delete from PlageHoraire h where h.medecinId = :medecinId")
+    void deleteByMedecinId(@Param("medecinId") Long medecinId);
+}
@@ -0,0 +1,269 @@
+package com.isi.medecin.search;
+
+import com.isi.medecin.dto.MedecinDirectoryResponse;
+import com.isi.medecin.dto.MedecinResponse;
+import com.isi.medecin.dto.SpecialiteFacetResponse;
+import com.isi.medecin.model.Medecin;
+import com.isi.medecin.repository.MedecinRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Annuaire des medecins en memoire. Chaque specialite (repliee : minuscules, sans accents ni
+ * ponctuation) pointe vers ses medecins tries par nom, prenom puis id ; un prefixe de nom est
+ * donc un sous-ensemble contigu de ce tri. L'index garde toute la fiche affichee, les
+ * recherches ne lisent jamais la base. Les decomptes par specialite sont tenus a jour pour
+ * chaque prefixe de nom de {@value #FACET_PREFIX_LENGTH} caracteres au plus ; au-dela, les
+ * medecins du prefixe sont assez peu nombreux pour etre comptes a la demande.
+ */
+@Component
+@Slf4j
+public class MedecinDirectoryIndex {
+
+    private static final Comparator<Fiche> BY_NAME = Comparator.comparing(Fiche::nomKey)
+            .thenComparing(Fiche::prenomKey)
+            .thenComparing(Fiche::id);
+    private static final Comparator<SpecialiteFacetResponse> FACET_ORDER =
+            Comparator.comparingInt(SpecialiteFacetResponse::getCount).reversed()
+                    .thenComparing(SpecialiteFacetResponse::getSpecialite);
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    static final int FACET_PREFIX_LENGTH = 4;
+
+    private final MedecinRepository repository;
+    private final EntityManager entityManager;
+    private final Map<Long, Fiche> fiches = new HashMap<>();
+    private final NavigableSet<Fiche> byName = new TreeSet<>(BY_NAME);
+    private final Map<String, Specialite> bySpecialite = new HashMap<>();
+    // Prefixe de nom replie -> cle de specialite ("" sans specialite) -> nombre de medecins
+    private final Map<String, Map<String, Integer>> counts = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Copie figee d'un medecin, avec ses cles de tri deja calculees.
+     */
+    record Fiche(Long id, String nom, String prenom, String specialite, String telephone, String email,
+                 String adresseCabinet, Long version, String nomKey, String prenomKey, String specialiteKey) {
+
+        static Fiche of(Medecin medecin) {
+            return new Fiche(medecin.getId(), medecin.getNom(), medecin.getPrenom(), medecin.getSpecialite(),
+                    medecin.getTelephone(), medecin.getEmail(), medecin.getAdresseCabinet(), medecin.getVersion(),
+                    fold(medecin.getNom()), fold(medecin.getPrenom()), fold(medecin.getSpecialite()));
+        }
+
+        /**
+         * Borne de recherche : se range avant tout medecin dont le nom replie vaut ou prolonge {@code nomKey}.
+         */
+        static Fiche probe(String nomKey) {
+            return new Fiche(Long.MIN_VALUE, null, null, null, null, null, null, null, nomKey, "", "");
+        }
+
+        MedecinResponse toResponse() {
+            return new MedecinResponse(id, nom, prenom, specialite, telephone, email, adresseCabinet, version);
+        }
+    }
+
+    /**
+     * Medecins d'une specialite et les graphies rencontrees pour elle ; la plus courante sert de libelle.
+     */
+    private static final class Specialite {
+
+        final NavigableSet<Fiche> medecins = new TreeSet<>(BY_NAME);
+        final Map<String, Integer> labels = new HashMap<>();
+
+        String label() {
+            return labels.entrySet().stream()
+                    .min(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                    .orElseThrow()
+                    .getKey();
+        }
+    }
+
+    public MedecinDirectoryIndex(MedecinRepository repository, EntityManager entityManager) {
+        this.repository = repository;
+        this.entityManager = entityManager;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            fiches.clear();
+            byName.clear();
+            bySpecialite.clear();
+            counts.clear();
+            try (Stream<Medecin> medecins = repository.streamAll()) {
+                medecins.forEach(medecin -> {
+                    put(Fiche.of(medecin));
+                    entityManager.detach(medecin);
+                });
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Annuaire des medecins construit : {} medecins, {} specialites", fiches.size(), bySpecialite.size());
+    }
+
+    /**
+     * Indexe (ou reindexe) des medecins, apres le commit si une transaction est en cours.
+     */
+    public void index(Collection<Medecin> medecins) {
+        List<Fiche> entries = medecins.stream().map(Fiche::of).toList();
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                entries.forEach(this::put);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void index(Medecin medecin) {
+        index(List.of(medecin));
+    }
+
+    public void remove(Long medecinId) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                remove(fiches.remove(medecinId));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Medecins de la specialite dont le nom commence par {@code nom}, par ordre alphabetique,
+     * avec le decompte par specialite pour ce meme prefixe. Un critere vide n'est pas applique.
+     */
+    public MedecinDirectoryResponse search(String specialite, String nom, int limit) {
+        String specialiteKey = fold(specialite);
+        String prefix = fold(nom);
+        lock.readLock().lock();
+        try {
+            Specialite selected = bySpecialite.get(specialiteKey);
+            NavigableSet<Fiche> scope = specialiteKey.isEmpty() ? byName
+                    : selected == null ? Collections.emptyNavigableSet() : selected.medecins;
+            NavigableSet<Fiche> matching = withPrefix(scope, prefix);
+            List<MedecinResponse> medecins = matching.stream().limit(limit).map(Fiche::toResponse).toList();
+            Map<String, Integer> prefixCounts = prefix.length() <= FACET_PREFIX_LENGTH
+                    ? counts.getOrDefault(prefix, Map.of())
+                    : countBySpecialite(withPrefix(byName, prefix));
+            List<SpecialiteFacetResponse> facets = new ArrayList<>(prefixCounts.size());
+            int total = 0;
+            for (Map.Entry<String, Integer> count : prefixCounts.entrySet()) {
+                if (specialiteKey.isEmpty() || specialiteKey.equals(count.getKey())) {
+                    total += count.getValue();
+                }
+                if (!count.getKey().isEmpty()) {
+                    facets.add(new SpecialiteFacetResponse(bySpecialite.get(count.getKey()).label(), count.getValue()));
+                }
+            }
+            facets.sort(FACET_ORDER);
+            return new MedecinDirectoryResponse(medecins, total, facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Replie un libelle : minuscules, accents retires, ponctuation et espaces ramenes a un
+     * seul espace. "Gyneco-Obstetrique " et "gynéco obstétrique" donnent la meme cle.
+     */
+    public static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARATORS.matcher(folded.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    private static NavigableSet<Fiche> withPrefix(NavigableSet<Fiche> fiches, String prefix) {
+        if (prefix.isEmpty()) {
+            return fiches;
+        }
+        return fiches.subSet(Fiche.probe(prefix), true, Fiche.probe(prefix + Character.MAX_VALUE), false);
+    }
+
+    private static Map<String, Integer> countBySpecialite(Collection<Fiche> fiches) {
+        Map<String, Integer> perSpecialite = new HashMap<>();
+        fiches.forEach(fiche -> perSpecialite.merge(fiche.specialiteKey(), 1, Integer::sum));
+        return perSpecialite;
+    }
+
+    private void put(Fiche fiche) {
+        remove(fiches.put(fiche.id(), fiche));
+        byName.add(fiche);
+        count(fiche, 1);
+        if (!fiche.specialiteKey().isEmpty()) {
+            Specialite specialite = bySpecialite.computeIfAbsent(fiche.specialiteKey(), key -> new Specialite());
+            specialite.medecins.add(fiche);
+            specialite.labels.merge(fiche.specialite().trim(), 1, Integer::sum);
+        }
+    }
+
+    private void remove(Fiche fiche) {
+        if (fiche == null || !byName.remove(fiche)) {
+            return;
+        }
+        count(fiche, -1);
+        Specialite specialite = bySpecialite.get(fiche.specialiteKey());
+        if (specialite == null || !specialite.medecins.remove(fiche)) {
+            return;
+        }
+        if (specialite.medecins.isEmpty()) {
+            bySpecialite.remove(fiche.specialiteKey());
+        } else {
+            specialite.labels.computeIfPresent(fiche.specialite().trim(), (label, count) -> count == 1 ? null : count - 1);
+        }
+    }
+
+    private void count(Fiche fiche, int delta) {
+        String nomKey = fiche.nomKey();
+        for (int length = 0; length <= Math.min(nomKey.length(), FACET_PREFIX_LENGTH); length++) {
+            Map<String, Integer> prefixCounts = counts.computeIfAbsent(nomKey.substring(0, length), key -> new HashMap<>());
+            prefixCounts.merge(fiche.specialiteKey(), delta, (current, change) -> current + change == 0 ? null : current + change);
+            if (prefixCounts.isEmpty()) {
+                counts.remove(nomKey.substring(0, length));
+            }
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -1,16 +1,35 @@
 package com.isi.medecin.service;
 
 
+import com.isi.medecin.dto.ImportReportResponse;
+import com.isi.medecin.dto.MedecinBatchResponse;
+import com.isi.medecin.dto.MedecinDirectoryResponse;
 import com.isi.medecin.dto.MedecinRequest;
 import com.isi.medecin.dto.MedecinResponse;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface MedecinService {
 
     MedecinResponse newMedecin(MedecinRequest request);
+    List<MedecinResponse> newMedecins(List<MedecinRequest> requests);
     MedecinResponse getMedecinById(Long id);
+    MedecinBatchResponse getMedecinsByIds(Collection<Long> ids);
     List<MedecinResponse> getAllMedecin();
-    MedecinResponse updateMedecin(MedecinRequest request);
+    List<Map<String, Object>> getAllMedecin(Collection<String> fields);
+    MedecinDirectoryResponse searchDirectory(String specialite, String nom, int limit);
+    MedecinResponse updateMedecin(MedecinRequest request, Long expectedVersion);
+
+    default MedecinResponse updateMedecin(MedecinRequest request) {
+        return updateMedecin(request, null);
+    }
+
     void deleteMedecinById(Long id);
+    void exportMedecins(OutputStream out) throws IOException;
+    ImportReportResponse importMedecins(InputStream in, char separator) throws IOException;
 }
@@ -0,0 +1,13 @@
+package com.isi.medecin.service;
+
+import com.isi.medecin.dto.PlageHoraireRequest;
+import com.isi.medecin.dto.PlageHoraireResponse;
+
+import java.util.List;
+
+public interface PlageHoraireService {
+
+    List<PlageHoraireResponse> getHoraires(Long medecinId);
+    List<PlageHoraireResponse> replaceHoraires(Long medecinId, List<PlageHoraireRequest> requests);
+    List<PlageHoraireResponse> getHorairesBySpecialite(String specialite);
+}
@@ -0,0 +1,210 @@
+package com.isi.medecin.service.impl;
+
+import com.isi.medecin.csv.CsvException;
+import com.isi.medecin.csv.CsvReader;
+import com.isi.medecin.dto.ImportErrorResponse;
+import com.isi.medecin.dto.ImportReportResponse;
+import com.isi.medecin.dto.MedecinRequest;
+import com.isi.medecin.exception.RequestException;
+import com.isi.medecin.mapper.MedecinMapper;
+import com.isi.medecin.model.Medecin;
+import com.isi.medecin.repository.MedecinRepository;
+import com.isi.medecin.search.MedecinDirectoryIndex;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.AllArgsConstructor;
+import org.springframework.context.MessageSource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Import CSV des medecins. Le fichier est lu en flux et les lignes valides sont regroupees
+ * par tranches de {@value #CHUNK_SIZE} : chaque tranche est controlee (unicite dans la tranche
+ * puis en base, en deux requetes) et inseree dans sa propre transaction. Un doublon entre deux
+ * tranches est vu par la base, ou la premiere est deja : rien ne grossit avec le fichier.
+ */
+@Component
+@AllArgsConstructor
+public class MedecinImporter {
+
+    public static final int CHUNK_SIZE = 1_000;
+    public static final int MAX_REPORTED_ERRORS = 1_000;
+    static final List<String> COLUMNS = List.of("nom", "prenom", "specialite", "telephone", "email", "adresseCabinet");
+
+    private final MedecinRepository repository;
+    private final MedecinMapper mapper;
+    private final MessageSource messageSource;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final BatchWriter batchWriter;
+    private final MedecinDirectoryIndex directoryIndex;
+
+    private record Row(long line, MedecinRequest request) {
+    }
+
+    public ImportReportResponse importCsv(InputStream in, char separator) throws IOException {
+        ImportReportResponse report = new ImportReportResponse();
+        try (CsvReader csv = new CsvReader(new InputStreamReader(in, StandardCharsets.UTF_8), separator)) {
+            int[] columns = columns(csv.next());
+            List<Row> chunk = new ArrayList<>(CHUNK_SIZE);
+            try {
+                for (List<String> record = csv.next(); record != null; record = csv.next()) {
+                    if (record.size() == 1 && record.get(0).isBlank()) {
+                        continue;
+                    }
+                    report.setRows(report.getRows() + 1);
+                    String error = parse(record, columns, csv.recordLine(), chunk);
+                    if (error != null) {
+                        reject(report, csv.recordLine(), error);
+                    } else if (chunk.size() == CHUNK_SIZE) {
+                        write(chunk, report);
+                    }
+                }
+            } catch (CsvException e) {
+                abort(report, e.getLine(), message("import.csv.invalid", e.getMessage()));
+            }
+            write(chunk, report);
+        }
+        return report;
+    }
+
+    /**
+     * Position de chaque colonne attendue dans l'en-tete ; l'ordre des colonnes est libre.
+     */
+    private int[] columns(List<String> header) {
+        List<String> names = header == null ? List.of()
+                : header.stream().map(name -> name.trim().toLowerCase(Locale.ROOT)).toList();
+        int[] columns = new int[COLUMNS.size()];
+        List<String> missing = new ArrayList<>();
+        for (int i = 0; i < COLUMNS.size(); i++) {
+            columns[i] = names.indexOf(COLUMNS.get(i).toLowerCase(Locale.ROOT));
+            if (columns[i] < 0) {
+                missing.add(COLUMNS.get(i));
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new RequestException(message("import.header.invalid", String.join(", ", missing)), HttpStatus.BAD_REQUEST);
+        }
+        return columns;
+    }
+
+    /**
+     * Ajoute la ligne a la tranche si elle est valide, sinon rend le motif du rejet.
+     */
+    private String parse(List<String> record, int[] columns, long line, List<Row> chunk) {
+        MedecinRequest request = new MedecinRequest();
+        request.setNom(field(record, columns[0]));
+        request.setPrenom(field(record, columns[1]));
+        request.setSpecialite(field(record, columns[2]));
+        request.setTelephone(field(record, columns[3]));
+        request.setEmail(field(record, columns[4]));
+        request.setAdresseCabinet(field(record, columns[5]));
+        Set<ConstraintViolation<MedecinRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            return violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining("; "));
+        }
+        chunk.add(new Row(line, request));
+        return null;
+    }
+
+    private static String field(List<String> record, int column) {
+        if (column >= record.size()) {
+            return null;
+        }
+        String value = record.get(column).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private void write(List<Row> chunk, ImportReportResponse report) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<ImportErrorResponse> rejected = new ArrayList<>();
+        try {
+            Integer imported = transactionTemplate.execute(status -> insert(chunk, rejected));
+            report.setImported(report.getImported() + (imported == null ? 0 : imported));
+            rejected.forEach(error -> reject(report, error.getLine(), error.getMessage()));
+        } catch (DataIntegrityViolationException e) {
+            // Ecriture concurrente sur les memes contacts : la tranche entiere est annulee
+            String message = messageSource.getMessage("contact.exists", null, Locale.getDefault());
+            chunk.forEach(row -> reject(report, row.line(), message));
+        }
+        chunk.clear();
+    }
+
+    private int insert(List<Row> chunk, List<ImportErrorResponse> rejected) {
+        Set<String> emails = new HashSet<>();
+        Set<String> telephones = new HashSet<>();
+        List<Row> candidates = new ArrayList<>();
+        for (Row row : chunk) {
+            String email = Medecin.normaliseEmail(row.request().getEmail());
+            String telephone = Medecin.normaliseTelephone(row.request().getTelephone());
+            if (email != null && emails.contains(email)) {
+                rejected.add(new ImportErrorResponse(row.line(), message("email.exists", row.request().getEmail())));
+            } else if (telephone != null && telephones.contains(telephone)) {
+                rejected.add(new ImportErrorResponse(row.line(), message("telephone.exists", row.request().getTelephone())));
+            } else {
+                if (email != null) {
+                    emails.add(email);
+                }
+                if (telephone != null) {
+                    telephones.add(telephone);
+                }
+                candidates.add(row);
+            }
+        }
+        // Sans contrainte de validation, email et telephone peuvent manquer sur toute la tranche
+        Set<String> existingEmails = new HashSet<>(emails.isEmpty() ? List.of() : repository.findExistingEmails(emails));
+        Set<String> existingTelephones = new HashSet<>(telephones.isEmpty() ? List.of() : repository.findExistingTelephones(telephones));
+        List<Medecin> medecins = new ArrayList<>(candidates.size());
+        for (Row row : candidates) {
+            if (existingEmails.contains(Medecin.normaliseEmail(row.request().getEmail()))) {
+                rejected.add(new ImportErrorResponse(row.line(), message("email.exists", row.request().getEmail())));
+            } else if (existingTelephones.contains(Medecin.normaliseTelephone(row.request().getTelephone()))) {
+                rejected.add(new ImportErrorResponse(row.line(), message("telephone.exists", row.request().getTelephone())));
+            } else {
+                Medecin medecin = mapper.toMedecin(row.request());
+                medecin.setId(null);
+                medecins.add(medecin);
+            }
+        }
+        var savedMedecins = batchWriter.saveAll(repository, medecins);
+        directoryIndex.index(savedMedecins);
+        return savedMedecins.size();
+    }
+
+    private void reject(ImportReportResponse report, long line, String message) {
+        report.setRejected(report.getRejected() + 1);
+        if (report.getErrors().size() < MAX_REPORTED_ERRORS) {
+            report.getErrors().add(new ImportErrorResponse(line, message));
+        }
+    }
+
+    /**
+     * Le lecteur ne peut pas retrouver le debut de l'enregistrement suivant (un guillemet non
+     * referme avale la suite du fichier) : l'import s'arrete, et le rapport le dit en dehors de
+     * la liste d'erreurs, qui peut etre deja pleine.
+     */
+    private void abort(ImportReportResponse report, long line, String message) {
+        reject(report, line, message);
+        report.setAborted(true);
+        report.setAbortError(new ImportErrorResponse(line, message));
+    }
+
+    private String message(String code, Object argument) {
+        return messageSource.getMessage(code, new Object[]{argument}, Locale.getDefault());
+    }
+}
@@ -1,21 +1,46 @@
 package com.isi.medecin.service.impl;
 
+import com.isi.commons.jpa.FieldProjection;
+import com.isi.medecin.dto.ImportReportResponse;
+import com.isi.medecin.dto.MedecinBatchResponse;
+import com.isi.medecin.dto.MedecinDirectoryResponse;
 import com.isi.medecin.dto.MedecinRequest;
 import com.isi.medecin.dto.MedecinResponse;
 import com.isi.medecin.exception.EntityExistsException;
 import com.isi.medecin.exception.EntityNotFoundException;
+import com.isi.medecin.exception.RequestException;
 import com.isi.medecin.mapper.MedecinMapper;
 import com.isi.medecin.model.Medecin;
+import com.isi.medecin.repository.MedecinContact;
 import com.isi.medecin.repository.MedecinRepository;
+import com.isi.medecin.repository.PlageHoraireRepository;
+import com.isi.medecin.search.MedecinDirectoryIndex;
 import com.isi.medecin.service.MedecinService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.context.MessageSource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Service
 @Getter
@@ -24,25 +49,60 @@ import java.util.Locale;
 
 public class MedecinServiceImpl implements MedecinService {
 
+    private static final int EXPORT_FLUSH_SIZE = 500;
+    public static final int MAX_BATCH_SIZE = 100;
+    public static final int MAX_CREATE_BATCH_SIZE = 10_000;
+    public static final int DEFAULT_DIRECTORY_LIMIT = 20;
+    public static final int MAX_DIRECTORY_LIMIT = 100;
+
     private final MedecinRepository repository;
+    private final PlageHoraireRepository plageHoraireRepository;
     private final MedecinMapper mapper;
     private final MessageSource messageSource;
+    private final NearCacheInvalidator nearCacheInvalidator;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final BatchWriter batchWriter;
+    private final MedecinDirectoryIndex directoryIndex;
+    private final MedecinImporter importer;
 
     @Override
     public MedecinResponse newMedecin(MedecinRequest request) {
+        checkContacts(null, request);
+        Medecin medecin = mapper.toMedecin(request);
+        Medecin savedMedecin = saveUnique(medecin, request);
+        directoryIndex.index(savedMedecin);
+        nearCacheInvalidator.medecinsCreated();
+        return mapper.toMedecinResponse(savedMedecin);
+    }
 
-        if (repository.findByEmail(request.getEmail()).isPresent()) {
-            throw new EntityExistsException(messageSource.getMessage("email.exists", new
-                    Object[]{request.getEmail()}, Locale.getDefault()));
+    /**
+     * Cree un lot de medecins : l'unicite des emails et telephones est verifiee en deux requetes
+     * pour tout le lot, puis les insertions partent par tranches via {@link BatchWriter}.
+     */
+    @Override
+    @Transactional
+    public List<MedecinResponse> newMedecins(List<MedecinRequest> requests) {
+        if (requests.size() > MAX_CREATE_BATCH_SIZE) {
+            throw new RequestException(messageSource.getMessage("batch.create.size.exceeded",
+                    new Object[]{requests.size(), MAX_CREATE_BATCH_SIZE}, Locale.getDefault()), HttpStatus.BAD_REQUEST);
         }
-        if (repository.findByTelephone(request.getTelephone()).isPresent()) {
-            throw new EntityExistsException(messageSource.getMessage("telephone.exists", new
-                    Object[]{request.getTelephone()}, Locale.getDefault()));
+        checkUnique(requests);
+        List<Medecin> medecins = requests.stream()
+                .map(request -> {
+                    Medecin medecin = mapper.toMedecin(request);
+                    medecin.setId(null);
+                    return medecin;
+                })
+                .toList();
+        try {
+            var savedMedecins = batchWriter.saveAll(repository, medecins);
+            directoryIndex.index(savedMedecins);
+            nearCacheInvalidator.medecinsCreated();
+            return mapper.toMedecinResponseList(savedMedecins);
+        } catch (DataIntegrityViolationException e) {
+            throw new EntityExistsException(messageSource.getMessage("contact.exists", null, Locale.getDefault()));
         }
-
-        Medecin medecin = mapper.toMedecin(request);
-        var saveMedecin = repository.save(medecin);
-        return mapper.toMedecinResponse(saveMedecin);
     }
 
     @Override
@@ -52,40 +112,175 @@ public class MedecinServiceImpl implements MedecinService {
                 .orElseThrow(() -> new EntityNotFoundException(messageSource.getMessage("medecin.notfound", new Object[]{id}, Locale.getDefault())));
     }
 
+    @Override
+    public MedecinBatchResponse getMedecinsByIds(Collection<Long> ids) {
+        Set<Long> requestedIds = new LinkedHashSet<>();
+        ids.stream().filter(Objects::nonNull).forEach(requestedIds::add);
+        if (requestedIds.size() > MAX_BATCH_SIZE) {
+            throw new RequestException(messageSource.getMessage("batch.size.exceeded",
+                    new Object[]{requestedIds.size(), MAX_BATCH_SIZE}, Locale.getDefault()), HttpStatus.BAD_REQUEST);
+        }
+        var medecins = repository.findAllById(requestedIds);
+        Set<Long> missingIds = new LinkedHashSet<>(requestedIds);
+        medecins.forEach(medecin -> missingIds.remove(medecin.getId()));
+        return new MedecinBatchResponse(mapper.toMedecinResponseList(medecins), missingIds);
+    }
+
     @Override
     public List<MedecinResponse> getAllMedecin() {
         return mapper.toMedecinResponseList(repository.findAll());
     }
 
+    /**
+     * Annuaire allege : seules les colonnes demandees sont lues.
+     */
     @Override
-    public MedecinResponse updateMedecin(MedecinRequest request) {
+    public List<Map<String, Object>> getAllMedecin(Collection<String> fields) {
+        List<String> selection = FieldProjection.selection(fields);
+        List<String> unknown = FieldProjection.unknown(selection, MedecinRepository.FIELDS);
+        if (!unknown.isEmpty()) {
+            throw new RequestException(messageSource.getMessage("fields.invalid",
+                    new Object[]{String.join(", ", unknown), String.join(", ", MedecinRepository.FIELDS)}, Locale.getDefault()),
+                    HttpStatus.BAD_REQUEST);
+        }
+        return repository.findAllFields(selection);
+    }
+
+    /**
+     * Annuaire par specialite et debut de nom, servi par l'index en memoire sans lire la base.
+     */
+    @Override
+    public MedecinDirectoryResponse searchDirectory(String specialite, String nom, int limit) {
+        int max = limit <= 0 ? DEFAULT_DIRECTORY_LIMIT : Math.min(limit, MAX_DIRECTORY_LIMIT);
+        return directoryIndex.search(specialite, nom, max);
+    }
+
+    /**
+     * Avec {@code expectedVersion} (en-tete If-Match), la mise a jour est refusee si la fiche a
+     * change depuis sa lecture par l'appelant ; la colonne version protege aussi contre une
+     * ecriture concurrente entre la lecture ci-dessous et le flush.
+     */
+    @Override
+    public MedecinResponse updateMedecin(MedecinRequest request, Long expectedVersion) {
         var medecin = repository.findById(request.getId())
                 .orElseThrow(() -> new EntityNotFoundException(messageSource.getMessage("medecin.notfound", new Object[]{request.getId()}, Locale.getDefault())));
-        repository.findByEmail(request.getEmail())
-                .ifPresent(existingEmail -> {
-                    if (!existingEmail.getId().equals(request.getId())) {
-                        throw new EntityExistsException(messageSource.getMessage("email.exists", new Object[]{existingEmail}, Locale.getDefault() ));
-                    }
-                });
-        repository.findByTelephone(request.getTelephone())
-                .ifPresent(existingTelephone -> {
-                    if (!existingTelephone.getId().equals(request.getId())) {
-                        throw new EntityExistsException(messageSource.getMessage("telephone.exists", new Object[]{existingTelephone}, Locale.getDefault()));
-                    }
-                });
+        if (expectedVersion != null && !expectedVersion.equals(medecin.getVersion())) {
+            throw new RequestException(messageSource.getMessage("medecin.version.mismatch",
+                    new Object[]{request.getId(), medecin.getVersion(), expectedVersion}, Locale.getDefault()), HttpStatus.PRECONDITION_FAILED);
+        }
+        checkContacts(request.getId(), request);
         medecin.setNom(request.getNom());
         medecin.setPrenom(request.getPrenom());
         medecin.setEmail(request.getEmail());
         medecin.setTelephone(request.getTelephone());
         medecin.setSpecialite(request.getSpecialite());
         medecin.setAdresseCabinet(request.getAdresseCabinet());
-        return mapper.toMedecinResponse(repository.save(medecin));
+        var updatedMedecin = saveUnique(medecin, request);
+        directoryIndex.index(updatedMedecin);
+        nearCacheInvalidator.medecinChanged(updatedMedecin.getId());
+        return mapper.toMedecinResponse(updatedMedecin);
     }
 
+    /**
+     * Les horaires du medecin partent avec lui, dans la meme transaction : aucune cle etrangere
+     * ne les rattache a la fiche.
+     */
     @Override
+    @Transactional
     public void deleteMedecinById(Long id) {
         Medecin medecin = repository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(messageSource.getMessage("medecin.notfound", new Object[]{id}, Locale.getDefault())));
+        plageHoraireRepository.deleteByMedecinId(id);
         repository.delete(medecin);
+        directoryIndex.remove(id);
+        nearCacheInvalidator.medecinChanged(id);
+    }
+
+    /**
+     * Ecrit les medecins en NDJSON au fil de la lecture : le curseur JDBC est parcouru dans une
+     * transaction en lecture seule et chaque entite est detachee une fois ecrite, la memoire
+     * utilisee ne depend donc pas du nombre de lignes.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportMedecins(OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(MedecinResponse.class);
+        try (Stream<Medecin> medecins = repository.streamAll()) {
+            int count = 0;
+            for (var iterator = medecins.iterator(); iterator.hasNext(); ) {
+                Medecin medecin = iterator.next();
+                out.write(writer.writeValueAsBytes(mapper.toMedecinResponse(medecin)));
+                out.write('\n');
+                entityManager.detach(medecin);
+                if (++count % EXPORT_FLUSH_SIZE == 0) {
+                    out.flush();
+                }
+            }
+        }
+        out.flush();
+    }
+
+    @Override
+    public ImportReportResponse importMedecins(InputStream in, char separator) throws IOException {
+        ImportReportResponse report = importer.importCsv(in, separator);
+        if (report.getImported() > 0) {
+            nearCacheInvalidator.medecinsCreated();
+        }
+        return report;
+    }
+
+    private void checkUnique(List<MedecinRequest> requests) {
+        Set<String> emails = new HashSet<>();
+        Set<String> telephones = new HashSet<>();
+        for (MedecinRequest request : requests) {
+            if (!emails.add(Medecin.normaliseEmail(request.getEmail()))) {
+                throw new EntityExistsException(messageSource.getMessage("email.exists",
+                        new Object[]{request.getEmail()}, Locale.getDefault()));
+            }
+            if (!telephones.add(Medecin.normaliseTelephone(request.getTelephone()))) {
+                throw new EntityExistsException(messageSource.getMessage("telephone.exists",
+                        new Object[]{request.getTelephone()}, Locale.getDefault()));
+            }
+        }
+        repository.findExistingEmails(emails).stream().findFirst().ifPresent(email -> {
+            throw new EntityExistsException(messageSource.getMessage("email.exists", new Object[]{email}, Locale.getDefault()));
+        });
+        repository.findExistingTelephones(telephones).stream().findFirst().ifPresent(telephone -> {
+            throw new EntityExistsException(messageSource.getMessage("telephone.exists", new Object[]{telephone}, Locale.getDefault()));
+        });
+    }
+
+    /**
+     * Controle d'unicite en une requete sur les colonnes normalisees. Il ne fait que produire
+     * un message clair : c'est la contrainte unique qui tranche entre deux ecritures concurrentes.
+     */
+    private void checkContacts(Long id, MedecinRequest request) {
+        String email = Medecin.normaliseEmail(request.getEmail());
+        for (MedecinContact contact : repository.findContacts(email, Medecin.normaliseTelephone(request.getTelephone()))) {
+            if (contact.id().equals(id)) {
+                continue;
+            }
+            throw contactExists(email != null && email.equals(contact.emailNormalise()), request);
+        }
+    }
+
+    private Medecin saveUnique(Medecin medecin, MedecinRequest request) {
+        try {
+            return repository.saveAndFlush(medecin);
+        } catch (DataIntegrityViolationException e) {
+            throw contactExists(!violates(e, "telephone"), request);
+        }
+    }
+
+    private EntityExistsException contactExists(boolean email, MedecinRequest request) {
+        return email
+                ? new EntityExistsException(messageSource.getMessage("email.exists", new Object[]{request.getEmail()}, Locale.getDefault()))
+                : new EntityExistsException(messageSource.getMessage("telephone.exists", new Object[]{request.getTelephone()}, Locale.getDefault()));
+    }
+
+    private static boolean violates(DataIntegrityViolationException e, String column) {
+        return e.getCause() instanceof ConstraintViolationException violation
+                && violation.getConstraintName() != null
+                && violation.getConstraintName().toLowerCase(Locale.ROOT).contains(column);
     }
 }
@@ -0,0 +1,58 @@
+package com.isi.medecin.service.impl;
+
+import com.isi.medecin.rdv.RdvCacheClient;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Previent rdv-service qu'un medecin a change pour qu'il retire sa copie en cache.
+ * Dans une transaction, l'appel part apres le commit, pour que rdv-service ne
+ * relise pas l'ancienne valeur. Un echec est journalise sans bloquer l'ecriture :
+ * la duree de vie du cache borne alors la periode d'incoherence. Un rdv-service qui
+ * ne repond pas retient l'ecriture au plus le temps des delais Feign.
+ */
+@Component
+@AllArgsConstructor
+@Slf4j
+public class NearCacheInvalidator {
+
+    private final RdvCacheClient rdvCacheClient;
+
+    public void medecinChanged(Long medecinId) {
+        notify("du medecin " + medecinId, () -> rdvCacheClient.evictMedecin(medecinId));
+    }
+
+    /**
+     * Apres une creation, retire d'un seul appel les medecins caches comme absents,
+     * parmi lesquels les identifiants qui viennent d'etre attribues.
+     */
+    public void medecinsCreated() {
+        notify("des medecins absents", rdvCacheClient::evictAbsentMedecins);
+    }
+
+    private static void notify(String cible, Runnable call) {
+        afterCommit(() -> {
+            try {
+                call.run();
+            } catch (RuntimeException e) {
+                log.warn("Invalidation {} dans rdv-service impossible : {}", cible, e.getMessage());
+            }
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,94 @@
+package com.isi.medecin.service.impl;
+
+import com.isi.medecin.dto.PlageHoraireRequest;
+import com.isi.medecin.dto.PlageHoraireResponse;
+import com.isi.medecin.exception.EntityNotFoundException;
+import com.isi.medecin.exception.InvalidDateException;
+import com.isi.medecin.mapper.PlageHoraireMapper;
+import com.isi.medecin.model.PlageHoraire;
+import com.isi.medecin.repository.MedecinRepository;
+import com.isi.medecin.repository.PlageHoraireRepository;
+import com.isi.medecin.service.PlageHoraireService;
+import lombok.AllArgsConstructor;
+import org.springframework.context.MessageSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+@Service
+@AllArgsConstructor
+public class PlageHoraireServiceImpl implements PlageHoraireService {
+
+    public static final int MINUTES_PAR_QUART = 15;
+
+    private final PlageHoraireRepository repository;
+    private final MedecinRepository medecinRepository;
+    private final PlageHoraireMapper mapper;
+    private final MessageSource messageSource;
+    private final NearCacheInvalidator nearCacheInvalidator;
+
+    @Override
+    public List<PlageHoraireResponse> getHoraires(Long medecinId) {
+        checkMedecin(medecinId);
+        return mapper.toPlageHoraireResponseList(repository.findByMedecinIdOrderByJourAscHeureDebutAsc(medecinId));
+    }
+
+    /**
+     * Remplace toute la semaine de travail du medecin. Les plages doivent etre alignees
+     * sur le quart d'heure et ne pas se chevaucher pour un meme jour.
+     */
+    @Override
+    @Transactional
+    public List<PlageHoraireResponse> replaceHoraires(Long medecinId, List<PlageHoraireRequest> requests) {
+        checkMedecin(medecinId);
+        List<PlageHoraire> plages = requests.stream()
+                .map(request -> {
+                    PlageHoraire plage = mapper.toPlageHoraire(request);
+                    plage.setMedecinId(medecinId);
+                    return plage;
+                })
+                .sorted(Comparator.comparing(PlageHoraire::getJour).thenComparing(PlageHoraire::getHeureDebut))
+                .toList();
+        PlageHoraire previous = null;
+        for (PlageHoraire plage : plages) {
+            if (!isQuart(plage.getHeureDebut()) || !isQuart(plage.getHeureFin())
+                    || !plage.getHeureDebut().isBefore(plage.getHeureFin())) {
+                throw new InvalidDateException(messageSource.getMessage("horaire.invalid",
+                        new Object[]{plage.getJour(), plage.getHeureDebut(), plage.getHeureFin()}, Locale.getDefault()));
+            }
+            if (previous != null && previous.getJour() == plage.getJour()
+                    && previous.getHeureFin().isAfter(plage.getHeureDebut())) {
+                throw new InvalidDateException(messageSource.getMessage("horaire.overlap",
+                        new Object[]{plage.getJour(), previous.getHeureFin(), plage.getHeureDebut()}, Locale.getDefault()));
+            }
+            previous = plage;
+        }
+        repository.deleteByMedecinId(medecinId);
+        var saved = repository.saveAll(plages);
+        nearCacheInvalidator.medecinChanged(medecinId);
+        return mapper.toPlageHoraireResponseList(saved);
+    }
+
+    /**
+     * Plages de tous les medecins d'une specialite, en une requete : c'est ce que charge
+     * rdv-service pour chercher un creneau libre.
+     */
+    @Override
+    public List<PlageHoraireResponse> getHorairesBySpecialite(String specialite) {
+        return mapper.toPlageHoraireResponseList(repository.findBySpecialite(specialite));
+    }
+
+    private void checkMedecin(Long medecinId) {
+        if (!medecinRepository.existsById(medecinId)) {
+            throw new EntityNotFoundException(messageSource.getMessage("medecin.notfound", new Object[]{medecinId}, Locale.getDefault()));
+        }
+    }
+
+    private static boolean isQuart(LocalTime heure) {
+        return heure.getSecond() == 0 && heure.getNano() == 0 && heure.getMinute() % MINUTES_PAR_QUART == 0;
+    }
+}
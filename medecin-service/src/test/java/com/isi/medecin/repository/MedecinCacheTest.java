@@ -0,0 +1,77 @@
+package com.isi.medecin.repository;
+
+import com.isi.medecin.dto.MedecinRequest;
+import com.isi.medecin.exception.EntityNotFoundException;
+import com.isi.medecin.model.Medecin;
+import com.isi.medecin.service.MedecinService;
+import com.isi.medecin.service.impl.NearCacheInvalidator;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.cloud.consul.enabled=false")
+class MedecinCacheTest {
+
+    @Autowired
+    private MedecinService service;
+
+    @Autowired
+    private MedecinRepository repository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    private NearCacheInvalidator nearCacheInvalidator;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void findByIdIsServedFromSecondLevelCache() {
+        Long id = service.newMedecin(request(null, "cache.lecture@example.com", "770000201")).getId();
+        statistics.clear();
+
+        service.getMedecinById(id);
+        service.getMedecinById(id);
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(2, statistics.getDomainDataRegionStatistics(Medecin.CACHE_REGION).getHitCount());
+    }
+
+    @Test
+    void updateAndDeleteInvalidateCachedEntries() {
+        Long id = service.newMedecin(request(null, "cache.avant@example.com", "770000202")).getId();
+        service.getMedecinById(id);
+        repository.findContacts("cache.avant@example.com", null);
+        repository.findContacts(null, "770000202");
+
+        MedecinRequest update = request(id, "cache.apres@example.com", "770000202");
+        update.setSpecialite("Pediatrie");
+        service.updateMedecin(update);
+
+        assertEquals("Pediatrie", service.getMedecinById(id).getSpecialite());
+        assertTrue(repository.findContacts("cache.avant@example.com", null).isEmpty());
+        assertEquals("cache.apres@example.com", repository.findContacts(null, "770000202").get(0).emailNormalise());
+
+        service.deleteMedecinById(id);
+
+        assertThrows(EntityNotFoundException.class, () -> service.getMedecinById(id));
+        assertTrue(repository.findContacts("cache.apres@example.com", "770000202").isEmpty());
+    }
+
+    private static MedecinRequest request(Long id, String email, String telephone) {
+        return new MedecinRequest(id, "Cache", "Test", "Cardiologie", telephone, email, "Dakar");
+    }
+}
@@ -0,0 +1,124 @@
+package com.isi.medecin.search;
+
+import com.isi.medecin.dto.MedecinDirectoryResponse;
+import com.isi.medecin.dto.MedecinResponse;
+import com.isi.medecin.dto.SpecialiteFacetResponse;
+import com.isi.medecin.model.Medecin;
+import com.isi.medecin.repository.MedecinRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MedecinDirectoryIndexTest {
+
+    @Mock
+    private MedecinRepository repository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private MedecinDirectoryIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new MedecinDirectoryIndex(repository, entityManager);
+        index.index(List.of(
+                medecin(1L, "Diop", "Awa", "Cardiologie"),
+                medecin(2L, "Diallo", "Oumar", "cardiologie "),
+                medecin(3L, "Dème", "Khady", "Pédiatrie"),
+                medecin(4L, "Sow", "Fatima", "Cardiologie"),
+                medecin(5L, "Ba", "Ndeye", null)));
+    }
+
+    @Test
+    void foldMergesSpellingsOfASpecialite() {
+        assertEquals("gyneco obstetrique", MedecinDirectoryIndex.fold(" Gynéco-Obstétrique "));
+        assertEquals("", MedecinDirectoryIndex.fold(null));
+    }
+
+    @Test
+    void searchFiltersBySpecialiteAndNamePrefix() {
+        MedecinDirectoryResponse directory = index.search("CARDIOLOGIE", "di", 10);
+
+        assertEquals(List.of(2L, 1L), ids(directory));
+        assertEquals(2, directory.getTotal());
+        assertEquals("Oumar", directory.getMedecins().get(0).getPrenom());
+    }
+
+    @Test
+    void facetsCountEverySpecialiteForThePrefix() {
+        MedecinDirectoryResponse directory = index.search("pediatrie", "D", 10);
+
+        assertEquals(List.of(3L), ids(directory));
+        assertEquals(List.of("Cardiologie:2", "Pédiatrie:1"), facets(directory));
+    }
+
+    @Test
+    void prefixLongerThanTheCountedOnesIsCountedOnDemand() {
+        index.index(medecin(6L, "Diopine", "Rama", "Pédiatrie"));
+
+        MedecinDirectoryResponse directory = index.search(null, "diopi", 10);
+
+        assertEquals(List.of(6L), ids(directory));
+        assertEquals(1, directory.getTotal());
+        assertEquals(List.of("Pédiatrie:1"), facets(directory));
+        assertEquals(List.of("Cardiologie:1", "Pédiatrie:1"), facets(index.search(null, "diop", 10)));
+    }
+
+    @Test
+    void emptyCriteriaListEveryoneAlphabetically() {
+        MedecinDirectoryResponse directory = index.search(null, "", 2);
+
+        assertEquals(List.of(5L, 3L), ids(directory));
+        assertEquals(5, directory.getTotal());
+        assertEquals(List.of("Cardiologie:3", "Pédiatrie:1"), facets(directory));
+    }
+
+    @Test
+    void updateAndRemoveAreIncremental() {
+        index.index(medecin(4L, "Sow", "Fatima", "Pédiatrie"));
+        assertEquals(List.of("Cardiologie:2", "Pédiatrie:2"), facets(index.search(null, null, 10)));
+
+        index.remove(3L);
+        index.remove(4L);
+        assertEquals(List.of(), ids(index.search("pediatrie", null, 10)));
+        assertEquals(List.of("Cardiologie:2"), facets(index.search(null, null, 10)));
+    }
+
+    @Test
+    void rebuildReadsEveryMedecin() {
+        when(repository.streamAll()).thenReturn(Stream.of(medecin(7L, "Faye", "Modou", "Dermatologie")));
+
+        index.rebuild();
+
+        assertEquals(List.of(7L), ids(index.search("dermatologie", "fa", 10)));
+        assertEquals(List.of(), ids(index.search("cardiologie", null, 10)));
+    }
+
+    private static List<Long> ids(MedecinDirectoryResponse directory) {
+        return directory.getMedecins().stream().map(MedecinResponse::getId).toList();
+    }
+
+    private static List<String> facets(MedecinDirectoryResponse directory) {
+        return directory.getFacets().stream().map(facet -> facet.getSpecialite() + ":" + facet.getCount()).toList();
+    }
+
+    private static Medecin medecin(Long id, String nom, String prenom, String specialite) {
+        Medecin medecin = new Medecin();
+        medecin.setId(id);
+        medecin.setNom(nom);
+        medecin.setPrenom(prenom);
+        medecin.setSpecialite(specialite);
+        return medecin;
+    }
+}
@@ -1,23 +1,35 @@
 package com.isi.medecin.service.impl;
 
 
+import com.isi.medecin.dto.MedecinBatchResponse;
+import com.isi.medecin.dto.MedecinDirectoryResponse;
 import com.isi.medecin.dto.MedecinRequest;
 import com.isi.medecin.dto.MedecinResponse;
 import com.isi.medecin.exception.EntityExistsException;
 import com.isi.medecin.exception.EntityNotFoundException;
+import com.isi.medecin.exception.RequestException;
 import com.isi.medecin.mapper.MedecinMapper;
 import com.isi.medecin.model.Medecin;
+import com.isi.medecin.repository.MedecinContact;
 import com.isi.medecin.repository.MedecinRepository;
+import com.isi.medecin.repository.PlageHoraireRepository;
+import com.isi.medecin.search.MedecinDirectoryIndex;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.context.MessageSource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -29,32 +41,42 @@ class MedecinServiceImplTest {
     @Mock
     private MedecinRepository repository;
 
+    @Mock
+    private PlageHoraireRepository plageHoraireRepository;
+
     @Mock
     private MedecinMapper mapper;
 
     @Mock
     private MessageSource messageSource;
 
+    @Mock
+    private NearCacheInvalidator nearCacheInvalidator;
+
+    @Mock
+    private MedecinDirectoryIndex directoryIndex;
+
     @InjectMocks
     private MedecinServiceImpl service;
 
     @Test
     void newMedecinOK() {
-        when(repository.findByEmail(anyString())).thenReturn(Optional.empty());
-        when(repository.findByTelephone(anyString())).thenReturn(Optional.empty());
+        when(repository.findContacts(anyString(), anyString())).thenReturn(List.of());
         when(mapper.toMedecin(any())).thenReturn(getMedecin());
-        when(repository.save(any())).thenReturn(getMedecin());
+        when(repository.saveAndFlush(any())).thenReturn(getMedecin());
         when(mapper.toMedecinResponse(any())).thenReturn(getMedecinResponse());
 
         MedecinResponse response = service.newMedecin(getMedecinRequest());
 
         assertNotNull(response);
         assertEquals("fatima.sow@hopital.sn", response.getEmail());
+        verify(nearCacheInvalidator).medecinsCreated();
     }
 
     @Test
     void newMedecinKO_EmailExists() {
-        when(repository.findByEmail(anyString())).thenReturn(Optional.of(getMedecin()));
+        when(repository.findContacts(anyString(), anyString()))
+                .thenReturn(List.of(new MedecinContact(2L, "fatima.sow@hopital.sn", "0600000000")));
         when(messageSource.getMessage(eq("email.exists"), any(), any(Locale.class)))
                 .thenReturn("Email already exists");
 
@@ -62,12 +84,28 @@ class MedecinServiceImplTest {
                 () -> service.newMedecin(getMedecinRequest()));
 
         assertEquals("Email already exists", exception.getMessage());
+        verify(repository, never()).saveAndFlush(any());
     }
 
     @Test
     void newMedecinKO_TelephoneExists() {
-        when(repository.findByEmail(anyString())).thenReturn(Optional.empty());
-        when(repository.findByTelephone(anyString())).thenReturn(Optional.of(getMedecin()));
+        when(repository.findContacts(anyString(), anyString()))
+                .thenReturn(List.of(new MedecinContact(2L, "autre@example.com", "0102030405")));
+        when(messageSource.getMessage(eq("telephone.exists"), any(), any(Locale.class)))
+                .thenReturn("Telephone already exists");
+
+        EntityExistsException exception = assertThrows(EntityExistsException.class,
+                () -> service.newMedecin(getMedecinRequest()));
+
+        assertEquals("Telephone already exists", exception.getMessage());
+    }
+
+    @Test
+    void newMedecinKO_ConcurrentDuplicate() {
+        when(repository.findContacts(anyString(), anyString())).thenReturn(List.of());
+        when(mapper.toMedecin(any())).thenReturn(getMedecin());
+        when(repository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("doublon",
+                new ConstraintViolationException("doublon", null, "PUBLIC.UK_MEDECIN_TELEPHONE_INDEX_8")));
         when(messageSource.getMessage(eq("telephone.exists"), any(), any(Locale.class)))
                 .thenReturn("Telephone already exists");
 
@@ -100,6 +138,59 @@ class MedecinServiceImplTest {
         assertEquals("Medecin not found", exception.getMessage());
     }
 
+    @Test
+    void getMedecinsByIdsOK() {
+        when(repository.findAllById(any())).thenReturn(List.of(getMedecin()));
+        when(mapper.toMedecinResponseList(any())).thenReturn(List.of(getMedecinResponse()));
+
+        MedecinBatchResponse response = service.getMedecinsByIds(List.of(1L, 2L, 1L));
+
+        assertEquals(1, response.getMedecins().size());
+        assertEquals(Set.of(2L), response.getMissingIds());
+        verify(repository, times(1)).findAllById(Set.of(1L, 2L));
+    }
+
+    @Test
+    void getMedecinsByIdsKO_TooManyIds() {
+        when(messageSource.getMessage(eq("batch.size.exceeded"), any(), any(Locale.class)))
+                .thenReturn("Batch too large");
+        List<Long> ids = LongStream.rangeClosed(1, MedecinServiceImpl.MAX_BATCH_SIZE + 1).boxed().toList();
+
+        RequestException exception = assertThrows(RequestException.class,
+                () -> service.getMedecinsByIds(ids));
+
+        assertEquals("Batch too large", exception.getMessage());
+        verify(repository, never()).findAllById(any());
+    }
+
+    @Test
+    void getAllMedecinKO_UnknownField() {
+        when(messageSource.getMessage(eq("fields.invalid"), any(), any(Locale.class))).thenReturn("Unknown fields: adresse");
+
+        RequestException exception = assertThrows(RequestException.class, () -> service.getAllMedecin(List.of("nom", "adresse")));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void getAllMedecinWithFields() {
+        when(repository.findAllFields(List.of("id", "specialite"))).thenReturn(List.of(Map.of("id", 1L, "specialite", "Cardiologie")));
+
+        List<Map<String, Object>> list = service.getAllMedecin(List.of("specialite"));
+
+        assertEquals("Cardiologie", list.get(0).get("specialite"));
+    }
+
+    @Test
+    void searchDirectoryCapsLimit() {
+        MedecinDirectoryResponse directory = new MedecinDirectoryResponse(List.of(), 0, List.of());
+        when(directoryIndex.search("Cardiologie", "d", MedecinServiceImpl.MAX_DIRECTORY_LIMIT)).thenReturn(directory);
+
+        assertSame(directory, service.searchDirectory("Cardiologie", "d", 1_000));
+        verifyNoInteractions(repository);
+    }
+
     @Test
     void getAllMedecin() {
         when(repository.findAll()).thenReturn(List.of(getMedecin()));
@@ -114,14 +205,15 @@ class MedecinServiceImplTest {
     @Test
     void updateMedecinOK() {
         when(repository.findById(anyLong())).thenReturn(Optional.of(getMedecin()));
-        when(repository.findByEmail(anyString())).thenReturn(Optional.of(getMedecin()));
-        when(repository.findByTelephone(anyString())).thenReturn(Optional.of(getMedecin()));
-        when(repository.save(any())).thenReturn(getMedecin());
+        when(repository.findContacts(anyString(), anyString()))
+                .thenReturn(List.of(new MedecinContact(1L, "fatima.sow@hopital.sn", "0102030405"))); // same medecin
+        when(repository.saveAndFlush(any())).thenReturn(getMedecin());
         when(mapper.toMedecinResponse(any())).thenReturn(getMedecinResponse());
 
         MedecinResponse response = service.updateMedecin(getMedecinRequest());
 
         assertNotNull(response);
+        verify(nearCacheInvalidator, times(1)).medecinChanged(1L);
         assertEquals("fatima.sow@hopital.sn", response.getEmail());
     }
 
@@ -138,12 +230,26 @@ class MedecinServiceImplTest {
     }
 
     @Test
-    void updateMedecinKO_EmailExists() {
-        Medecin existing = getMedecin();
-        existing.setId(2L);
+    void updateMedecinKO_VersionMismatch() {
+        Medecin medecin = getMedecin();
+        medecin.setVersion(3L);
+        when(repository.findById(anyLong())).thenReturn(Optional.of(medecin));
+        when(messageSource.getMessage(eq("medecin.version.mismatch"), any(), any(Locale.class)))
+                .thenReturn("Medecin was modified");
+
+        RequestException exception = assertThrows(RequestException.class,
+                () -> service.updateMedecin(getMedecinRequest(), 2L));
+
+        assertEquals("Medecin was modified", exception.getMessage());
+        assertEquals(HttpStatus.PRECONDITION_FAILED, exception.getStatus());
+        verify(repository, never()).saveAndFlush(any());
+    }
 
+    @Test
+    void updateMedecinKO_EmailExists() {
         when(repository.findById(anyLong())).thenReturn(Optional.of(getMedecin()));
-        when(repository.findByEmail(anyString())).thenReturn(Optional.of(existing));
+        when(repository.findContacts(anyString(), anyString()))
+                .thenReturn(List.of(new MedecinContact(2L, "fatima.sow@hopital.sn", "0600000000")));
         when(messageSource.getMessage(eq("email.exists"), any(), any(Locale.class)))
                 .thenReturn("Email already exists");
 
@@ -155,12 +261,10 @@ class MedecinServiceImplTest {
 
     @Test
     void updateMedecinKO_TelephoneExists() {
-        Medecin existing = getMedecin();
-        existing.setId(2L);
-
         when(repository.findById(anyLong())).thenReturn(Optional.of(getMedecin()));
-        when(repository.findByEmail(anyString())).thenReturn(Optional.of(getMedecin())); // same id
-        when(repository.findByTelephone(anyString())).thenReturn(Optional.of(existing));
+        when(repository.findContacts(anyString(), anyString())).thenReturn(List.of(
+                new MedecinContact(1L, "fatima.sow@hopital.sn", "0700000000"), // same id
+                new MedecinContact(2L, "autre@example.com", "0102030405")));
         when(messageSource.getMessage(eq("telephone.exists"), any(), any(Locale.class)))
                 .thenReturn("Telephone already exists");
 
@@ -176,7 +280,9 @@ class MedecinServiceImplTest {
 
         service.deleteMedecinById(1L);
 
+        verify(plageHoraireRepository, times(1)).deleteByMedecinId(1L);
         verify(repository, times(1)).delete(any());
+        verify(nearCacheInvalidator, times(1)).medecinChanged(1L);
     }
 
     @Test
@@ -189,6 +295,7 @@ class MedecinServiceImplTest {
                 () -> service.deleteMedecinById(1L));
 
         assertEquals("Medecin not found", exception.getMessage());
+        verifyNoInteractions(plageHoraireRepository);
     }
 
     // Méthodes utilitaires
@@ -217,6 +324,6 @@ class MedecinServiceImplTest {
     }
 
     private MedecinResponse getMedecinResponse() {
-        return new MedecinResponse(1L, "Nom", "Prenom", "Cardiologie", "0102030405", "fatima.sow@hopital.sn", "123 Rue A");
+        return new MedecinResponse(1L, "Nom", "Prenom", "Cardiologie", "0102030405", "fatima.sow@hopital.sn", "123 Rue A", 0L);
     }
 }
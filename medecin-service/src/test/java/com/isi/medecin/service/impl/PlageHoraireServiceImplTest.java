@@ -0,0 +1,110 @@
+package com.isi.medecin.service.impl;
+
+import com.isi.medecin.dto.PlageHoraireRequest;
+import com.isi.medecin.exception.EntityNotFoundException;
+import com.isi.medecin.exception.InvalidDateException;
+import com.isi.medecin.mapper.PlageHoraireMapper;
+import com.isi.medecin.model.PlageHoraire;
+import com.isi.medecin.repository.MedecinRepository;
+import com.isi.medecin.repository.PlageHoraireRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.MessageSource;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PlageHoraireServiceImplTest {
+
+    @Mock
+    private PlageHoraireRepository repository;
+
+    @Mock
+    private MedecinRepository medecinRepository;
+
+    @Mock
+    private PlageHoraireMapper mapper;
+
+    @Mock
+    private MessageSource messageSource;
+
+    @Mock
+    private NearCacheInvalidator nearCacheInvalidator;
+
+    @InjectMocks
+    private PlageHoraireServiceImpl service;
+
+    @Test
+    void replaceHorairesOK() {
+        when(medecinRepository.existsById(anyLong())).thenReturn(true);
+        when(mapper.toPlageHoraire(any())).thenAnswer(invocation -> toPlage(invocation.getArgument(0)));
+        when(repository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(mapper.toPlageHoraireResponseList(any())).thenReturn(List.of());
+
+        service.replaceHoraires(1L, List.of(
+                plage(DayOfWeek.MONDAY, "14:00", "18:00"),
+                plage(DayOfWeek.MONDAY, "08:30", "12:00")));
+
+        verify(repository, times(1)).deleteByMedecinId(1L);
+        verify(nearCacheInvalidator, times(1)).medecinChanged(1L);
+    }
+
+    @Test
+    void replaceHorairesKO_Overlap() {
+        when(medecinRepository.existsById(anyLong())).thenReturn(true);
+        when(mapper.toPlageHoraire(any())).thenAnswer(invocation -> toPlage(invocation.getArgument(0)));
+        when(messageSource.getMessage(eq("horaire.overlap"), any(), any(Locale.class)))
+                .thenReturn("Overlap");
+
+        InvalidDateException exception = assertThrows(InvalidDateException.class,
+                () -> service.replaceHoraires(1L, List.of(
+                        plage(DayOfWeek.MONDAY, "08:00", "12:00"),
+                        plage(DayOfWeek.MONDAY, "11:45", "13:00"))));
+
+        assertEquals("Overlap", exception.getMessage());
+        verify(repository, never()).deleteByMedecinId(anyLong());
+    }
+
+    @Test
+    void replaceHorairesKO_NotAlignedOnQuarter() {
+        when(medecinRepository.existsById(anyLong())).thenReturn(true);
+        when(mapper.toPlageHoraire(any())).thenAnswer(invocation -> toPlage(invocation.getArgument(0)));
+        when(messageSource.getMessage(eq("horaire.invalid"), any(), any(Locale.class)))
+                .thenReturn("Invalid");
+
+        assertThrows(InvalidDateException.class,
+                () -> service.replaceHoraires(1L, List.of(plage(DayOfWeek.TUESDAY, "08:10", "12:00"))));
+    }
+
+    @Test
+    void getHorairesKO_MedecinNotFound() {
+        when(medecinRepository.existsById(anyLong())).thenReturn(false);
+        when(messageSource.getMessage(eq("medecin.notfound"), any(), any(Locale.class)))
+                .thenReturn("Medecin not found");
+
+        assertThrows(EntityNotFoundException.class, () -> service.getHoraires(1L));
+    }
+
+    // Méthodes utilitaires
+    private PlageHoraireRequest plage(DayOfWeek jour, String debut, String fin) {
+        return new PlageHoraireRequest(jour, LocalTime.parse(debut), LocalTime.parse(fin));
+    }
+
+    private PlageHoraire toPlage(PlageHoraireRequest request) {
+        return PlageHoraire.builder()
+                .jour(request.getJour())
+                .heureDebut(request.getHeureDebut())
+                .heureFin(request.getHeureFin())
+                .build();
+    }
+}
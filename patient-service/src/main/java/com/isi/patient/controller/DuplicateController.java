@@ -0,0 +1,41 @@
+package com.isi.patient.controller;
+
+import com.isi.patient.dto.DuplicateReportResponse;
+import com.isi.patient.duplicate.DuplicateScanJob;
+import com.isi.patient.exception.EntityNotFoundException;
+import com.isi.patient.exception.RequestException;
+import lombok.AllArgsConstructor;
+import org.springframework.context.MessageSource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Locale;
+
+@AllArgsConstructor
+@RestController
+@RequestMapping("/api/v1/patients/duplicates")
+@PreAuthorize("hasRole('MEDECIN')")
+public class DuplicateController {
+
+    private final DuplicateScanJob job;
+    private final MessageSource messageSource;
+
+    @GetMapping
+    public ResponseEntity<DuplicateReportResponse> getLastReport() {
+        return job.lastReport()
+                .map(ResponseEntity::ok)
+                .orElseThrow(() -> new EntityNotFoundException(messageSource.getMessage("duplicates.report.notfound", null, Locale.getDefault())));
+    }
+
+    @PostMapping("/scan")
+    public ResponseEntity<DuplicateReportResponse> scan() {
+        return job.start()
+                .map(report -> ResponseEntity.status(HttpStatus.ACCEPTED).body(report))
+                .orElseThrow(() -> new RequestException(messageSource.getMessage("duplicates.scan.running", null, Locale.getDefault()), HttpStatus.CONFLICT));
+    }
+}
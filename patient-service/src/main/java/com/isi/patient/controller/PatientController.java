@@ -1,6 +1,9 @@
 package com.isi.patient.controller;
 
 
+import com.isi.patient.dto.ImportReportResponse;
+import com.isi.patient.dto.PatientBatchResponse;
+import com.isi.patient.dto.PatientBatchRequest;
 import com.isi.patient.dto.PatientRequest;
 import com.isi.patient.dto.PatientResponse;
 import com.isi.patient.service.PatientService;
@@ -8,12 +11,19 @@ import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
 
 
 @AllArgsConstructor
@@ -34,9 +44,32 @@ public class PatientController {
         return ResponseEntity.status(HttpStatus.CREATED).body(service.newPatient(request));
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<List<PatientResponse>> newPatients(@Valid @RequestBody PatientBatchRequest request) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(service.newPatients(request.getPatients()));
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportReportResponse> importPatients(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "separator", defaultValue = ",") char separator) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            return ResponseEntity.status(HttpStatus.OK).body(service.importPatients(in, separator));
+        }
+    }
+
+    /**
+     * Renvoie la version en ETag ; Spring repond 304 sans corps si If-None-Match la contient deja.
+     */
     @GetMapping("/{id}")
     public ResponseEntity<PatientResponse> getPatientById(@PathVariable("id") Long id){
-        return ResponseEntity.status(HttpStatus.OK).body(service.getPatientById(id));
+        PatientResponse patient = service.getPatientById(id);
+        return ResponseEntity.status(HttpStatus.OK).eTag(ETags.of(patient.getVersion())).body(patient);
+    }
+
+    @GetMapping(params = "ids")
+    public ResponseEntity<PatientBatchResponse> getPatientsByIds(@RequestParam("ids") List<Long> ids) {
+        return ResponseEntity.status(HttpStatus.OK).body(service.getPatientsByIds(ids));
     }
 
     @GetMapping("/all")
@@ -44,11 +77,24 @@ public class PatientController {
         return ResponseEntity.status(HttpStatus.OK).body(service.getAllPatient());
     }
 
+    @GetMapping(value = "/all", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getAllPatient(@RequestParam("fields") List<String> fields) {
+        return ResponseEntity.status(HttpStatus.OK).body(service.getAllPatient(fields));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<PatientResponse>> searchPatients(
+            @RequestParam("q") String query,
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        return ResponseEntity.status(HttpStatus.OK).body(service.searchPatients(query, limit));
+    }
+
     @PutMapping("/update")
     public ResponseEntity<PatientResponse> updatePatient(
-            @Valid @RequestBody PatientRequest request) {
-        PatientResponse updatePatient = service.updatePatient(request);
-        return ResponseEntity.ok(updatePatient);
+            @Valid @RequestBody PatientRequest request,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        PatientResponse updatePatient = service.updatePatient(request, ETags.expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.of(updatePatient.getVersion())).body(updatePatient);
     }
 
     @DeleteMapping("/delete/{id}")
@@ -56,4 +102,10 @@ public class PatientController {
         service.deletePatientById(id);
         return ResponseEntity.noContent().build();
     }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportPatients() {
+        StreamingResponseBody body = service::exportPatients;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
 }
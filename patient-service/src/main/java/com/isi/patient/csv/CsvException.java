@@ -0,0 +1,17 @@
+package com.isi.patient.csv;
+
+import lombok.Getter;
+
+/**
+ * Fichier CSV mal forme a partir de la ligne {@link #getLine()}.
+ */
+@Getter
+public class CsvException extends RuntimeException {
+
+    private final long line;
+
+    public CsvException(long line, String message) {
+        super(message);
+        this.line = line;
+    }
+}
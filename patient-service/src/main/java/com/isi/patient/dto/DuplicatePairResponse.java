@@ -0,0 +1,17 @@
+package com.isi.patient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class DuplicatePairResponse {
+
+    private Long patientId;
+    private Long otherPatientId;
+    private double score;
+}
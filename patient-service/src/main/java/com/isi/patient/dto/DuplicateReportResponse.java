@@ -0,0 +1,25 @@
+package com.isi.patient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class DuplicateReportResponse {
+
+    public enum Status { RUNNING, DONE, FAILED }
+
+    private Status status;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private int patients;
+    private int blocks;
+    private List<DuplicatePairResponse> pairs;
+}
@@ -0,0 +1,20 @@
+package com.isi.patient.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class PatientBatchRequest {
+
+    @NotEmpty(message = "Le lot est vide")
+    private List<@Valid PatientRequest> patients;
+}
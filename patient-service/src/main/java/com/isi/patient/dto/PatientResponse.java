@@ -1,6 +1,7 @@
 package com.isi.patient.dto;
 
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -22,5 +23,7 @@ public class PatientResponse {
     private String adresse;
     private String telephone;
     private String email;
+    // Transmise dans l'en-tete ETag, pas dans le corps
+    @JsonIgnore
+    private Long version;
 }
-
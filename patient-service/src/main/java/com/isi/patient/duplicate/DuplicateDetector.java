@@ -0,0 +1,128 @@
+package com.isi.patient.duplicate;
+
+import com.isi.patient.repository.PatientIdentity;
+import com.isi.patient.repository.PatientRepository;
+import com.isi.patient.search.PatientSearchIndex;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Detection des patients enregistres plusieurs fois. Plutot que de comparer toutes les
+ * paires, les patients sont ranges par cle de blocage (Soundex du nom et annee de naissance)
+ * et seules les fiches d'un meme bloc sont comparees, les blocs en parallele (fork-join).
+ * Un bloc trop gros est redecoupe sur le Soundex du prenom.
+ */
+@Component
+@AllArgsConstructor
+public class DuplicateDetector {
+
+    public static final int MAX_BLOCK_SIZE = 2_000;
+    private static final double POIDS_NOM = 0.5;
+    private static final double POIDS_PRENOM = 0.35;
+    private static final double POIDS_DATE = 0.15;
+
+    private final PatientRepository repository;
+
+    public record Pair(Long patientId, Long otherPatientId, double score) {
+    }
+
+    public record Result(int patients, int blocks, List<Pair> pairs) {
+    }
+
+    /**
+     * Etat civil replie une fois pour toutes, pour ne pas le refaire a chaque comparaison.
+     */
+    record Fiche(Long id, String nom, String prenom, LocalDate dateNaissance) {
+
+        static Fiche of(PatientIdentity identity) {
+            return new Fiche(identity.id(), fold(identity.nom()), fold(identity.prenom()), identity.dateNaissance());
+        }
+    }
+
+    /**
+     * Paires de score au moins {@code threshold}, les plus probables d'abord.
+     */
+    @Transactional(readOnly = true)
+    public Result detect(double threshold) {
+        Map<String, List<Fiche>> blocks = new HashMap<>();
+        int patients = 0;
+        try (Stream<PatientIdentity> identities = repository.streamIdentities()) {
+            for (var iterator = identities.iterator(); iterator.hasNext(); patients++) {
+                Fiche fiche = Fiche.of(iterator.next());
+                blocks.computeIfAbsent(blockingKey(fiche), key -> new ArrayList<>()).add(fiche);
+            }
+        }
+        List<List<Fiche>> candidates = split(blocks.values());
+        List<Pair> pairs = candidates.parallelStream()
+                .flatMap(block -> compare(block, threshold).stream())
+                .sorted(Comparator.comparingDouble(Pair::score).reversed()
+                        .thenComparing(Pair::patientId)
+                        .thenComparing(Pair::otherPatientId))
+                .toList();
+        return new Result(patients, candidates.size(), pairs);
+    }
+
+    static String blockingKey(Fiche fiche) {
+        return Soundex.code(fiche.nom()) + ':' + (fiche.dateNaissance() == null ? "?" : fiche.dateNaissance().getYear());
+    }
+
+    /**
+     * Blocs a comparer : ceux d'une seule fiche sont ecartes, les trop gros redecoupes.
+     */
+    static List<List<Fiche>> split(Collection<List<Fiche>> blocks) {
+        List<List<Fiche>> candidates = new ArrayList<>();
+        for (List<Fiche> block : blocks) {
+            if (block.size() <= MAX_BLOCK_SIZE) {
+                if (block.size() > 1) {
+                    candidates.add(block);
+                }
+                continue;
+            }
+            Map<String, List<Fiche>> byPrenom = new HashMap<>();
+            block.forEach(fiche -> byPrenom.computeIfAbsent(Soundex.code(fiche.prenom()), key -> new ArrayList<>()).add(fiche));
+            byPrenom.values().stream().filter(sub -> sub.size() > 1).forEach(candidates::add);
+        }
+        return candidates;
+    }
+
+    static List<Pair> compare(List<Fiche> block, double threshold) {
+        List<Pair> pairs = new ArrayList<>();
+        for (int i = 0; i < block.size(); i++) {
+            Fiche left = block.get(i);
+            for (int j = i + 1; j < block.size(); j++) {
+                Fiche right = block.get(j);
+                // Le prenom pese au plus POIDS_PRENOM : inutile de le comparer si cela ne suffit pas
+                double sansPrenom = scoreSansPrenom(left, right);
+                if (sansPrenom + POIDS_PRENOM < threshold) {
+                    continue;
+                }
+                double score = sansPrenom + POIDS_PRENOM * JaroWinkler.similarity(left.prenom(), right.prenom());
+                if (score >= threshold) {
+                    pairs.add(left.id() < right.id()
+                            ? new Pair(left.id(), right.id(), score)
+                            : new Pair(right.id(), left.id(), score));
+                }
+            }
+        }
+        return pairs;
+    }
+
+    private static double scoreSansPrenom(Fiche left, Fiche right) {
+        boolean memeDate = left.dateNaissance() != null && left.dateNaissance().equals(right.dateNaissance());
+        return POIDS_NOM * JaroWinkler.similarity(left.nom(), right.nom()) + (memeDate ? POIDS_DATE : 0);
+    }
+
+    private static String fold(String text) {
+        return String.join(" ", PatientSearchIndex.tokens(text));
+    }
+}
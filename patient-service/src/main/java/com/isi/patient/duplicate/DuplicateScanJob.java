@@ -0,0 +1,91 @@
+package com.isi.patient.duplicate;
+
+import com.isi.patient.dto.DuplicatePairResponse;
+import com.isi.patient.dto.DuplicateReportResponse;
+import com.isi.patient.dto.DuplicateReportResponse.Status;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Lance la detection de doublons chaque nuit ou a la demande, jamais deux a la fois, et
+ * garde le dernier rapport en memoire. Une demande rend la main tout de suite : le calcul
+ * tourne sur son propre thread.
+ */
+@Component
+@Slf4j
+public class DuplicateScanJob {
+
+    private final DuplicateDetector detector;
+    private final double threshold;
+    private final SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("patient-doublons-");
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile DuplicateReportResponse lastReport;
+
+    public DuplicateScanJob(DuplicateDetector detector,
+                            @Value("${patient.duplicates.threshold:0.9}") double threshold) {
+        this.detector = detector;
+        this.threshold = threshold;
+    }
+
+    @Scheduled(cron = "${patient.duplicates.cron:0 0 3 * * *}")
+    public void scheduledScan() {
+        if (running.compareAndSet(false, true)) {
+            scan(begin());
+        }
+    }
+
+    /**
+     * Demarre une detection en arriere-plan ; vide si une detection est deja en cours.
+     */
+    public Optional<DuplicateReportResponse> start() {
+        if (!running.compareAndSet(false, true)) {
+            return Optional.empty();
+        }
+        DuplicateReportResponse report = begin();
+        try {
+            executor.execute(() -> scan(report));
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+        return Optional.of(report);
+    }
+
+    public Optional<DuplicateReportResponse> lastReport() {
+        return Optional.ofNullable(lastReport);
+    }
+
+    private DuplicateReportResponse begin() {
+        DuplicateReportResponse report = new DuplicateReportResponse(Status.RUNNING, LocalDateTime.now(), null, 0, 0, List.of());
+        lastReport = report;
+        return report;
+    }
+
+    /**
+     * Le rapport publie n'est jamais modifie : un nouveau remplace celui "en cours" a la fin.
+     */
+    void scan(DuplicateReportResponse current) {
+        try {
+            DuplicateDetector.Result result = detector.detect(threshold);
+            lastReport = new DuplicateReportResponse(Status.DONE, current.getStartedAt(), LocalDateTime.now(),
+                    result.patients(), result.blocks(), result.pairs().stream()
+                            .map(pair -> new DuplicatePairResponse(pair.patientId(), pair.otherPatientId(), pair.score()))
+                            .toList());
+            log.info("Detection de doublons : {} patients, {} blocs, {} paires candidates",
+                    result.patients(), result.blocks(), result.pairs().size());
+        } catch (RuntimeException e) {
+            lastReport = new DuplicateReportResponse(Status.FAILED, current.getStartedAt(), LocalDateTime.now(), 0, 0, List.of());
+            log.error("Echec de la detection de doublons", e);
+        } finally {
+            running.set(false);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.isi.patient.duplicate;
+
+/**
+ * Similarite de Jaro-Winkler, entre 0 et 1 : elle tolere les lettres manquantes ou
+ * transposees et favorise les chaines qui partagent le meme debut.
+ */
+public final class JaroWinkler {
+
+    private static final double PREFIX_SCALE = 0.1;
+    private static final int MAX_PREFIX = 4;
+
+    private JaroWinkler() {
+    }
+
+    public static double similarity(String left, String right) {
+        if (left.equals(right)) {
+            return 1.0;
+        }
+        if (left.isEmpty() || right.isEmpty()) {
+            return 0.0;
+        }
+        int window = Math.max(0, Math.max(left.length(), right.length()) / 2 - 1);
+        boolean[] leftMatched = new boolean[left.length()];
+        boolean[] rightMatched = new boolean[right.length()];
+        int matches = 0;
+        for (int i = 0; i < left.length(); i++) {
+            int from = Math.max(0, i - window);
+            int to = Math.min(right.length(), i + window + 1);
+            for (int j = from; j < to; j++) {
+                if (!rightMatched[j] && left.charAt(i) == right.charAt(j)) {
+                    leftMatched[i] = true;
+                    rightMatched[j] = true;
+                    matches++;
+                    break;
+                }
+            }
+        }
+        if (matches == 0) {
+            return 0.0;
+        }
+        int transpositions = 0;
+        for (int i = 0, j = 0; i < left.length(); i++) {
+            if (leftMatched[i]) {
+                while (!rightMatched[j]) {
+                    j++;
+                }
+                if (left.charAt(i) != right.charAt(j)) {
+                    transpositions++;
+                }
+                j++;
+            }
+        }
+        double m = matches;
+        double jaro = (m / left.length() + m / right.length() + (m - transpositions / 2.0) / m) / 3.0;
+        int prefix = 0;
+        while (prefix < Math.min(MAX_PREFIX, Math.min(left.length(), right.length()))
+                && left.charAt(prefix) == right.charAt(prefix)) {
+            prefix++;
+        }
+        return jaro + prefix * PREFIX_SCALE * (1.0 - jaro);
+    }
+}
@@ -0,0 +1,43 @@
+package com.isi.patient.duplicate;
+
+/**
+ * Code Soundex (une lettre et trois chiffres) d'un texte deja replie en minuscules sans
+ * accents : les consonnes proches partagent un chiffre et les voyelles disparaissent, si
+ * bien que "ndiaye" et "ndiay" donnent tous deux N300.
+ */
+public final class Soundex {
+
+    //                                      abcdefghijklmnopqrstuvwxyz
+    private static final String CODES = "01230120022455012623010202";
+
+    private Soundex() {
+    }
+
+    public static String code(String text) {
+        StringBuilder code = new StringBuilder(4);
+        char previous = 0;
+        for (int i = 0; i < text.length() && code.length() < 4; i++) {
+            char c = text.charAt(i);
+            if (c < 'a' || c > 'z') {
+                continue;
+            }
+            char digit = CODES.charAt(c - 'a');
+            if (code.length() == 0) {
+                code.append(Character.toUpperCase(c));
+            } else if (digit != '0' && digit != previous) {
+                code.append(digit);
+            }
+            // h et w ne separent pas deux consonnes de meme code, les voyelles si
+            if (c != 'h' && c != 'w') {
+                previous = digit;
+            }
+        }
+        if (code.length() == 0) {
+            return "";
+        }
+        while (code.length() < 4) {
+            code.append('0');
+        }
+        return code.toString();
+    }
+}
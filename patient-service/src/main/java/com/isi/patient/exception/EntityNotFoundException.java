@@ -9,7 +9,6 @@ import lombok.Setter;
 @NoArgsConstructor
 @Getter
 @Setter
-public class EntityNotFoundException extends RuntimeException {
+public class EntityNotFoundException extends StacklessException {
     private String message;
-
 }
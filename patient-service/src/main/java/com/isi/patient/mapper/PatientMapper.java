@@ -5,12 +5,16 @@ import com.isi.patient.dto.PatientRequest;
 import com.isi.patient.dto.PatientResponse;
 import com.isi.patient.model.Patient;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
 import java.util.List;
 
 @Mapper
 public interface PatientMapper {
 
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "emailNormalise", ignore = true)
+    @Mapping(target = "telephoneNormalise", ignore = true)
     Patient toPatient (PatientRequest request);
     PatientResponse toPatientResponse(Patient patient);
     List<PatientResponse> toPatientResponseList(List<Patient> patients);
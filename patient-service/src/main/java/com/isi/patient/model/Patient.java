@@ -3,21 +3,39 @@ package com.isi.patient.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDate;
+import java.util.Locale;
 
 @Entity
+// Lu par id a chaque ecriture de rdv et de dossier : gardes dans le cache de second niveau
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Patient.CACHE_REGION)
 @AllArgsConstructor
 @NoArgsConstructor
 @Getter
 @Setter
 @Builder
-@Table(name = "patient")
+@Table(name = "patient", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_patient_email", columnNames = "email_normalise"),
+        @UniqueConstraint(name = "uk_patient_telephone", columnNames = "telephone_normalise")
+})
 public class Patient {
 
+    public static final String CACHE_REGION = "patient";
+    public static final String CONTACT_QUERY_REGION = "patient-contact";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "patient_seq")
+    @SequenceGenerator(name = "patient_seq", sequenceName = "patient_seq", allocationSize = 50)
     private Long id;
+
+    // Incremente a chaque mise a jour ; sert d'ETag et de garde contre les ecritures perdues
+    @Version
+    private Long version;
+
     private String nom;
     private String prenom;
     private LocalDate dateNaissance;
@@ -25,4 +43,23 @@ public class Patient {
     private String adresse;
     private String telephone;
     private String email;
+
+    // Formes normalisees portant les contraintes d'unicite, tenues a jour par normalise()
+    private String emailNormalise;
+    private String telephoneNormalise;
+
+    @PrePersist
+    @PreUpdate
+    void normalise() {
+        emailNormalise = normaliseEmail(email);
+        telephoneNormalise = normaliseTelephone(telephone);
+    }
+
+    public static String normaliseEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public static String normaliseTelephone(String telephone) {
+        return telephone == null ? null : telephone.replaceAll("\\D", "");
+    }
 }
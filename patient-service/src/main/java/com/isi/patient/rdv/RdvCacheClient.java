@@ -0,0 +1,17 @@
+package com.isi.patient.rdv;
+
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+
+@FeignClient(
+        name = "rdv-service"
+)
+public interface RdvCacheClient {
+
+    @DeleteMapping("/internal/cache/patients/{patient-id}")
+    void evictPatient(@PathVariable("patient-id") Long patientId);
+
+    @DeleteMapping("/internal/cache/patients/absent")
+    void evictAbsentPatients();
+}
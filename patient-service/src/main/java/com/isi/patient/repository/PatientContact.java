@@ -0,0 +1,7 @@
+package com.isi.patient.repository;
+
+/**
+ * Projection minimale utilisee pour les controles d'unicite : pas d'entite chargee.
+ */
+public record PatientContact(Long id, String emailNormalise, String telephoneNormalise) {
+}
@@ -0,0 +1,20 @@
+package com.isi.patient.repository;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fragment de {@link PatientRepository} pour les reponses allegees ({@code fields=}).
+ */
+public interface PatientFieldsRepository {
+
+    /**
+     * Champs selectionnables : ceux de PatientResponse.
+     */
+    List<String> FIELDS = List.of("id", "nom", "prenom", "dateNaissance", "sexe", "adresse", "telephone", "email");
+
+    /**
+     * Tous les patients par id croissant, reduits aux champs donnes (deja valides).
+     */
+    List<Map<String, Object>> findAllFields(List<String> fields);
+}
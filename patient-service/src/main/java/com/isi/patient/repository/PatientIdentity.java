@@ -0,0 +1,9 @@
+package com.isi.patient.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Projection lue par la detection de doublons : l'etat civil seul, sans entite gere.
+ */
+public record PatientIdentity(Long id, String nom, String prenom, LocalDate dateNaissance) {
+}
@@ -1,12 +1,54 @@
 package com.isi.patient.repository;
 
 import com.isi.patient.model.Patient;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface PatientRepository extends JpaRepository<Patient, Long> {
+public interface PatientRepository extends JpaRepository<Patient, Long>, PatientFieldsRepository {
 
     Optional<Patient> findByEmail(String email);
     Optional<Patient> findByTelephone(String telephone);
+
+    // Controle d'unicite de chaque creation et modification. Resultats gardes dans le cache de
+    // requetes, invalide par Hibernate a chaque ecriture sur la table : une soumission en double,
+    // rejetee sans rien ecrire, est resolue sans requete.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = Patient.CONTACT_QUERY_REGION)
+    })
+    @Query("select new com.isi.patient.repository.PatientContact(p.id, p.emailNormalise, p.telephoneNormalise) "
+            + "from Patient p where p.emailNormalise = :email or p.telephoneNormalise = :telephone")
+    List<PatientContact> findContacts(@Param("email") String email, @Param("telephone") String telephone);
+
+    @Query("select p.emailNormalise from Patient p where p.emailNormalise in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    @Query("select p.telephoneNormalise from Patient p where p.telephoneNormalise in :telephones")
+    List<String> findExistingTelephones(@Param("telephones") Collection<String> telephones);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            // Un parcours complet viderait le cache de second niveau de ses entrees utiles
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query("select p from Patient p order by p.id")
+    Stream<Patient> streamAll();
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.isi.patient.repository.PatientIdentity(p.id, p.nom, p.prenom, p.dateNaissance) "
+            + "from Patient p order by p.id")
+    Stream<PatientIdentity> streamIdentities();
 }
@@ -0,0 +1,319 @@
+package com.isi.patient.search;
+
+import com.isi.patient.model.Patient;
+import com.isi.patient.repository.PatientRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Index en memoire des noms et prenoms des patients. Les mots sont replies (minuscules,
+ * sans accents, decoupes sur tout ce qui n'est ni lettre ni chiffre) puis ranges dans un
+ * dictionnaire trie, ce qui donne la recherche par prefixe. Un index de trigrammes sur ce
+ * meme dictionnaire rattrape les fautes de frappe. Chaque mot de la requete doit trouver
+ * un mot du patient ; le score additionne la qualite de chaque correspondance.
+ */
+@Component
+@Slf4j
+public class PatientSearchIndex {
+
+    public static final int MIN_TOKEN_LENGTH = 2;
+    private static final int MIN_FUZZY_LENGTH = 3;
+    private static final double MIN_SIMILARITY = 0.5;
+    private static final double EXACT = 1.0;
+    private static final double PREFIX = 0.8;
+    private static final double FUZZY = 0.6;
+    private static final double EPSILON = 1e-9;
+    private static final Comparator<Candidate> RANKING = Comparator.comparingDouble(Candidate::score)
+            .thenComparing(Candidate::id, Comparator.reverseOrder());
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final PatientRepository repository;
+    private final EntityManager entityManager;
+    private final Map<Long, String[]> tokensByPatient = new HashMap<>();
+    private final NavigableMap<String, NavigableSet<Long>> patientsByToken = new TreeMap<>();
+    private final Map<String, Set<String>> tokensByTrigram = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private record Entry(Long id, String nom, String prenom) {
+    }
+
+    private record Candidate(Long id, double score) {
+    }
+
+    public PatientSearchIndex(PatientRepository repository, EntityManager entityManager) {
+        this.repository = repository;
+        this.entityManager = entityManager;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            tokensByPatient.clear();
+            patientsByToken.clear();
+            tokensByTrigram.clear();
+            try (Stream<Patient> patients = repository.streamAll()) {
+                patients.forEach(patient -> {
+                    put(patient.getId(), patient.getNom(), patient.getPrenom());
+                    entityManager.detach(patient);
+                });
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Index de recherche des patients construit : {} patients, {} mots",
+                tokensByPatient.size(), patientsByToken.size());
+    }
+
+    /**
+     * Indexe (ou reindexe) des patients. Dans une transaction, l'index n'est modifie
+     * qu'apres le commit, pour ne jamais exposer une ecriture annulee.
+     */
+    public void index(Collection<Patient> patients) {
+        List<Entry> entries = patients.stream()
+                .map(patient -> new Entry(patient.getId(), patient.getNom(), patient.getPrenom()))
+                .toList();
+        afterCommit(() -> entries.forEach(entry -> put(entry.id(), entry.nom(), entry.prenom())));
+    }
+
+    public void index(Patient patient) {
+        index(List.of(patient));
+    }
+
+    public void remove(Long patientId) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                remove(patientId, tokensByPatient.remove(patientId));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Identifiants des {@code limit} meilleurs patients pour la requete, du meilleur au
+     * moins bon ; a score egal, le plus ancien patient passe devant. Le parcours part du
+     * mot de la requete qui designe le moins de patients, ses mots les mieux notes
+     * d'abord, et s'arrete des que la borne haute du score ne peut plus entrer au classement.
+     */
+    public List<Long> search(String query, int limit) {
+        List<String> terms = tokens(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        PriorityQueue<Candidate> best = new PriorityQueue<>(limit + 1, RANKING);
+        lock.readLock().lock();
+        try {
+            List<Map<String, Double>> matches = new ArrayList<>();
+            for (String term : terms) {
+                Map<String, Double> words = matchingWords(term);
+                if (words.isEmpty()) {
+                    return List.of();
+                }
+                matches.add(words);
+            }
+            Map<String, Double> driver = matches.stream().min(Comparator.comparingLong(this::postings)).orElseThrow();
+            double others = matches.stream().filter(words -> words != driver)
+                    .mapToDouble(words -> Collections.max(words.values())).sum();
+            List<Map.Entry<String, Double>> words = new ArrayList<>(driver.entrySet());
+            words.sort(Map.Entry.<String, Double>comparingByValue().reversed());
+            Set<Long> seen = new HashSet<>();
+            for (Map.Entry<String, Double> word : words) {
+                double bound = word.getValue() + others;
+                for (Long id : patientsByToken.get(word.getKey())) {
+                    if (best.size() == limit && outranked(id, bound, best.peek())) {
+                        break;
+                    }
+                    double score = seen.add(id) ? score(tokensByPatient.get(id), matches) : 0;
+                    if (score > 0) {
+                        best.add(new Candidate(id, score));
+                        if (best.size() > limit) {
+                            best.poll();
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        Long[] ids = new Long[best.size()];
+        for (int i = ids.length - 1; i >= 0; i--) {
+            ids[i] = best.poll().id();
+        }
+        return Arrays.asList(ids);
+    }
+
+    /**
+     * Replie un texte en mots : minuscules, accents retires, "Jean-Jacques" donne
+     * "jean" et "jacques". Les mots trop courts pour etre discriminants sont ignores.
+     */
+    public static List<String> tokens(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String token : SEPARATORS.split(folded.toLowerCase(Locale.ROOT))) {
+            if (token.length() >= MIN_TOKEN_LENGTH) {
+                tokens.add(token);
+            }
+        }
+        return List.copyOf(tokens);
+    }
+
+    /**
+     * Vrai si un patient de score au plus {@code bound} ne peut pas passer devant le dernier
+     * du classement ; les identifiants etant parcourus croissants, les suivants non plus.
+     */
+    private static boolean outranked(Long id, double bound, Candidate last) {
+        return bound < last.score() - EPSILON || (bound <= last.score() + EPSILON && id > last.id());
+    }
+
+    /**
+     * Mots du dictionnaire retenus pour un mot de la requete, avec leur note : le mot
+     * lui-meme, puis ceux qui le prolongent ; a defaut, ceux qui lui ressemblent.
+     */
+    private Map<String, Double> matchingWords(String term) {
+        Map<String, Double> words = new HashMap<>();
+        for (String word : patientsByToken.subMap(term, true, term + Character.MAX_VALUE, true).keySet()) {
+            words.put(word, word.equals(term) ? EXACT : PREFIX * term.length() / word.length());
+        }
+        if (words.isEmpty() && term.length() >= MIN_FUZZY_LENGTH) {
+            Set<String> termTrigrams = trigrams(term);
+            Map<String, Integer> shared = new HashMap<>();
+            for (String trigram : termTrigrams) {
+                for (String word : tokensByTrigram.getOrDefault(trigram, Set.of())) {
+                    shared.merge(word, 1, Integer::sum);
+                }
+            }
+            shared.forEach((word, count) -> {
+                double similarity = 2.0 * count / (termTrigrams.size() + word.length());
+                if (similarity >= MIN_SIMILARITY) {
+                    words.put(word, FUZZY * similarity);
+                }
+            });
+        }
+        return words;
+    }
+
+    private long postings(Map<String, Double> words) {
+        return words.keySet().stream().mapToLong(word -> patientsByToken.get(word).size()).sum();
+    }
+
+    /**
+     * Somme, pour chaque mot de la requete, de la meilleure note parmi les mots du patient ;
+     * 0 si l'un des mots de la requete ne trouve rien.
+     */
+    private static double score(String[] tokens, List<Map<String, Double>> matches) {
+        double total = 0;
+        for (Map<String, Double> words : matches) {
+            double best = 0;
+            for (String token : tokens) {
+                best = Math.max(best, words.getOrDefault(token, 0.0));
+            }
+            if (best == 0) {
+                return 0;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    private void put(Long patientId, String nom, String prenom) {
+        List<String> tokens = new ArrayList<>(tokens(nom));
+        tokens(prenom).stream().filter(token -> !tokens.contains(token)).forEach(tokens::add);
+        lock.writeLock().lock();
+        try {
+            remove(patientId, tokensByPatient.put(patientId, tokens.toArray(String[]::new)));
+            for (String token : tokens) {
+                patientsByToken.computeIfAbsent(token, t -> {
+                    trigrams(t).forEach(trigram -> tokensByTrigram.computeIfAbsent(trigram, g -> new HashSet<>()).add(t));
+                    return new TreeSet<>();
+                }).add(patientId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void remove(Long patientId, String[] tokens) {
+        if (tokens == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (String token : tokens) {
+                NavigableSet<Long> ids = patientsByToken.get(token);
+                if (ids != null && ids.remove(patientId) && ids.isEmpty()) {
+                    patientsByToken.remove(token);
+                    for (String trigram : trigrams(token)) {
+                        Set<String> sharing = tokensByTrigram.get(trigram);
+                        if (sharing != null && sharing.remove(token) && sharing.isEmpty()) {
+                            tokensByTrigram.remove(trigram);
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Trigrammes du mot encadre de '$' : un mot de n lettres en a au plus n, ce qui laisse
+     * les debuts et fins de mot peser dans la similarite.
+     */
+    static Set<String> trigrams(String token) {
+        String padded = "$" + token + "$";
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
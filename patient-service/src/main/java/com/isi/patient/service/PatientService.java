@@ -1,15 +1,33 @@
 package com.isi.patient.service;
 
+import com.isi.patient.dto.ImportReportResponse;
+import com.isi.patient.dto.PatientBatchResponse;
 import com.isi.patient.dto.PatientRequest;
 import com.isi.patient.dto.PatientResponse;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface PatientService {
 
     PatientResponse newPatient(PatientRequest request);
+    List<PatientResponse> newPatients(List<PatientRequest> requests);
     PatientResponse getPatientById(Long id);
+    PatientBatchResponse getPatientsByIds(Collection<Long> ids);
     List<PatientResponse> getAllPatient();
-    PatientResponse updatePatient(PatientRequest request);
+    List<Map<String, Object>> getAllPatient(Collection<String> fields);
+    List<PatientResponse> searchPatients(String query, int limit);
+    PatientResponse updatePatient(PatientRequest request, Long expectedVersion);
+
+    default PatientResponse updatePatient(PatientRequest request) {
+        return updatePatient(request, null);
+    }
+
     void deletePatientById(Long id);
+    void exportPatients(OutputStream out) throws IOException;
+    ImportReportResponse importPatients(InputStream in, char separator) throws IOException;
 }
@@ -0,0 +1,62 @@
+package com.isi.patient.service.imp;
+
+import com.isi.patient.dossier.DossierCacheClient;
+import com.isi.patient.rdv.RdvCacheClient;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Previent rdv-service et dossier-service qu'un patient a change pour qu'ils
+ * retirent leur copie en cache. Dans une transaction, les appels attendent le commit.
+ * Un echec est journalise sans bloquer l'ecriture : la duree de vie du cache borne
+ * alors la periode d'incoherence. Les delais Feign (application.properties) bornent
+ * l'attente d'un service qui ne repond pas.
+ */
+@Component
+@AllArgsConstructor
+@Slf4j
+public class NearCacheInvalidator {
+
+    private final RdvCacheClient rdvCacheClient;
+    private final DossierCacheClient dossierCacheClient;
+
+    public void patientChanged(Long patientId) {
+        notify("rdv-service", "du patient " + patientId, () -> rdvCacheClient.evictPatient(patientId));
+        notify("dossier-service", "du patient " + patientId, () -> dossierCacheClient.evictPatient(patientId));
+    }
+
+    /**
+     * Apres une creation, un seul appel par service retire les patients caches comme absents,
+     * parmi lesquels les identifiants qui viennent d'etre attribues.
+     */
+    public void patientsCreated() {
+        notify("rdv-service", "des patients absents", rdvCacheClient::evictAbsentPatients);
+        notify("dossier-service", "des patients absents", dossierCacheClient::evictAbsentPatients);
+    }
+
+    private static void notify(String service, String cible, Runnable call) {
+        afterCommit(() -> {
+            try {
+                call.run();
+            } catch (RuntimeException e) {
+                log.warn("Invalidation {} dans {} impossible : {}", cible, service, e.getMessage());
+            }
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -1,22 +1,47 @@
 package com.isi.patient.service.imp;
 
 
+import com.isi.commons.jpa.FieldProjection;
+import com.isi.patient.dto.ImportReportResponse;
+import com.isi.patient.dto.PatientBatchResponse;
 import com.isi.patient.dto.PatientRequest;
 import com.isi.patient.dto.PatientResponse;
 import com.isi.patient.exception.EntityExistsException;
 import com.isi.patient.exception.EntityNotFoundException;
+import com.isi.patient.exception.RequestException;
 import com.isi.patient.mapper.PatientMapper;
 import com.isi.patient.model.Patient;
+import com.isi.patient.repository.PatientContact;
 import com.isi.patient.repository.PatientRepository;
+import com.isi.patient.search.PatientSearchIndex;
 import com.isi.patient.service.PatientService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.context.MessageSource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @AllArgsConstructor
@@ -25,25 +50,61 @@ import java.util.Locale;
 
 public class PatientServiceImpl implements PatientService {
 
+    private static final int EXPORT_FLUSH_SIZE = 500;
+    public static final int MAX_BATCH_SIZE = 100;
+    public static final int MAX_CREATE_BATCH_SIZE = 10_000;
+    public static final int DEFAULT_SEARCH_LIMIT = 20;
+    public static final int MAX_SEARCH_LIMIT = 100;
+
     private final PatientRepository repository;
     private final MessageSource messageSource;
     private final PatientMapper mapper;
+    private final NearCacheInvalidator nearCacheInvalidator;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final BatchWriter batchWriter;
+    private final PatientSearchIndex searchIndex;
+    private final PatientImporter importer;
 
     @Override
     public PatientResponse newPatient(PatientRequest request) {
-        if (repository.findByEmail(request.getEmail()).isPresent()) {
-            throw new EntityExistsException(messageSource.getMessage("email.exists", new
-                    Object[]{request.getEmail()}, Locale.getDefault()));
-        }
-        if (repository.findByTelephone(request.getTelephone()).isPresent()) {
-            throw new EntityExistsException(messageSource.getMessage("telephone.exists", new
-                    Object[]{request.getTelephone()}, Locale.getDefault()));
-        }
+        checkContacts(null, request);
         Patient patient = mapper.toPatient(request);
-        var savedPatient = repository.save(patient);
+        var savedPatient = saveUnique(patient, request);
+        searchIndex.index(savedPatient);
+        nearCacheInvalidator.patientsCreated();
         return mapper.toPatientResponse(savedPatient);
     }
 
+    /**
+     * Cree un lot de patients : l'unicite des emails et telephones est verifiee en deux requetes
+     * pour tout le lot, puis les insertions partent par tranches via {@link BatchWriter}.
+     */
+    @Override
+    @Transactional
+    public List<PatientResponse> newPatients(List<PatientRequest> requests) {
+        if (requests.size() > MAX_CREATE_BATCH_SIZE) {
+            throw new RequestException(messageSource.getMessage("batch.create.size.exceeded",
+                    new Object[]{requests.size(), MAX_CREATE_BATCH_SIZE}, Locale.getDefault()), HttpStatus.BAD_REQUEST);
+        }
+        checkUnique(requests);
+        List<Patient> patients = requests.stream()
+                .map(request -> {
+                    Patient patient = mapper.toPatient(request);
+                    patient.setId(null);
+                    return patient;
+                })
+                .toList();
+        try {
+            var savedPatients = batchWriter.saveAll(repository, patients);
+            searchIndex.index(savedPatients);
+            nearCacheInvalidator.patientsCreated();
+            return mapper.toPatientResponseList(savedPatients);
+        } catch (DataIntegrityViolationException e) {
+            throw new EntityExistsException(messageSource.getMessage("contact.exists", null, Locale.getDefault()));
+        }
+    }
+
     @Override
     public PatientResponse getPatientById(Long id) {
         return repository.findById(id)
@@ -51,28 +112,78 @@ public class PatientServiceImpl implements PatientService {
                 .orElseThrow(() -> new EntityNotFoundException(messageSource.getMessage("patient.notfound", new Object[]{id}, Locale.getDefault())));
     }
 
+    @Override
+    public PatientBatchResponse getPatientsByIds(Collection<Long> ids) {
+        Set<Long> requestedIds = new LinkedHashSet<>();
+        ids.stream().filter(Objects::nonNull).forEach(requestedIds::add);
+        if (requestedIds.size() > MAX_BATCH_SIZE) {
+            throw new RequestException(messageSource.getMessage("batch.size.exceeded",
+                    new Object[]{requestedIds.size(), MAX_BATCH_SIZE}, Locale.getDefault()), HttpStatus.BAD_REQUEST);
+        }
+        var patients = repository.findAllById(requestedIds);
+        Set<Long> missingIds = new LinkedHashSet<>(requestedIds);
+        patients.forEach(patient -> missingIds.remove(patient.getId()));
+        return new PatientBatchResponse(mapper.toPatientResponseList(patients), missingIds);
+    }
+
     @Override
     public List<PatientResponse> getAllPatient() {
         return mapper.toPatientResponseList(repository.findAll());
     }
 
+    /**
+     * Liste reduite aux champs demandes : les autres colonnes ne sont ni lues ni serialisees.
+     */
+    @Override
+    public List<Map<String, Object>> getAllPatient(Collection<String> fields) {
+        List<String> selection = FieldProjection.selection(fields);
+        List<String> unknown = FieldProjection.unknown(selection, PatientRepository.FIELDS);
+        if (!unknown.isEmpty()) {
+            throw new RequestException(messageSource.getMessage("fields.invalid",
+                    new Object[]{String.join(", ", unknown), String.join(", ", PatientRepository.FIELDS)}, Locale.getDefault()),
+                    HttpStatus.BAD_REQUEST);
+        }
+        return repository.findAllFields(selection);
+    }
+
+    /**
+     * Recherche par nom et prenom dans l'index en memoire, qui fournit le classement ;
+     * seuls les patients retenus sont lus en base, dans l'ordre de l'index.
+     */
+    @Override
+    public List<PatientResponse> searchPatients(String query, int limit) {
+        if (PatientSearchIndex.tokens(query).isEmpty()) {
+            throw new RequestException(messageSource.getMessage("search.query.invalid",
+                    new Object[]{PatientSearchIndex.MIN_TOKEN_LENGTH}, Locale.getDefault()), HttpStatus.BAD_REQUEST);
+        }
+        int max = limit <= 0 ? DEFAULT_SEARCH_LIMIT : Math.min(limit, MAX_SEARCH_LIMIT);
+        List<Long> ids = searchIndex.search(query, max);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Patient> patients = repository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Patient::getId, Function.identity()));
+        return mapper.toPatientResponseList(ids.stream()
+                .map(patients::get)
+                .filter(Objects::nonNull)
+                .toList());
+    }
+
+    /**
+     * Avec {@code expectedVersion} (en-tete If-Match), la mise a jour est refusee si la fiche a
+     * change depuis sa lecture par l'appelant ; la colonne version protege aussi contre une
+     * ecriture concurrente entre la lecture ci-dessous et le flush.
+     */
     @Override
-    public PatientResponse updatePatient(PatientRequest request) {
+    public PatientResponse updatePatient(PatientRequest request, Long expectedVersion) {
 
         var patient = repository.findById(request.getId())
                         .orElseThrow(() -> new EntityNotFoundException(messageSource.getMessage("patient.notfound", new Object[]{request.getId()}, Locale.getDefault())));
-        repository.findByEmail(request.getEmail())
-                .ifPresent(existingEmail -> {
-                    if (!existingEmail.getId().equals(request.getId())) {
-                        throw new EntityExistsException(messageSource.getMessage("email.exists", new Object[]{existingEmail}, Locale.getDefault() ));
-                    }
-                });
-        repository.findByTelephone(request.getTelephone())
-                .ifPresent(existingTelephone -> {
-                    if (!existingTelephone.getId().equals(request.getId())) {
-                        throw new EntityExistsException(messageSource.getMessage("telephone.exists", new Object[]{existingTelephone}, Locale.getDefault()));
-                    }
-                });
+        if (expectedVersion != null && !expectedVersion.equals(patient.getVersion())) {
+            throw new RequestException(messageSource.getMessage("patient.version.mismatch",
+                    new Object[]{request.getId(), patient.getVersion(), expectedVersion}, Locale.getDefault()), HttpStatus.PRECONDITION_FAILED);
+        }
+        checkContacts(request.getId(), request);
         patient.setNom(request.getNom());
         patient.setPrenom(request.getPrenom());
         patient.setDateNaissance(request.getDateNaissance());
@@ -80,7 +191,9 @@ public class PatientServiceImpl implements PatientService {
         patient.setAdresse(request.getAdresse());
         patient.setTelephone(request.getTelephone());
         patient.setEmail(request.getEmail());
-        var updatedPatient = repository.save(patient);
+        var updatedPatient = saveUnique(patient, request);
+        searchIndex.index(updatedPatient);
+        nearCacheInvalidator.patientChanged(updatedPatient.getId());
         return mapper.toPatientResponse(updatedPatient);
     }
 
@@ -89,7 +202,95 @@ public class PatientServiceImpl implements PatientService {
         Patient patient = repository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(messageSource.getMessage("patient.notfound", new Object[]{id}, Locale.getDefault() )));
         repository.delete(patient);
+        searchIndex.remove(id);
+        nearCacheInvalidator.patientChanged(id);
+    }
+
+    /**
+     * Ecrit les patients en NDJSON au fil de la lecture : le curseur JDBC est parcouru dans une
+     * transaction en lecture seule et chaque entite est detachee une fois ecrite, la memoire
+     * utilisee ne depend donc pas du nombre de lignes.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportPatients(OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(PatientResponse.class);
+        try (Stream<Patient> patients = repository.streamAll()) {
+            int count = 0;
+            for (var iterator = patients.iterator(); iterator.hasNext(); ) {
+                Patient patient = iterator.next();
+                out.write(writer.writeValueAsBytes(mapper.toPatientResponse(patient)));
+                out.write('\n');
+                entityManager.detach(patient);
+                if (++count % EXPORT_FLUSH_SIZE == 0) {
+                    out.flush();
+                }
+            }
+        }
+        out.flush();
+    }
+
+    @Override
+    public ImportReportResponse importPatients(InputStream in, char separator) throws IOException {
+        ImportReportResponse report = importer.importCsv(in, separator);
+        if (report.getImported() > 0) {
+            nearCacheInvalidator.patientsCreated();
+        }
+        return report;
+    }
+
+    private void checkUnique(List<PatientRequest> requests) {
+        Set<String> emails = new HashSet<>();
+        Set<String> telephones = new HashSet<>();
+        for (PatientRequest request : requests) {
+            if (!emails.add(Patient.normaliseEmail(request.getEmail()))) {
+                throw new EntityExistsException(messageSource.getMessage("email.exists",
+                        new Object[]{request.getEmail()}, Locale.getDefault()));
+            }
+            if (!telephones.add(Patient.normaliseTelephone(request.getTelephone()))) {
+                throw new EntityExistsException(messageSource.getMessage("telephone.exists",
+                        new Object[]{request.getTelephone()}, Locale.getDefault()));
+            }
+        }
+        repository.findExistingEmails(emails).stream().findFirst().ifPresent(email -> {
+            throw new EntityExistsException(messageSource.getMessage("email.exists", new Object[]{email}, Locale.getDefault()));
+        });
+        repository.findExistingTelephones(telephones).stream().findFirst().ifPresent(telephone -> {
+            throw new EntityExistsException(messageSource.getMessage("telephone.exists", new Object[]{telephone}, Locale.getDefault()));
+        });
+    }
+
+    /**
+     * Controle d'unicite en une requete sur les colonnes normalisees. Il ne fait que produire
+     * un message clair : c'est la contrainte unique qui tranche entre deux ecritures concurrentes.
+     */
+    private void checkContacts(Long id, PatientRequest request) {
+        String email = Patient.normaliseEmail(request.getEmail());
+        for (PatientContact contact : repository.findContacts(email, Patient.normaliseTelephone(request.getTelephone()))) {
+            if (contact.id().equals(id)) {
+                continue;
+            }
+            throw contactExists(email != null && email.equals(contact.emailNormalise()), request);
+        }
     }
 
+    private Patient saveUnique(Patient patient, PatientRequest request) {
+        try {
+            return repository.saveAndFlush(patient);
+        } catch (DataIntegrityViolationException e) {
+            throw contactExists(!violates(e, "telephone"), request);
+        }
+    }
 
+    private EntityExistsException contactExists(boolean email, PatientRequest request) {
+        return email
+                ? new EntityExistsException(messageSource.getMessage("email.exists", new Object[]{request.getEmail()}, Locale.getDefault()))
+                : new EntityExistsException(messageSource.getMessage("telephone.exists", new Object[]{request.getTelephone()}, Locale.getDefault()));
+    }
+
+    private static boolean violates(DataIntegrityViolationException e, String column) {
+        return e.getCause() instanceof ConstraintViolationException violation
+                && violation.getConstraintName() != null
+                && violation.getConstraintName().toLowerCase(Locale.ROOT).contains(column);
+    }
 }
@@ -0,0 +1,57 @@
+package com.isi.patient.csv;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvReaderTest {
+
+    @Test
+    void readsQuotedFieldsAndLineNumbers() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader(
+                "\uFEFFnom;prenom\r\n\"Ndiaye; Fall\";\"Jean \"\"JJ\"\"\"\n\"Sow\";\"Awa\nMarie\"\nKane;\n"), ';');
+
+        assertEquals(List.of("nom", "prenom"), csv.next());
+        assertEquals(1, csv.recordLine());
+        assertEquals(List.of("Ndiaye; Fall", "Jean \"JJ\""), csv.next());
+        assertEquals(2, csv.recordLine());
+        assertEquals(List.of("Sow", "Awa\nMarie"), csv.next());
+        assertEquals(3, csv.recordLine());
+        assertEquals(List.of("Kane", ""), csv.next());
+        assertEquals(5, csv.recordLine());
+        assertNull(csv.next());
+    }
+
+    @Test
+    void unclosedQuoteIsReportedAtRecordStart() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("a,b\n\"c,d\n"), ',');
+
+        assertEquals(List.of("a", "b"), csv.next());
+        CsvException exception = assertThrows(CsvException.class, csv::next);
+        assertEquals(2, exception.getLine());
+    }
+
+    @Test
+    void unquotedFieldLengthIsBounded() throws IOException {
+        String tooLong = "x".repeat(CsvReader.MAX_FIELD_LENGTH + 1);
+        CsvReader csv = new CsvReader(new StringReader("a;b\nc;" + tooLong + "\n"), ';');
+
+        assertEquals(List.of("a", "b"), csv.next());
+        CsvException exception = assertThrows(CsvException.class, csv::next);
+        assertEquals(2, exception.getLine());
+    }
+
+    @Test
+    void fieldCountIsBounded() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader(
+                ";".repeat(CsvReader.MAX_FIELDS - 1) + "\n" + ";".repeat(CsvReader.MAX_FIELDS) + "\n"), ';');
+
+        assertEquals(CsvReader.MAX_FIELDS, csv.next().size());
+        CsvException exception = assertThrows(CsvException.class, csv::next);
+        assertEquals(2, exception.getLine());
+    }
+}
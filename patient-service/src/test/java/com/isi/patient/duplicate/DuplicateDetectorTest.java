@@ -0,0 +1,78 @@
+package com.isi.patient.duplicate;
+
+import com.isi.patient.repository.PatientIdentity;
+import com.isi.patient.repository.PatientRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DuplicateDetectorTest {
+
+    @Mock
+    private PatientRepository repository;
+
+    @InjectMocks
+    private DuplicateDetector detector;
+
+    @Test
+    void soundexGroupsSpellingVariants() {
+        assertEquals("N300", Soundex.code("ndiaye"));
+        assertEquals("N300", Soundex.code("ndiay"));
+        assertEquals("R163", Soundex.code("robert"));
+        assertEquals("R163", Soundex.code("rupert"));
+        assertEquals("A261", Soundex.code("ashcraft"));
+        assertEquals("", Soundex.code(""));
+    }
+
+    @Test
+    void jaroWinklerMatchesKnownValues() {
+        assertEquals(0.961, JaroWinkler.similarity("martha", "marhta"), 0.001);
+        assertEquals(0.840, JaroWinkler.similarity("dwayne", "duane"), 0.001);
+        assertEquals(1.0, JaroWinkler.similarity("moussa", "moussa"));
+        assertEquals(0.0, JaroWinkler.similarity("abc", ""));
+    }
+
+    @Test
+    void detectReportsVariantsWithinBlocksOnly() {
+        when(repository.streamIdentities()).thenReturn(Stream.of(
+                new PatientIdentity(1L, "Ndiaye", "Moussa", LocalDate.of(1980, 3, 2)),
+                new PatientIdentity(2L, "Ndiay", "Mousa", LocalDate.of(1980, 3, 2)),
+                new PatientIdentity(3L, "Ndiaye", "Ibrahima", LocalDate.of(1980, 7, 14)),
+                new PatientIdentity(4L, "Ndiaye", "Moussa", LocalDate.of(1991, 3, 2)),
+                new PatientIdentity(5L, "Sow", "Mariama", null)));
+
+        DuplicateDetector.Result result = detector.detect(0.9);
+
+        assertEquals(5, result.patients());
+        assertEquals(1, result.blocks());
+        assertEquals(1, result.pairs().size());
+        DuplicateDetector.Pair pair = result.pairs().get(0);
+        assertEquals(1L, pair.patientId());
+        assertEquals(2L, pair.otherPatientId());
+        assertTrue(pair.score() > 0.95);
+    }
+
+    @Test
+    void splitBreaksOversizedBlocksOnPrenom() {
+        List<DuplicateDetector.Fiche> block = new ArrayList<>();
+        for (long id = 0; id <= DuplicateDetector.MAX_BLOCK_SIZE; id++) {
+            block.add(new DuplicateDetector.Fiche(id, "diallo", id % 2 == 0 ? "awa" : "oumar", LocalDate.of(1980, 1, 1)));
+        }
+
+        List<List<DuplicateDetector.Fiche>> blocks = DuplicateDetector.split(List.of(block, List.of(block.get(0))));
+
+        assertEquals(2, blocks.size());
+        assertEquals(block.size(), blocks.get(0).size() + blocks.get(1).size());
+    }
+}
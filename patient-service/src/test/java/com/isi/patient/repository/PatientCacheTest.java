@@ -0,0 +1,95 @@
+package com.isi.patient.repository;
+
+import com.isi.patient.dto.PatientRequest;
+import com.isi.patient.dto.PatientResponse;
+import com.isi.patient.exception.EntityNotFoundException;
+import com.isi.patient.model.Patient;
+import com.isi.patient.service.PatientService;
+import com.isi.patient.service.imp.NearCacheInvalidator;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.cloud.consul.enabled=false")
+class PatientCacheTest {
+
+    @Autowired
+    private PatientService service;
+
+    @Autowired
+    private PatientRepository repository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    private NearCacheInvalidator nearCacheInvalidator;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void findByIdIsServedFromSecondLevelCache() {
+        Long id = service.newPatient(request(null, "cache.lecture@example.com", "770000101")).getId();
+        statistics.clear();
+
+        service.getPatientById(id);
+        service.getPatientById(id);
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(2, statistics.getDomainDataRegionStatistics(Patient.CACHE_REGION).getHitCount());
+    }
+
+    @Test
+    void findContactsIsServedFromQueryCache() {
+        service.newPatient(request(null, "cache.requete@example.com", "770000102"));
+        repository.findContacts("cache.requete@example.com", "770000102");
+        statistics.clear();
+
+        assertEquals(1, repository.findContacts("cache.requete@example.com", "770000102").size());
+
+        assertEquals(1, statistics.getQueryCacheHitCount());
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void updateAndDeleteInvalidateCachedEntries() {
+        Long id = service.newPatient(request(null, "cache.avant@example.com", "770000103")).getId();
+        service.getPatientById(id);
+        repository.findContacts("cache.avant@example.com", null);
+        repository.findContacts(null, "770000103");
+
+        PatientRequest update = request(id, "cache.apres@example.com", "770000103");
+        update.setNom("Renomme");
+        service.updatePatient(update);
+
+        PatientResponse updated = service.getPatientById(id);
+        assertEquals("Renomme", updated.getNom());
+        assertEquals(1L, updated.getVersion());
+        assertTrue(repository.findContacts("cache.avant@example.com", null).isEmpty());
+        assertEquals(id, repository.findContacts("cache.apres@example.com", null).get(0).id());
+        assertEquals("cache.apres@example.com", repository.findContacts(null, "770000103").get(0).emailNormalise());
+
+        service.deletePatientById(id);
+
+        assertThrows(EntityNotFoundException.class, () -> service.getPatientById(id));
+        assertTrue(repository.findContacts("cache.apres@example.com", "770000103").isEmpty());
+    }
+
+    private static PatientRequest request(Long id, String email, String telephone) {
+        return new PatientRequest(id, "Cache", "Test", LocalDate.of(1990, 1, 1), "F", "Dakar", telephone, email);
+    }
+}
@@ -0,0 +1,61 @@
+package com.isi.patient.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.cloud.consul.enabled=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.isi.patient.repository.PatientFieldsRepositoryTest$SqlCapture"
+})
+class PatientFieldsRepositoryTest {
+
+    @Autowired
+    private PatientRepository repository;
+
+    /**
+     * Retient le SQL emis pour verifier les colonnes reellement lues.
+     */
+    public static class SqlCapture implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        SqlCapture.STATEMENTS.clear();
+    }
+
+    @Test
+    void findAllFieldsSelectsOnlyRequestedColumns() {
+        List<Map<String, Object>> rows = repository.findAllFields(List.of("id", "nom"));
+
+        assertFalse(rows.isEmpty());
+        rows.forEach(row -> assertEquals(List.of("id", "nom"), List.copyOf(row.keySet())));
+        assertEquals(1L, rows.get(0).get("id"));
+        assertEquals("Ka", rows.get(0).get("nom"));
+
+        String sql = SqlCapture.STATEMENTS.stream()
+                .filter(statement -> statement.toLowerCase(Locale.ROOT).contains("from patient"))
+                .findFirst().orElseThrow().toLowerCase(Locale.ROOT);
+        assertTrue(sql.contains(".nom"));
+        assertFalse(sql.contains("adresse"));
+        assertFalse(sql.contains("email"));
+        assertFalse(sql.contains("prenom"));
+    }
+}
@@ -0,0 +1,96 @@
+package com.isi.patient.search;
+
+import com.isi.patient.model.Patient;
+import com.isi.patient.repository.PatientRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PatientSearchIndexTest {
+
+    @Mock
+    private PatientRepository repository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private PatientSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new PatientSearchIndex(repository, entityManager);
+        index.index(List.of(
+                patient(1L, "Mbengue Fall", "Awa"),
+                patient(2L, "Diallo", "Jean-Jacques"),
+                patient(3L, "Ndiaye", "Jeanne"),
+                patient(4L, "Fall", "Mamadou")));
+    }
+
+    @Test
+    void tokensFoldAccentsAndSeparators() {
+        assertEquals(List.of("jean", "jacques", "hel"), PatientSearchIndex.tokens("  Jean-Jacques  Hél  "));
+        assertEquals(List.of("seck"), PatientSearchIndex.tokens("A. Seck"));
+    }
+
+    @Test
+    void searchByPrefixRanksExactWordFirst() {
+        assertEquals(List.of(2L, 3L), index.search("Jéan", 10));
+        assertEquals(List.of(1L, 4L), index.search("fall", 10));
+    }
+
+    @Test
+    void searchRequiresEveryWord() {
+        assertEquals(List.of(1L), index.search("fall awa", 10));
+        assertEquals(List.of(), index.search("fall jeanne", 10));
+    }
+
+    @Test
+    void searchToleratesTypos() {
+        assertEquals(List.of(2L), index.search("Dialo", 10));
+        assertEquals(List.of(1L), index.search("mbengé", 10));
+    }
+
+    @Test
+    void searchKeepsTopK() {
+        assertEquals(List.of(2L), index.search("jea", 1));
+    }
+
+    @Test
+    void updateAndRemoveAreIncremental() {
+        index.index(patient(2L, "Diallo", "Moussa"));
+        assertEquals(List.of(3L), index.search("jean", 10));
+        assertEquals(List.of(2L), index.search("moussa", 10));
+
+        index.remove(2L);
+        assertEquals(List.of(), index.search("diallo", 10));
+        assertEquals(List.of(), index.search("moussa", 10));
+    }
+
+    @Test
+    void rebuildReadsEveryPatient() {
+        when(repository.streamAll()).thenReturn(Stream.of(patient(7L, "Sow", "Fatou")));
+
+        index.rebuild();
+
+        assertEquals(List.of(7L), index.search("fatou sow", 10));
+        assertEquals(List.of(), index.search("fall", 10));
+    }
+
+    private static Patient patient(Long id, String nom, String prenom) {
+        Patient patient = new Patient();
+        patient.setId(id);
+        patient.setNom(nom);
+        patient.setPrenom(prenom);
+        return patient;
+    }
+}
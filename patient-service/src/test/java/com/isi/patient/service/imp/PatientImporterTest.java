@@ -0,0 +1,138 @@
+package com.isi.patient.service.imp;
+
+import com.isi.patient.dto.ImportReportResponse;
+import com.isi.patient.dto.PatientRequest;
+import com.isi.patient.exception.RequestException;
+import com.isi.patient.mapper.PatientMapper;
+import com.isi.patient.model.Patient;
+import com.isi.patient.repository.PatientRepository;
+import com.isi.patient.search.PatientSearchIndex;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.MessageSource;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PatientImporterTest {
+
+    private static final String HEADER = "email,nom,prenom,dateNaissance,sexe,adresse,telephone\n";
+
+    @Mock
+    private PatientRepository repository;
+
+    @Mock
+    private PatientMapper mapper;
+
+    @Mock
+    private MessageSource messageSource;
+
+    @Mock
+    private Validator validator;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private BatchWriter batchWriter;
+
+    @Mock
+    private PatientSearchIndex searchIndex;
+
+    @InjectMocks
+    private PatientImporter importer;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        lenient().when(messageSource.getMessage(anyString(), any(), any(Locale.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        lenient().when(mapper.toPatient(any())).thenAnswer(invocation -> {
+            PatientRequest request = invocation.getArgument(0);
+            return Patient.builder().email(request.getEmail()).telephone(request.getTelephone()).build();
+        });
+        lenient().when(batchWriter.saveAll(any(), any())).thenAnswer(invocation -> invocation.getArgument(1));
+    }
+
+    @Test
+    void importCsvReportsRejectedRows() throws Exception {
+        when(repository.findExistingEmails(any())).thenReturn(List.of("deja@example.com"));
+        when(repository.findExistingTelephones(any())).thenReturn(List.of());
+
+        ImportReportResponse report = importer.importCsv(csv(HEADER
+                + "awa@example.com,Sow,Awa,1990-02-01,F,Dakar,77 000 00 01\n"
+                + "AWA@example.com,Sow,Awa,1990-02-01,F,Dakar,770000002\n"
+                + "moussa@example.com,Ka,Moussa,01/02/1990,M,Thies,770000003\n"
+                + "deja@example.com,Fall,Fatou,1985-05-05,F,Mbour,770000004\n"
+                + "\n"
+                + "jj@example.com,Mbengue,Jean-Jacques,1993-04-18,M,Saly,770000005\n"), ',');
+
+        assertEquals(5, report.getRows());
+        assertEquals(2, report.getImported());
+        assertEquals(3, report.getRejected());
+        assertEquals(List.of(3L, 4L, 5L), report.getErrors().stream().map(error -> error.getLine()).sorted().toList());
+        verify(batchWriter).saveAll(eq(repository), argThat(patients -> patients.size() == 2));
+        verify(searchIndex).index(anyList());
+    }
+
+    @Test
+    void importCsvRejectsInvalidRows() throws Exception {
+        @SuppressWarnings("unchecked")
+        ConstraintViolation<PatientRequest> violation = mock(ConstraintViolation.class);
+        when(violation.getMessage()).thenReturn("L'email est invalide");
+        when(validator.validate(any(PatientRequest.class))).thenReturn(Set.of(violation));
+
+        ImportReportResponse report = importer.importCsv(csv(HEADER
+                + "pas-un-email,Sow,Awa,1990-02-01,F,Dakar,770000001\n"), ',');
+
+        assertEquals(1, report.getRejected());
+        assertEquals("L'email est invalide", report.getErrors().get(0).getMessage());
+        verifyNoInteractions(batchWriter);
+    }
+
+    @Test
+    void importCsvReportsAnAbortedRead() throws Exception {
+        when(repository.findExistingEmails(any())).thenReturn(List.of());
+        when(repository.findExistingTelephones(any())).thenReturn(List.of());
+
+        ImportReportResponse report = importer.importCsv(csv(HEADER
+                + "awa@example.com,Sow,Awa,1990-02-01,F,Dakar,770000001\n"
+                + "moussa@example.com,\"Ka,Moussa,1990-02-01,M,Thies,770000003\n"
+                + "jj@example.com,Mbengue,Jean-Jacques,1993-04-18,M,Saly,770000005\n"), ',');
+
+        assertEquals(1, report.getImported());
+        assertTrue(report.isAborted());
+        assertEquals(3, report.getAbortError().getLine());
+        assertEquals("import.csv.invalid", report.getAbortError().getMessage());
+        assertEquals(1, report.getRejected());
+    }
+
+    @Test
+    void importCsvKO_MissingColumns() {
+        RequestException exception = assertThrows(RequestException.class,
+                () -> importer.importCsv(csv("nom;prenom\nSow;Awa\n"), ';'));
+
+        assertEquals("import.header.invalid", exception.getMessage());
+    }
+
+    private static ByteArrayInputStream csv(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,23 +1,39 @@
 package com.isi.patient.service.imp;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.isi.patient.dto.PatientBatchResponse;
 import com.isi.patient.dto.PatientRequest;
 import com.isi.patient.dto.PatientResponse;
 import com.isi.patient.exception.EntityExistsException;
 import com.isi.patient.exception.EntityNotFoundException;
+import com.isi.patient.exception.RequestException;
 import com.isi.patient.mapper.PatientMapper;
 import com.isi.patient.model.Patient;
+import com.isi.patient.repository.PatientContact;
 import com.isi.patient.repository.PatientRepository;
+import com.isi.patient.search.PatientSearchIndex;
+import jakarta.persistence.EntityManager;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.context.MessageSource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -35,26 +51,42 @@ class PatientServiceImplTest {
     @Mock
     private MessageSource messageSource;
 
+    @Mock
+    private NearCacheInvalidator nearCacheInvalidator;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Mock
+    private BatchWriter batchWriter;
+
+    @Mock
+    private PatientSearchIndex searchIndex;
+
     @InjectMocks
     private PatientServiceImpl service;
 
     @Test
     void newPatientOK() {
-        when(repository.findByEmail(anyString())).thenReturn(Optional.empty());
-        when(repository.findByTelephone(anyString())).thenReturn(Optional.empty());
+        when(repository.findContacts(anyString(), anyString())).thenReturn(List.of());
         when(mapper.toPatient(any())).thenReturn(getPatient());
-        when(repository.save(any())).thenReturn(getPatient());
+        when(repository.saveAndFlush(any())).thenReturn(getPatient());
         when(mapper.toPatientResponse(any())).thenReturn(getPatientResponse());
 
         PatientResponse response = service.newPatient(getPatientRequest());
 
         assertNotNull(response);
         assertEquals("patient@example.com", response.getEmail());
+        verify(nearCacheInvalidator).patientsCreated();
     }
 
     @Test
     void newPatientKO_EmailExists() {
-        when(repository.findByEmail(anyString())).thenReturn(Optional.of(getPatient()));
+        when(repository.findContacts(anyString(), anyString()))
+                .thenReturn(List.of(new PatientContact(2L, "patient@example.com", "0600000000")));
         when(messageSource.getMessage(eq("email.exists"), any(), any(Locale.class)))
                 .thenReturn("Email already exists");
 
@@ -62,12 +94,28 @@ class PatientServiceImplTest {
                 () -> service.newPatient(getPatientRequest()));
 
         assertEquals("Email already exists", exception.getMessage());
+        verify(repository, never()).saveAndFlush(any());
     }
 
     @Test
     void newPatientKO_TelephoneExists() {
-        when(repository.findByEmail(anyString())).thenReturn(Optional.empty());
-        when(repository.findByTelephone(anyString())).thenReturn(Optional.of(getPatient()));
+        when(repository.findContacts(anyString(), anyString()))
+                .thenReturn(List.of(new PatientContact(2L, "autre@example.com", "0102030405")));
+        when(messageSource.getMessage(eq("telephone.exists"), any(), any(Locale.class)))
+                .thenReturn("Telephone already exists");
+
+        EntityExistsException exception = assertThrows(EntityExistsException.class,
+                () -> service.newPatient(getPatientRequest()));
+
+        assertEquals("Telephone already exists", exception.getMessage());
+    }
+
+    @Test
+    void newPatientKO_ConcurrentDuplicate() {
+        when(repository.findContacts(anyString(), anyString())).thenReturn(List.of());
+        when(mapper.toPatient(any())).thenReturn(getPatient());
+        when(repository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("doublon",
+                new ConstraintViolationException("doublon", null, "PUBLIC.UK_PATIENT_TELEPHONE_INDEX_8")));
         when(messageSource.getMessage(eq("telephone.exists"), any(), any(Locale.class)))
                 .thenReturn("Telephone already exists");
 
@@ -77,6 +125,33 @@ class PatientServiceImplTest {
         assertEquals("Telephone already exists", exception.getMessage());
     }
 
+    @Test
+    void newPatientsOK() {
+        when(repository.findExistingEmails(any())).thenReturn(List.of());
+        when(repository.findExistingTelephones(any())).thenReturn(List.of());
+        when(mapper.toPatient(any())).thenReturn(getPatient());
+        when(batchWriter.saveAll(any(), any())).thenAnswer(invocation -> invocation.getArgument(1));
+        when(mapper.toPatientResponseList(any())).thenReturn(List.of(getPatientResponse()));
+
+        List<PatientResponse> responses = service.newPatients(List.of(getPatientRequest()));
+
+        assertEquals(1, responses.size());
+        verify(repository, never()).findContacts(anyString(), anyString());
+    }
+
+    @Test
+    void newPatientsKO_EmailExists() {
+        when(repository.findExistingEmails(any())).thenReturn(List.of("patient@example.com"));
+        when(messageSource.getMessage(eq("email.exists"), any(), any(Locale.class)))
+                .thenReturn("Email already exists");
+
+        EntityExistsException exception = assertThrows(EntityExistsException.class,
+                () -> service.newPatients(List.of(getPatientRequest())));
+
+        assertEquals("Email already exists", exception.getMessage());
+        verifyNoInteractions(batchWriter);
+    }
+
     @Test
     void getPatientByIdOK() {
         when(repository.findById(anyLong())).thenReturn(Optional.of(getPatient()));
@@ -100,6 +175,31 @@ class PatientServiceImplTest {
         assertEquals("Patient not found", exception.getMessage());
     }
 
+    @Test
+    void getPatientsByIdsOK() {
+        when(repository.findAllById(any())).thenReturn(List.of(getPatient()));
+        when(mapper.toPatientResponseList(any())).thenReturn(List.of(getPatientResponse()));
+
+        PatientBatchResponse response = service.getPatientsByIds(List.of(1L, 2L, 1L));
+
+        assertEquals(1, response.getPatients().size());
+        assertEquals(Set.of(2L), response.getMissingIds());
+        verify(repository, times(1)).findAllById(Set.of(1L, 2L));
+    }
+
+    @Test
+    void getPatientsByIdsKO_TooManyIds() {
+        when(messageSource.getMessage(eq("batch.size.exceeded"), any(), any(Locale.class)))
+                .thenReturn("Batch too large");
+        List<Long> ids = LongStream.rangeClosed(1, PatientServiceImpl.MAX_BATCH_SIZE + 1).boxed().toList();
+
+        RequestException exception = assertThrows(RequestException.class,
+                () -> service.getPatientsByIds(ids));
+
+        assertEquals("Batch too large", exception.getMessage());
+        verify(repository, never()).findAllById(any());
+    }
+
     @Test
     void getAllPatient() {
         when(repository.findAll()).thenReturn(List.of(getPatient()));
@@ -111,17 +211,65 @@ class PatientServiceImplTest {
         assertEquals(1, list.size());
     }
 
+    @Test
+    void getAllPatientWithFields() {
+        when(repository.findAllFields(List.of("id", "nom"))).thenReturn(List.of(Map.of("id", 1L, "nom", "Ka")));
+
+        List<Map<String, Object>> list = service.getAllPatient(List.of("nom", " nom", ""));
+
+        assertEquals(1, list.size());
+        verify(repository, never()).findAll();
+    }
+
+    @Test
+    void getAllPatientKO_UnknownField() {
+        when(messageSource.getMessage(eq("fields.invalid"), any(), any(Locale.class))).thenReturn("Unknown fields: version");
+
+        RequestException exception = assertThrows(RequestException.class, () -> service.getAllPatient(List.of("nom", "version")));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void searchPatientsKeepsIndexOrder() {
+        Patient first = getPatient();
+        Patient second = getPatient();
+        second.setId(2L);
+        when(searchIndex.search("jean", PatientServiceImpl.MAX_SEARCH_LIMIT)).thenReturn(List.of(2L, 1L));
+        when(repository.findAllById(List.of(2L, 1L))).thenReturn(List.of(first, second));
+        when(mapper.toPatientResponseList(any())).thenAnswer(invocation -> invocation.<List<Patient>>getArgument(0).stream()
+                .map(patient -> new PatientResponse(patient.getId(), null, null, null, null, null, null, null, null))
+                .toList());
+
+        List<PatientResponse> list = service.searchPatients("jean", 500);
+
+        assertEquals(List.of(2L, 1L), list.stream().map(PatientResponse::getId).toList());
+    }
+
+    @Test
+    void searchPatientsKO_QueryTooShort() {
+        when(messageSource.getMessage(eq("search.query.invalid"), any(), any(Locale.class)))
+                .thenReturn("Search query is too short");
+
+        RequestException exception = assertThrows(RequestException.class, () -> service.searchPatients(" - a", 20));
+
+        assertEquals("Search query is too short", exception.getMessage());
+        verifyNoInteractions(searchIndex);
+    }
+
     @Test
     void updatePatientOK() {
         when(repository.findById(anyLong())).thenReturn(Optional.of(getPatient()));
-        when(repository.findByEmail(anyString())).thenReturn(Optional.of(getPatient())); // same patient
-        when(repository.findByTelephone(anyString())).thenReturn(Optional.of(getPatient())); // same patient
-        when(repository.save(any())).thenReturn(getPatient());
+        when(repository.findContacts(anyString(), anyString()))
+                .thenReturn(List.of(new PatientContact(1L, "patient@example.com", "0102030405"))); // same patient
+        when(repository.saveAndFlush(any())).thenReturn(getPatient());
         when(mapper.toPatientResponse(any())).thenReturn(getPatientResponse());
 
         PatientResponse response = service.updatePatient(getPatientRequest());
 
         assertNotNull(response);
+        verify(nearCacheInvalidator, times(1)).patientChanged(1L);
         assertEquals("patient@example.com", response.getEmail());
     }
 
@@ -138,12 +286,26 @@ class PatientServiceImplTest {
     }
 
     @Test
-    void updatePatientKO_EmailExists() {
-        Patient existing = getPatient();
-        existing.setId(2L);
+    void updatePatientKO_VersionMismatch() {
+        Patient patient = getPatient();
+        patient.setVersion(3L);
+        when(repository.findById(anyLong())).thenReturn(Optional.of(patient));
+        when(messageSource.getMessage(eq("patient.version.mismatch"), any(), any(Locale.class)))
+                .thenReturn("Patient was modified");
+
+        RequestException exception = assertThrows(RequestException.class,
+                () -> service.updatePatient(getPatientRequest(), 2L));
+
+        assertEquals("Patient was modified", exception.getMessage());
+        assertEquals(HttpStatus.PRECONDITION_FAILED, exception.getStatus());
+        verify(repository, never()).saveAndFlush(any());
+    }
 
+    @Test
+    void updatePatientKO_EmailExists() {
         when(repository.findById(anyLong())).thenReturn(Optional.of(getPatient()));
-        when(repository.findByEmail(anyString())).thenReturn(Optional.of(existing));
+        when(repository.findContacts(anyString(), anyString()))
+                .thenReturn(List.of(new PatientContact(2L, "patient@example.com", "0600000000")));
         when(messageSource.getMessage(eq("email.exists"), any(), any(Locale.class)))
                 .thenReturn("Email already exists");
 
@@ -155,12 +317,10 @@ class PatientServiceImplTest {
 
     @Test
     void updatePatientKO_TelephoneExists() {
-        Patient existing = getPatient();
-        existing.setId(2L);
-
         when(repository.findById(anyLong())).thenReturn(Optional.of(getPatient()));
-        when(repository.findByEmail(anyString())).thenReturn(Optional.of(getPatient())); // same id
-        when(repository.findByTelephone(anyString())).thenReturn(Optional.of(existing));
+        when(repository.findContacts(anyString(), anyString())).thenReturn(List.of(
+                new PatientContact(1L, "patient@example.com", "0700000000"), // same id
+                new PatientContact(2L, "autre@example.com", "0102030405")));
         when(messageSource.getMessage(eq("telephone.exists"), any(), any(Locale.class)))
                 .thenReturn("Telephone already exists");
 
@@ -177,6 +337,8 @@ class PatientServiceImplTest {
         service.deletePatientById(1L);
 
         verify(repository, times(1)).delete(any());
+        verify(nearCacheInvalidator, times(1)).patientChanged(1L);
+        verify(searchIndex).remove(1L);
     }
 
     @Test
@@ -191,6 +353,24 @@ class PatientServiceImplTest {
         assertEquals("Patient not found", exception.getMessage());
     }
 
+    @Test
+    void exportPatients_WritesOneLinePerPatient() throws Exception {
+        Patient first = getPatient();
+        Patient second = getPatient();
+        second.setId(2L);
+        when(repository.streamAll()).thenReturn(Stream.of(first, second));
+        when(mapper.toPatientResponse(any())).thenReturn(getPatientResponse());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.exportPatients(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("patient@example.com", objectMapper.readTree(lines[0]).get("email").asText());
+        verify(entityManager, times(1)).detach(first);
+        verify(entityManager, times(1)).detach(second);
+    }
+
     // Méthodes utilitaires
     private PatientRequest getPatientRequest() {
         PatientRequest request = new PatientRequest();
@@ -227,7 +407,8 @@ class PatientServiceImplTest {
                 "M",
                 "123 Main St",
                 "0102030405",
-                "patient@example.com"
+                "patient@example.com",
+                0L
         );
     }
 }
\ No newline at end of file
@@ -1,9 +1,16 @@
 package com.isi.rdv.config;
 
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
 import org.springframework.context.MessageSource;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.support.ResourceBundleMessageSource;
+import org.springframework.core.task.support.ContextPropagatingTaskDecorator;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 public class ApplicationConfig {
@@ -16,4 +23,32 @@ public class ApplicationConfig {
         return messageSource;
     }
 
+    /**
+     * Executor des appels distants (patient-service, medecin-service) lances en parallele.
+     * Le contexte de tracing est propage aux threads du pool. File pleine, l'appel s'execute
+     * sur le thread de la requete plutot que d'etre rejete. Injecte seulement par son nom,
+     * pour ne pas remplacer l'executor applicatif.
+     */
+    @Bean(defaultCandidate = false)
+    public ThreadPoolTaskExecutor lookupExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(8);
+        executor.setMaxPoolSize(32);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("rdv-lookup-");
+        executor.setTaskDecorator(new ContextPropagatingTaskDecorator());
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+    /**
+     * Executor applicatif de Spring Boot (requetes MVC asynchrones, export NDJSON), declare
+     * explicitement : la presence de {@link #lookupExecutor()} le ferait sinon disparaitre.
+     */
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    public ThreadPoolTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
 }
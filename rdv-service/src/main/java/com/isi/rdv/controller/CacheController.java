@@ -0,0 +1,47 @@
+package com.isi.rdv.controller;
+
+import com.isi.rdv.medecin.MedecinLookup;
+import com.isi.rdv.patient.PatientLookup;
+import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Invalidation des caches proches, appelee par patient-service et medecin-service. Hors du
+ * prefixe /api/v1/rdv route par la gateway, qui refuse aussi les chemins {@code internal}.
+ */
+@AllArgsConstructor
+@RestController
+@RequestMapping("/internal/cache")
+public class CacheController {
+
+    private final PatientLookup patientLookup;
+    private final MedecinLookup medecinLookup;
+
+    @DeleteMapping("/patients/{id}")
+    public ResponseEntity<Void> evictPatient(@PathVariable("id") Long id) {
+        patientLookup.evict(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/patients/absent")
+    public ResponseEntity<Void> evictAbsentPatients() {
+        patientLookup.evictAbsent();
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/medecins/{id}")
+    public ResponseEntity<Void> evictMedecin(@PathVariable("id") Long id) {
+        medecinLookup.evict(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/medecins/absent")
+    public ResponseEntity<Void> evictAbsentMedecins() {
+        medecinLookup.evictAbsent();
+        return ResponseEntity.noContent().build();
+    }
+}
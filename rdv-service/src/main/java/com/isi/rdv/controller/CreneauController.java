@@ -0,0 +1,33 @@
+package com.isi.rdv.controller;
+
+import com.isi.rdv.dto.CreneauLibreResponse;
+import com.isi.rdv.service.CreneauService;
+import lombok.AllArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@AllArgsConstructor
+@RestController
+@RequestMapping("/api/v1/rdv/creneaux")
+public class CreneauController {
+
+    private final CreneauService service;
+
+    @GetMapping("/libres")
+    public ResponseEntity<List<CreneauLibreResponse>> findCreneauxLibres(
+            @RequestParam("specialite") String specialite,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "duree", defaultValue = "30") int duree,
+            @RequestParam(value = "limit", defaultValue = "1") int limit) {
+        return ResponseEntity.status(HttpStatus.OK).body(service.findCreneauxLibres(specialite, from, to, duree, limit));
+    }
+}
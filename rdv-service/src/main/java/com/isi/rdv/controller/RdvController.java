@@ -1,6 +1,10 @@
 package com.isi.rdv.controller;
 
 
+import com.isi.rdv.dto.RdvBatchRequest;
+import com.isi.rdv.dto.RdvFieldsPageResponse;
+import com.isi.rdv.dto.RdvFilter;
+import com.isi.rdv.dto.RdvPageResponse;
 import com.isi.rdv.dto.RdvRequest;
 import com.isi.rdv.dto.RdvResponse;
 import com.isi.rdv.service.RdvService;
@@ -9,10 +13,13 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Set;
 
 @AllArgsConstructor
 @Getter
@@ -31,14 +38,34 @@ public class RdvController {
         return ResponseEntity.status(HttpStatus.CREATED).body(service.newRdv(request));
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<List<RdvResponse>> newRdvs(@Valid @RequestBody RdvBatchRequest request) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(service.newRdvs(request.getRdvs()));
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<RdvResponse> getRdvById(@PathVariable("id") Long id){
-        return ResponseEntity.status(HttpStatus.OK).body(service.getRdvById(id));
+    public ResponseEntity<RdvResponse> getRdvById(
+            @PathVariable("id") Long id,
+            @RequestParam(value = "expand", required = false) Set<String> expand){
+        return ResponseEntity.status(HttpStatus.OK).body(service.getRdvById(id, expand));
     }
 
     @GetMapping("all")
-    public ResponseEntity<List<RdvResponse>> getAllRdv(){
-        return ResponseEntity.status(HttpStatus.OK).body(service.getAllRdv());
+    public ResponseEntity<RdvPageResponse> getAllRdv(
+            RdvFilter filter,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            @RequestParam(value = "expand", required = false) Set<String> expand) {
+        return ResponseEntity.status(HttpStatus.OK).body(service.getAllRdv(filter, cursor, size, expand));
+    }
+
+    @GetMapping(value = "all", params = "fields")
+    public ResponseEntity<RdvFieldsPageResponse> getAllRdvFields(
+            RdvFilter filter,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            @RequestParam("fields") List<String> fields) {
+        return ResponseEntity.status(HttpStatus.OK).body(service.getAllRdvFields(filter, cursor, size, fields));
     }
 
     @PutMapping("update")
@@ -53,5 +80,10 @@ public class RdvController {
         service.deleteRdvById(id);
         return ResponseEntity.noContent().build();
     }
-}
 
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportRdv() {
+        StreamingResponseBody body = service::exportRdv;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+}
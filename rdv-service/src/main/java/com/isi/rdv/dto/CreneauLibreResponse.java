@@ -0,0 +1,19 @@
+package com.isi.rdv.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class CreneauLibreResponse {
+
+    private Long medecinId;
+    private LocalDateTime debut;
+    private LocalDateTime fin;
+}
@@ -0,0 +1,19 @@
+package com.isi.rdv.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.Map;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class RdvFieldsPageResponse {
+
+    private List<Map<String, Object>> content;
+    private String nextCursor;
+}
@@ -1,6 +1,8 @@
 package com.isi.rdv.dto;
 
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -17,6 +19,10 @@ public class RdvRequest {
     private Long id;
     @NotNull(message = "Date requise")
     private LocalDateTime date;
+    // Au plus une journee : l'index des creneaux remonte de la plus longue duree pour chercher un chevauchement
+    @Positive(message = "Duree invalide")
+    @Max(value = 1440, message = "Duree invalide")
+    private Integer duree;
     private String motif;
     @NotNull(message = "patient requis")
     private Long patientId;
@@ -1,5 +1,6 @@
 package com.isi.rdv.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -16,13 +17,20 @@ public class RdvResponse {
 
     private Long id;
     private LocalDateTime date;
+    private Integer duree;
     private String motif;
     private Long patientId;
     private Long medecinId;
 
-//    private String patientName;
-//    private String patientPrenom;
-//    private String patientEmail;
-//    private String medecinName;
-//    private String medecinPrenom;
+    // Renseignes seulement avec ?expand=patient,medecin
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String patientName;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String patientPrenom;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String patientEmail;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String medecinName;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String medecinPrenom;
 }
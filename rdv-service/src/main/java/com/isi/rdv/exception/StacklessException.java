@@ -0,0 +1,14 @@
+package com.isi.rdv.exception;
+
+/**
+ * Base des erreurs metier. Un 404 ou un conflit est un resultat attendu (les clients
+ * sondent des ids) : le gestionnaire n'en lit que le message, aucune pile d'appels
+ * n'est donc capturee.
+ */
+public abstract class StacklessException extends RuntimeException {
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -5,6 +5,7 @@ import com.isi.rdv.dto.RdvRequest;
 import com.isi.rdv.dto.RdvResponse;
 import com.isi.rdv.model.Rdv;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
 import java.util.List;
 
@@ -12,6 +13,11 @@ import java.util.List;
 public interface RdvMapper {
 
     Rdv toRdv (RdvRequest request);
+    @Mapping(target = "patientName", ignore = true)
+    @Mapping(target = "patientPrenom", ignore = true)
+    @Mapping(target = "patientEmail", ignore = true)
+    @Mapping(target = "medecinName", ignore = true)
+    @Mapping(target = "medecinPrenom", ignore = true)
     RdvResponse toRdvResponse(Rdv rdv);
     List<RdvResponse> toRdvResponseList(List<Rdv> rdvs);
 }
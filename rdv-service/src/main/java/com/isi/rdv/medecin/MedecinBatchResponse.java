@@ -0,0 +1,19 @@
+package com.isi.rdv.medecin;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.Set;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class MedecinBatchResponse {
+
+    private List<MedecinResponse> medecins;
+    private Set<Long> missingIds;
+}
@@ -3,7 +3,10 @@ package com.isi.rdv.medecin;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @FeignClient(
@@ -12,4 +15,10 @@ import java.util.Optional;
 public interface MedecinClient {
     @GetMapping("/api/v1/medecins/{medecin-id}")
     Optional<MedecinResponse> findMedecinById(@PathVariable("medecin-id") Long medecinId);
-}
\ No newline at end of file
+
+    @GetMapping("/api/v1/medecins")
+    MedecinBatchResponse findMedecinsByIds(@RequestParam("ids") Collection<Long> medecinIds);
+
+    @GetMapping("/api/v1/medecins/horaires")
+    List<PlageHoraireResponse> findHorairesBySpecialite(@RequestParam("specialite") String specialite);
+}
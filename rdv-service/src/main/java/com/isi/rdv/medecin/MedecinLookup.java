@@ -0,0 +1,108 @@
+package com.isi.rdv.medecin;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.isi.rdv.config.NearCacheExpiry;
+import feign.FeignException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Cache proche (read-through) devant {@link MedecinClient}. Les medecins absents sont
+ * aussi mis en cache, avec une duree de vie courte. medecin-service invalide les
+ * entrees via {@code DELETE /internal/cache/medecins/{id}} apres une modification,
+ * et vide les absents apres une creation.
+ * Les plages horaires par specialite sont cachees a cote et videes a chaque invalidation.
+ */
+@Component
+public class MedecinLookup {
+
+    static final int MAX_BATCH_SIZE = 100;
+
+    private final MedecinClient medecinClient;
+    private final Cache<Long, Optional<MedecinResponse>> cache;
+    private final Cache<String, List<PlageHoraireResponse>> horaires;
+
+    public MedecinLookup(MedecinClient medecinClient,
+                         MeterRegistry meterRegistry,
+                         @Value("${rdv.near-cache.max-size:10000}") long maxSize,
+                         @Value("${rdv.near-cache.ttl:10m}") Duration ttl,
+                         @Value("${rdv.near-cache.negative-ttl:30s}") Duration negativeTtl) {
+        this.medecinClient = medecinClient;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new NearCacheExpiry<MedecinResponse>(ttl, negativeTtl))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "medecin-near-cache");
+        this.horaires = Caffeine.newBuilder()
+                .maximumSize(1_000)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, horaires, "horaires-near-cache");
+    }
+
+    public Optional<MedecinResponse> findMedecinById(Long medecinId) {
+        return cache.get(medecinId, this::load);
+    }
+
+    /**
+     * Resout plusieurs medecins : seuls les identifiants absents du cache sont
+     * demandes a medecin-service, par lots de {@value #MAX_BATCH_SIZE}.
+     */
+    public Map<Long, MedecinResponse> findMedecinsByIds(Collection<Long> medecinIds) {
+        Map<Long, MedecinResponse> medecins = new HashMap<>();
+        cache.getAll(medecinIds, this::loadAll)
+                .forEach((id, medecin) -> medecin.ifPresent(value -> medecins.put(id, value)));
+        return medecins;
+    }
+
+    public List<PlageHoraireResponse> findHorairesBySpecialite(String specialite) {
+        return horaires.get(specialite, medecinClient::findHorairesBySpecialite);
+    }
+
+    public void evict(Long medecinId) {
+        cache.invalidate(medecinId);
+        horaires.invalidateAll();
+    }
+
+    /**
+     * Vide les medecins mis en cache comme absents, seule forme sous laquelle un medecin
+     * nouvellement cree peut y figurer ; les plages par specialite sont rechargees aussi.
+     */
+    public void evictAbsent() {
+        cache.asMap().values().removeIf(Optional::isEmpty);
+        horaires.invalidateAll();
+    }
+
+    private Optional<MedecinResponse> load(Long medecinId) {
+        try {
+            return medecinClient.findMedecinById(medecinId);
+        } catch (FeignException.NotFound e) {
+            return Optional.empty();
+        }
+    }
+
+    private Map<Long, Optional<MedecinResponse>> loadAll(Set<? extends Long> medecinIds) {
+        List<Long> ids = new ArrayList<>(medecinIds);
+        Map<Long, Optional<MedecinResponse>> loaded = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += MAX_BATCH_SIZE) {
+            var batch = medecinClient.findMedecinsByIds(ids.subList(from, Math.min(from + MAX_BATCH_SIZE, ids.size())));
+            batch.getMedecins().forEach(medecin -> loaded.put(medecin.getId(), Optional.of(medecin)));
+            batch.getMissingIds().forEach(id -> loaded.put(id, Optional.empty()));
+        }
+        return loaded;
+    }
+}
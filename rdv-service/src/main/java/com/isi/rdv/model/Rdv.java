@@ -11,12 +11,18 @@ import java.time.LocalDateTime;
 @Getter
 @Setter
 @Builder
-@Table(name = "rdv")
+@Table(name = "rdv", indexes = {
+        @Index(name = "idx_rdv_date_id", columnList = "date, id"),
+        @Index(name = "idx_rdv_medecin_date", columnList = "medecin_id, date, id"),
+        @Index(name = "idx_rdv_patient_date", columnList = "patient_id, date, id")
+})
 public class Rdv {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "rdv_seq")
+    @SequenceGenerator(name = "rdv_seq", sequenceName = "rdv_seq", allocationSize = 50)
     private Long id;
     private LocalDateTime date;
+    private Integer duree;
     private String motif;
     private Long patientId;
     private Long medecinId;
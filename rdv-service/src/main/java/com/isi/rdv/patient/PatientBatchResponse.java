@@ -0,0 +1,19 @@
+package com.isi.rdv.patient;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.Set;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class PatientBatchResponse {
+
+    private List<PatientResponse> patients;
+    private Set<Long> missingIds;
+}
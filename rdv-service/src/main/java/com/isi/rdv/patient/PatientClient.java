@@ -3,7 +3,9 @@ package com.isi.rdv.patient;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 
+import java.util.Collection;
 import java.util.Optional;
 
 @FeignClient(
@@ -14,4 +16,6 @@ public interface PatientClient {
     @GetMapping("/api/v1/patients/{patient-id}")
     Optional<PatientResponse> findPatientById(@PathVariable("patient-id") Long patientId);
 
+    @GetMapping("/api/v1/patients")
+    PatientBatchResponse findPatientsByIds(@RequestParam("ids") Collection<Long> patientIds);
 }
@@ -0,0 +1,122 @@
+package com.isi.rdv.planning;
+
+import com.isi.rdv.medecin.PlageHoraireResponse;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Recherche de creneaux libres. Une journee de medecin est un {@link BitSet} de
+ * {@value #QUARTS_PAR_JOUR} quarts d'heure : les plages de travail allument des bits,
+ * les creneaux de {@link SlotIndex} les eteignent. Un creneau de k quarts commence la ou
+ * le ET des k decalages successifs de la journee garde un bit allume. Les medecins sont
+ * parcourus en parallele (fork-join).
+ */
+@Component
+@AllArgsConstructor
+public class FreeSlotFinder {
+
+    public static final int QUARTS_PAR_JOUR = 96;
+    public static final int MINUTES_PAR_QUART = 15;
+
+    private final SlotIndex slotIndex;
+
+    public record Creneau(Long medecinId, LocalDateTime debut, LocalDateTime fin) {
+    }
+
+    /**
+     * Premier creneau libre de chaque medecin dans [from, to[, les plus tot d'abord,
+     * au plus {@code limit} resultats.
+     */
+    public List<Creneau> findFirstFree(List<PlageHoraireResponse> horaires, LocalDateTime from, LocalDateTime to,
+                                       int duree, int limit) {
+        int quarts = (duree + MINUTES_PAR_QUART - 1) / MINUTES_PAR_QUART;
+        return semaines(horaires).entrySet().parallelStream()
+                .map(semaine -> firstFree(semaine.getKey(), semaine.getValue(), from, to, quarts))
+                .flatMap(Optional::stream)
+                .sorted(Comparator.comparing(Creneau::debut).thenComparing(Creneau::medecinId))
+                .limit(limit)
+                .toList();
+    }
+
+    private Optional<Creneau> firstFree(Long medecinId, BitSet[] semaine, LocalDateTime from, LocalDateTime to, int quarts) {
+        for (LocalDate jour = from.toLocalDate(); jour.atStartOfDay().isBefore(to); jour = jour.plusDays(1)) {
+            BitSet modele = semaine[jour.getDayOfWeek().ordinal()];
+            if (modele.isEmpty()) {
+                continue;
+            }
+            LocalDateTime debutJour = jour.atStartOfDay();
+            BitSet libres = (BitSet) modele.clone();
+            for (SlotIndex.Slot slot : slotIndex.slotsBetween(medecinId, debutJour, debutJour.plusDays(1))) {
+                libres.clear(quartAvant(debutJour, slot.debut()), quartApres(debutJour, slot.fin()));
+            }
+            libres.clear(0, quartApres(debutJour, from));
+            libres.clear(quartAvant(debutJour, to), QUARTS_PAR_JOUR);
+            int debut = firstRun(libres, quarts);
+            if (debut >= 0) {
+                LocalDateTime debutCreneau = debutJour.plusMinutes((long) debut * MINUTES_PAR_QUART);
+                return Optional.of(new Creneau(medecinId, debutCreneau,
+                        debutCreneau.plusMinutes((long) quarts * MINUTES_PAR_QUART)));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Premier indice a partir duquel {@code quarts} bits consecutifs sont allumes, -1 sinon.
+     */
+    static int firstRun(BitSet libres, int quarts) {
+        BitSet run = (BitSet) libres.clone();
+        for (int i = 1; i < quarts && !run.isEmpty(); i++) {
+            run.and(libres.get(i, QUARTS_PAR_JOUR));
+        }
+        return run.nextSetBit(0);
+    }
+
+    /**
+     * Semaine type de chaque medecin : un BitSet par jour, indexe par {@code DayOfWeek.ordinal()}.
+     */
+    private static Map<Long, BitSet[]> semaines(List<PlageHoraireResponse> horaires) {
+        Map<Long, BitSet[]> semaines = new HashMap<>();
+        for (PlageHoraireResponse plage : horaires) {
+            BitSet[] semaine = semaines.computeIfAbsent(plage.getMedecinId(), id -> {
+                BitSet[] jours = new BitSet[7];
+                for (int i = 0; i < jours.length; i++) {
+                    jours[i] = new BitSet(QUARTS_PAR_JOUR);
+                }
+                return jours;
+            });
+            int debut = (minutes(plage.getHeureDebut()) + MINUTES_PAR_QUART - 1) / MINUTES_PAR_QUART;
+            int fin = minutes(plage.getHeureFin()) / MINUTES_PAR_QUART;
+            if (debut < fin) {
+                semaine[plage.getJour().ordinal()].set(debut, fin);
+            }
+        }
+        return semaines;
+    }
+
+    private static int minutes(LocalTime heure) {
+        return heure.toSecondOfDay() / 60;
+    }
+
+    private static int quartAvant(LocalDateTime debutJour, LocalDateTime instant) {
+        long minutes = Duration.between(debutJour, instant).toMinutes();
+        return minutes <= 0 ? 0 : (int) Math.min(minutes / MINUTES_PAR_QUART, QUARTS_PAR_JOUR);
+    }
+
+    private static int quartApres(LocalDateTime debutJour, LocalDateTime instant) {
+        long secondes = Duration.between(debutJour, instant).toSeconds();
+        long quart = MINUTES_PAR_QUART * 60L;
+        return secondes <= 0 ? 0 : (int) Math.min((secondes + quart - 1) / quart, QUARTS_PAR_JOUR);
+    }
+}
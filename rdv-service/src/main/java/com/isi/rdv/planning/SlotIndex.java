@@ -0,0 +1,305 @@
+package com.isi.rdv.planning;
+
+import com.isi.rdv.model.Rdv;
+import com.isi.rdv.repository.RdvRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * Index en memoire des creneaux occupes, par medecin : une TreeMap triee par heure de
+ * debut. Un chevauchement se cherche parmi les creneaux qui commencent moins d'une duree
+ * maximale avant le nouveau et avant sa fin, ce qui reste juste pour des rendez-vous
+ * anterieurs a l'index qui se chevaucheraient ou commenceraient au meme moment.
+ * Les reservations d'un meme medecin sont serialisees par un verrou choisi parmi
+ * {@value #STRIPES}, ce qui laisse les medecins differents reserver en parallele.
+ * Dans une transaction, une reservation est annulee dans l'index si elle n'est pas validee.
+ */
+@Component
+@Slf4j
+public class SlotIndex {
+
+    public static final int DEFAULT_DUREE = 30;
+    private static final int STRIPES = 64;
+
+    private final RdvRepository repository;
+    private final EntityManager entityManager;
+    private final Map<Long, NavigableMap<LocalDateTime, List<Slot>>> slotsByMedecin = new ConcurrentHashMap<>();
+    private final Map<Long, Slot> slotsByRdv = new ConcurrentHashMap<>();
+    private final AtomicInteger longestDuree = new AtomicInteger(DEFAULT_DUREE);
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    public SlotIndex(RdvRepository repository, EntityManager entityManager) {
+        this.repository = repository;
+        this.entityManager = entityManager;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public record Slot(Long rdvId, Long medecinId, LocalDateTime debut, LocalDateTime fin) {
+
+        boolean belongsTo(Long id) {
+            return rdvId != null && rdvId.equals(id);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        slotsByMedecin.clear();
+        slotsByRdv.clear();
+        try (Stream<Rdv> rdvs = repository.streamAll()) {
+            rdvs.forEach(rdv -> {
+                Slot slot = slotOf(rdv, rdv.getId());
+                NavigableMap<LocalDateTime, List<Slot>> slots = slotsFor(slot.medecinId());
+                Slot overlap = findOverlap(slots, slot);
+                if (overlap != null) {
+                    log.warn("Rendez-vous {} et {} se chevauchent pour le medecin {}",
+                            overlap.rdvId(), slot.rdvId(), slot.medecinId());
+                }
+                add(slots, slot);
+                entityManager.detach(rdv);
+            });
+        }
+        log.info("Index des creneaux construit : {} rendez-vous", slotsByRdv.size());
+    }
+
+    /**
+     * Reserve le creneau du rendez-vous puis l'enregistre avec {@code save}, sous le verrou
+     * du medecin. Pour une mise a jour, l'ancien creneau du rendez-vous est libere ; il est
+     * remis en place si la transaction en cours est annulee. L'ancien creneau est relu une fois
+     * les verrous pris : si une mise a jour concurrente l'a deplace chez un medecin dont le
+     * verrou n'est pas tenu, les verrous sont rendus et la reservation reprend.
+     *
+     * @throws RuntimeException l'exception fournie par {@code onConflict} si le creneau est pris
+     */
+    public Rdv reserve(Rdv rdv, UnaryOperator<Rdv> save, Supplier<? extends RuntimeException> onConflict) {
+        while (true) {
+            Slot seen = previousSlot(rdv);
+            int wantedStripe = stripe(rdv.getMedecinId());
+            int previousStripe = seen == null ? wantedStripe : stripe(seen.medecinId());
+            ReentrantLock first = lockFor(Math.min(wantedStripe, previousStripe));
+            ReentrantLock second = lockFor(Math.max(wantedStripe, previousStripe));
+            first.lock();
+            second.lock();
+            try {
+                Slot previous = previousSlot(rdv);
+                if (previous != null && stripe(previous.medecinId()) != wantedStripe
+                        && stripe(previous.medecinId()) != previousStripe) {
+                    continue;
+                }
+                return reserveLocked(rdv, previous, save, onConflict);
+            } finally {
+                second.unlock();
+                first.unlock();
+            }
+        }
+    }
+
+    private Rdv reserveLocked(Rdv rdv, Slot previous, UnaryOperator<Rdv> save, Supplier<? extends RuntimeException> onConflict) {
+        Slot wanted = slotOf(rdv, rdv.getId());
+        NavigableMap<LocalDateTime, List<Slot>> slots = slotsFor(wanted.medecinId());
+        if (findOverlap(slots, wanted) != null) {
+            throw onConflict.get();
+        }
+        Rdv saved = save.apply(rdv);
+        if (previous != null) {
+            remove(previous);
+        }
+        Slot slot = slotOf(saved, saved.getId());
+        add(slots, slot);
+        Long previousMedecinId = previous == null ? slot.medecinId() : previous.medecinId();
+        onRollback(List.of(slot.medecinId(), previousMedecinId), () -> {
+            remove(slot);
+            if (previous != null) {
+                add(slotsFor(previous.medecinId()), previous);
+            }
+        });
+        return saved;
+    }
+
+    private Slot previousSlot(Rdv rdv) {
+        return rdv.getId() == null ? null : slotsByRdv.get(rdv.getId());
+    }
+
+    /**
+     * Variante groupee de {@link #reserve} pour des rendez-vous nouveaux : les verrous de tous
+     * les medecins du lot sont pris une fois, dans l'ordre, puis chaque creneau est compare a
+     * l'index et aux autres rendez-vous du lot avant l'enregistrement par {@code saveAll}.
+     * Rien n'est indexe si un creneau est pris ou si l'enregistrement echoue, et le lot est
+     * retire de l'index si la transaction en cours est annulee.
+     *
+     * @throws RuntimeException l'exception fournie par {@code onConflict} pour le premier creneau pris
+     */
+    public List<Rdv> reserveAll(List<Rdv> rdvs, UnaryOperator<List<Rdv>> saveAll,
+                                Function<Rdv, ? extends RuntimeException> onConflict) {
+        int[] stripes = rdvs.stream().mapToInt(rdv -> stripe(rdv.getMedecinId())).distinct().sorted().toArray();
+        for (int stripe : stripes) {
+            lockFor(stripe).lock();
+        }
+        try {
+            Map<Long, NavigableMap<LocalDateTime, List<Slot>>> pending = new HashMap<>();
+            for (Rdv rdv : rdvs) {
+                Slot wanted = slotOf(rdv, null);
+                NavigableMap<LocalDateTime, List<Slot>> batchSlots = pending.computeIfAbsent(wanted.medecinId(), id -> new TreeMap<>());
+                if (findOverlap(slotsFor(wanted.medecinId()), wanted) != null || findOverlap(batchSlots, wanted) != null) {
+                    throw onConflict.apply(rdv);
+                }
+                batchSlots.computeIfAbsent(wanted.debut(), debut -> new ArrayList<>(1)).add(wanted);
+            }
+            List<Rdv> saved = saveAll.apply(rdvs);
+            List<Slot> added = new ArrayList<>(saved.size());
+            for (Rdv rdv : saved) {
+                Slot slot = slotOf(rdv, rdv.getId());
+                add(slotsFor(slot.medecinId()), slot);
+                added.add(slot);
+            }
+            onRollback(added.stream().map(Slot::medecinId).toList(), () -> added.forEach(this::remove));
+            return saved;
+        } finally {
+            for (int i = stripes.length - 1; i >= 0; i--) {
+                lockFor(stripes[i]).unlock();
+            }
+        }
+    }
+
+    public void release(Long rdvId) {
+        Slot slot = slotsByRdv.get(rdvId);
+        if (slot == null) {
+            return;
+        }
+        ReentrantLock lock = lockFor(stripe(slot.medecinId()));
+        lock.lock();
+        try {
+            remove(slot);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Creneaux du medecin qui chevauchent l'intervalle [debut, fin[, tries par heure de debut.
+     */
+    public List<Slot> slotsBetween(Long medecinId, LocalDateTime debut, LocalDateTime fin) {
+        NavigableMap<LocalDateTime, List<Slot>> slots = slotsByMedecin.get(medecinId);
+        if (slots == null) {
+            return List.of();
+        }
+        ReentrantLock lock = lockFor(stripe(medecinId));
+        lock.lock();
+        try {
+            List<Slot> result = new ArrayList<>();
+            for (List<Slot> starting : slots.subMap(horizon(debut), false, fin, false).values()) {
+                for (Slot slot : starting) {
+                    if (slot.fin().isAfter(debut)) {
+                        result.add(slot);
+                    }
+                }
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Slot findOverlap(NavigableMap<LocalDateTime, List<Slot>> slots, Slot wanted) {
+        for (List<Slot> starting : slots.subMap(horizon(wanted.debut()), false, wanted.fin(), false).values()) {
+            for (Slot slot : starting) {
+                if (!slot.belongsTo(wanted.rdvId()) && slot.fin().isAfter(wanted.debut())) {
+                    return slot;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Aucun creneau commencant a cette heure ou avant ne peut encore etre en cours a {@code debut}.
+     */
+    private LocalDateTime horizon(LocalDateTime debut) {
+        return debut.minusMinutes(longestDuree.get());
+    }
+
+    private void add(NavigableMap<LocalDateTime, List<Slot>> slots, Slot slot) {
+        longestDuree.accumulateAndGet((int) Duration.between(slot.debut(), slot.fin()).toMinutes(), Math::max);
+        slots.computeIfAbsent(slot.debut(), debut -> new ArrayList<>(1)).add(slot);
+        slotsByRdv.put(slot.rdvId(), slot);
+    }
+
+    private void remove(Slot slot) {
+        NavigableMap<LocalDateTime, List<Slot>> slots = slotsFor(slot.medecinId());
+        List<Slot> starting = slots.get(slot.debut());
+        if (starting != null && starting.remove(slot) && starting.isEmpty()) {
+            slots.remove(slot.debut());
+        }
+        slotsByRdv.remove(slot.rdvId(), slot);
+    }
+
+    /**
+     * L'annulation reprend les verrous des medecins concernes : la transaction se termine
+     * apres la sortie de {@link #reserve} ou {@link #reserveAll}.
+     */
+    private void onRollback(List<Long> medecinIds, Runnable undo) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    return;
+                }
+                int[] stripes = medecinIds.stream().mapToInt(SlotIndex::stripe).distinct().sorted().toArray();
+                for (int stripe : stripes) {
+                    lockFor(stripe).lock();
+                }
+                try {
+                    undo.run();
+                } finally {
+                    for (int i = stripes.length - 1; i >= 0; i--) {
+                        lockFor(stripes[i]).unlock();
+                    }
+                }
+            }
+        });
+    }
+
+    private NavigableMap<LocalDateTime, List<Slot>> slotsFor(Long medecinId) {
+        return slotsByMedecin.computeIfAbsent(medecinId, id -> new TreeMap<>());
+    }
+
+    private static Slot slotOf(Rdv rdv, Long rdvId) {
+        int duree = rdv.getDuree() == null ? DEFAULT_DUREE : rdv.getDuree();
+        return new Slot(rdvId, rdv.getMedecinId(), rdv.getDate(), rdv.getDate().plusMinutes(duree));
+    }
+
+    private static int stripe(Long medecinId) {
+        return Math.floorMod(medecinId.hashCode(), STRIPES);
+    }
+
+    private ReentrantLock lockFor(int stripe) {
+        return locks[stripe];
+    }
+}
@@ -0,0 +1,23 @@
+package com.isi.rdv.repository;
+
+import com.isi.rdv.model.Rdv;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fragment de {@link RdvRepository} pour les pages allegees ({@code fields=}).
+ */
+public interface RdvFieldsRepository {
+
+    /**
+     * Champs selectionnables : ceux de RdvResponse hors enrichissement (expand).
+     */
+    List<String> FIELDS = List.of("id", "date", "duree", "motif", "patientId", "medecinId");
+
+    /**
+     * Rendez-vous filtres dans l'ordre {@link RdvSpecifications#KEYSET_ORDER}, reduits aux champs donnes.
+     */
+    List<Map<String, Object>> findAllFields(Specification<Rdv> specification, List<String> fields, int limit);
+}
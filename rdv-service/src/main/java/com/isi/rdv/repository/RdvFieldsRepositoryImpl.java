@@ -0,0 +1,21 @@
+package com.isi.rdv.repository;
+
+import com.isi.commons.jpa.FieldProjection;
+import com.isi.rdv.model.Rdv;
+import jakarta.persistence.EntityManager;
+import lombok.AllArgsConstructor;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Map;
+
+@AllArgsConstructor
+class RdvFieldsRepositoryImpl implements RdvFieldsRepository {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> findAllFields(Specification<Rdv> specification, List<String> fields, int limit) {
+        return FieldProjection.select(entityManager, Rdv.class, fields, specification, RdvSpecifications.KEYSET_ORDER, limit);
+    }
+}
@@ -1,7 +1,21 @@
 package com.isi.rdv.repository;
 
 import com.isi.rdv.model.Rdv;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
-public interface RdvRepository extends JpaRepository<Rdv, Long> {
+import java.util.stream.Stream;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+public interface RdvRepository extends JpaRepository<Rdv, Long>, JpaSpecificationExecutor<Rdv>, RdvFieldsRepository {
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select r from Rdv r order by r.id")
+    Stream<Rdv> streamAll();
 }
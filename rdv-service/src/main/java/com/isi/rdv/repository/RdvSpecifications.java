@@ -0,0 +1,50 @@
+package com.isi.rdv.repository;
+
+import com.isi.rdv.dto.RdvFilter;
+import com.isi.rdv.model.Rdv;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class RdvSpecifications {
+
+    /**
+     * Ordre de parcours des pages : il doit rester aligne sur les index (.., date, id) de la table rdv.
+     */
+    public static final Sort KEYSET_ORDER = Sort.by("date", "id");
+
+    private RdvSpecifications() {
+    }
+
+    /**
+     * Filtres de la liste ; seuls les criteres renseignes sont ajoutes a la requete.
+     */
+    public static Specification<Rdv> matching(RdvFilter filter) {
+        List<Specification<Rdv>> specifications = new ArrayList<>();
+        if (filter.getMedecinId() != null) {
+            specifications.add((root, query, cb) -> cb.equal(root.get("medecinId"), filter.getMedecinId()));
+        }
+        if (filter.getPatientId() != null) {
+            specifications.add((root, query, cb) -> cb.equal(root.get("patientId"), filter.getPatientId()));
+        }
+        if (filter.getFrom() != null) {
+            specifications.add((root, query, cb) -> cb.greaterThanOrEqualTo(root.get("date"), filter.getFrom()));
+        }
+        if (filter.getTo() != null) {
+            specifications.add((root, query, cb) -> cb.lessThan(root.get("date"), filter.getTo()));
+        }
+        return Specification.allOf(specifications);
+    }
+
+    /**
+     * Rendez-vous situes apres la position (date, id) dans l'ordre {@link #KEYSET_ORDER}.
+     */
+    public static Specification<Rdv> after(LocalDateTime date, Long id) {
+        return (root, query, cb) -> cb.or(
+                cb.greaterThan(root.get("date"), date),
+                cb.and(cb.equal(root.get("date"), date), cb.greaterThan(root.get("id"), id)));
+    }
+}
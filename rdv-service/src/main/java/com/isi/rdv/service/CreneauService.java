@@ -0,0 +1,11 @@
+package com.isi.rdv.service;
+
+import com.isi.rdv.dto.CreneauLibreResponse;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface CreneauService {
+
+    List<CreneauLibreResponse> findCreneauxLibres(String specialite, LocalDateTime from, LocalDateTime to, int duree, int limit);
+}
@@ -1,16 +1,26 @@
 package com.isi.rdv.service;
 
 
+import com.isi.rdv.dto.RdvFieldsPageResponse;
+import com.isi.rdv.dto.RdvFilter;
+import com.isi.rdv.dto.RdvPageResponse;
 import com.isi.rdv.dto.RdvRequest;
 import com.isi.rdv.dto.RdvResponse;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 public interface RdvService {
 
     RdvResponse newRdv(RdvRequest request);
-    RdvResponse getRdvById(Long id);
-    List<RdvResponse> getAllRdv();
+    List<RdvResponse> newRdvs(List<RdvRequest> requests);
+    RdvResponse getRdvById(Long id, Set<String> expand);
+    RdvPageResponse getAllRdv(RdvFilter filter, String cursor, int size, Set<String> expand);
+    RdvFieldsPageResponse getAllRdvFields(RdvFilter filter, String cursor, int size, Collection<String> fields);
     RdvResponse updateRdv(RdvRequest request);
     void deleteRdvById(Long id);
+    void exportRdv(OutputStream out) throws IOException;
 }
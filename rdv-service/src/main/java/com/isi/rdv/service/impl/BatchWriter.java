@@ -0,0 +1,37 @@
+package com.isi.rdv.service.impl;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Enregistre une liste d'entites par tranches de {@code chunkSize} : chaque tranche part en
+ * inserts JDBC groupes (hibernate.jdbc.batch_size), puis le contexte de persistance est vide
+ * pour que sa taille ne depende pas de celle du lot. A appeler dans une transaction.
+ */
+@Component
+public class BatchWriter {
+
+    private final EntityManager entityManager;
+    private final int chunkSize;
+
+    public BatchWriter(EntityManager entityManager,
+                       @Value("${rdv.batch.chunk-size:500}") int chunkSize) {
+        this.entityManager = entityManager;
+        this.chunkSize = chunkSize;
+    }
+
+    public <T> List<T> saveAll(JpaRepository<T, ?> repository, List<T> entities) {
+        List<T> saved = new ArrayList<>(entities.size());
+        for (int from = 0; from < entities.size(); from += chunkSize) {
+            saved.addAll(repository.saveAll(entities.subList(from, Math.min(from + chunkSize, entities.size()))));
+            entityManager.flush();
+            entityManager.clear();
+        }
+        return saved;
+    }
+}
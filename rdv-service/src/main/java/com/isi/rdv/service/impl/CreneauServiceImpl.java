@@ -0,0 +1,55 @@
+package com.isi.rdv.service.impl;
+
+import com.isi.rdv.dto.CreneauLibreResponse;
+import com.isi.rdv.exception.RequestException;
+import com.isi.rdv.medecin.MedecinLookup;
+import com.isi.rdv.planning.FreeSlotFinder;
+import com.isi.rdv.service.CreneauService;
+import lombok.AllArgsConstructor;
+import org.springframework.context.MessageSource;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Locale;
+
+@Service
+@AllArgsConstructor
+public class CreneauServiceImpl implements CreneauService {
+
+    public static final int DEFAULT_FENETRE_JOURS = 7;
+    public static final int MAX_FENETRE_JOURS = 31;
+    public static final int MAX_LIMIT = 100;
+
+    private final MedecinLookup medecinLookup;
+    private final FreeSlotFinder freeSlotFinder;
+    private final MessageSource messageSource;
+
+    /**
+     * Premiers creneaux libres des medecins d'une specialite. Les plages horaires viennent du
+     * cache proche et les rendez-vous de {@link com.isi.rdv.planning.SlotIndex} : aucune requete
+     * SQL n'est faite. Sans bornes, la recherche couvre les {@value #DEFAULT_FENETRE_JOURS}
+     * prochains jours.
+     */
+    @Override
+    public List<CreneauLibreResponse> findCreneauxLibres(String specialite, LocalDateTime from, LocalDateTime to,
+                                                         int duree, int limit) {
+        LocalDateTime debut = from == null ? LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES) : from;
+        LocalDateTime fin = to == null ? debut.plusDays(DEFAULT_FENETRE_JOURS) : to;
+        if (!debut.isBefore(fin) || debut.plusDays(MAX_FENETRE_JOURS).isBefore(fin)) {
+            throw new RequestException(messageSource.getMessage("creneau.window.invalid",
+                    new Object[]{debut, fin, MAX_FENETRE_JOURS}, Locale.getDefault()), HttpStatus.BAD_REQUEST);
+        }
+        if (duree <= 0 || duree > FreeSlotFinder.QUARTS_PAR_JOUR * FreeSlotFinder.MINUTES_PAR_QUART) {
+            throw new RequestException(messageSource.getMessage("creneau.duree.invalid",
+                    new Object[]{duree}, Locale.getDefault()), HttpStatus.BAD_REQUEST);
+        }
+        int max = Math.max(1, Math.min(limit, MAX_LIMIT));
+        return freeSlotFinder.findFirstFree(medecinLookup.findHorairesBySpecialite(specialite), debut, fin, duree, max)
+                .stream()
+                .map(creneau -> new CreneauLibreResponse(creneau.medecinId(), creneau.debut(), creneau.fin()))
+                .toList();
+    }
+}
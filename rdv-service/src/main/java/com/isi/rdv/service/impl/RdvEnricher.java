@@ -0,0 +1,96 @@
+package com.isi.rdv.service.impl;
+
+import com.isi.rdv.dto.RdvResponse;
+import com.isi.rdv.exception.RequestException;
+import com.isi.rdv.medecin.MedecinLookup;
+import com.isi.rdv.medecin.MedecinResponse;
+import com.isi.rdv.patient.PatientLookup;
+import com.isi.rdv.patient.PatientResponse;
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.MessageSource;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Complete des rendez-vous avec le nom du patient et du medecin ({@code ?expand=patient,medecin}).
+ * Les identifiants distincts de la page sont resolus par un seul appel groupe par service,
+ * les deux appels partant en parallele : le cout ne grandit pas avec la taille de la page.
+ */
+@Component
+@AllArgsConstructor
+public class RdvEnricher {
+
+    public static final String PATIENT = "patient";
+    public static final String MEDECIN = "medecin";
+
+    private final PatientLookup patientLookup;
+    private final MedecinLookup medecinLookup;
+    @Qualifier("lookupExecutor")
+    private final Executor lookupExecutor;
+    private final MessageSource messageSource;
+
+    public void enrich(List<RdvResponse> rdvs, Set<String> expand) {
+        if (expand == null || expand.isEmpty()) {
+            return;
+        }
+        expand.stream().filter(value -> !PATIENT.equals(value) && !MEDECIN.equals(value)).findFirst().ifPresent(value -> {
+            throw new RequestException(messageSource.getMessage("expand.invalid", new Object[]{value}, Locale.getDefault()),
+                    HttpStatus.BAD_REQUEST);
+        });
+        if (rdvs.isEmpty()) {
+            return;
+        }
+        CompletableFuture<Map<Long, PatientResponse>> patients = expand.contains(PATIENT)
+                ? CompletableFuture.supplyAsync(() -> patientLookup.findPatientsByIds(distinct(rdvs, RdvResponse::getPatientId)), lookupExecutor)
+                : CompletableFuture.completedFuture(Map.of());
+        CompletableFuture<Map<Long, MedecinResponse>> medecins = expand.contains(MEDECIN)
+                ? CompletableFuture.supplyAsync(() -> medecinLookup.findMedecinsByIds(distinct(rdvs, RdvResponse::getMedecinId)), lookupExecutor)
+                : CompletableFuture.completedFuture(Map.of());
+
+        Map<Long, PatientResponse> patientsById = join(patients);
+        Map<Long, MedecinResponse> medecinsById = join(medecins);
+        for (RdvResponse rdv : rdvs) {
+            PatientResponse patient = patientsById.get(rdv.getPatientId());
+            if (patient != null) {
+                rdv.setPatientName(patient.getNom());
+                rdv.setPatientPrenom(patient.getPrenom());
+                rdv.setPatientEmail(patient.getEmail());
+            }
+            MedecinResponse medecin = medecinsById.get(rdv.getMedecinId());
+            if (medecin != null) {
+                rdv.setMedecinName(medecin.getNom());
+                rdv.setMedecinPrenom(medecin.getPrenom());
+            }
+        }
+    }
+
+    private static Collection<Long> distinct(List<RdvResponse> rdvs, Function<RdvResponse, Long> id) {
+        Set<Long> ids = new LinkedHashSet<>();
+        rdvs.stream().map(id).filter(Objects::nonNull).forEach(ids::add);
+        return ids;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -1,23 +1,55 @@
 package com.isi.rdv.service.impl;
 
 
+import com.isi.commons.jpa.FieldProjection;
+import com.isi.rdv.dto.RdvFieldsPageResponse;
+import com.isi.rdv.dto.RdvFilter;
+import com.isi.rdv.dto.RdvPageResponse;
 import com.isi.rdv.dto.RdvRequest;
 import com.isi.rdv.dto.RdvResponse;
 import com.isi.rdv.exception.EntityNotFoundException;
+import com.isi.rdv.exception.RequestException;
 import com.isi.rdv.mapper.RdvMapper;
-import com.isi.rdv.medecin.MedecinClient;
+import com.isi.rdv.medecin.MedecinLookup;
+import com.isi.rdv.medecin.MedecinResponse;
 import com.isi.rdv.model.Rdv;
-import com.isi.rdv.patient.PatientClient;
+import com.isi.rdv.patient.PatientLookup;
+import com.isi.rdv.patient.PatientResponse;
+import com.isi.rdv.planning.SlotIndex;
 import com.isi.rdv.repository.RdvRepository;
+import com.isi.rdv.repository.RdvSpecifications;
 import com.isi.rdv.service.RdvService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.MessageSource;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
 
 
 @Service
@@ -26,39 +58,145 @@ import java.util.Locale;
 @Setter
 public class RdvServiceImpl implements RdvService {
 
+    private static final int EXPORT_FLUSH_SIZE = 500;
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+    public static final int MAX_CREATE_BATCH_SIZE = 10_000;
+
     private final RdvRepository repository;
     private final RdvMapper mapper;
     private final MessageSource messageSource;
-    private final PatientClient patientClient;
-    private final MedecinClient medecinClient;
+    private final PatientLookup patientLookup;
+    private final MedecinLookup medecinLookup;
+    @Qualifier("lookupExecutor")
+    private final Executor lookupExecutor;
+    private final SlotIndex slotIndex;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final BatchWriter batchWriter;
+    private final RdvEnricher enricher;
+    private final TransactionTemplate transactionTemplate;
 
     @Override
     public RdvResponse newRdv(RdvRequest request) {
 
-        var patient = this.patientClient.findPatientById(request.getPatientId())
-                .orElseThrow(() -> new EntityNotFoundException(messageSource.getMessage("patient.notfound",
-                        new Object[]{request.getPatientId()}, Locale.getDefault())));
-        var medecin = this.medecinClient.findMedecinById(request.getMedecinId())
-                .orElseThrow(() -> new EntityNotFoundException(messageSource.getMessage("medecin.notfound",
-                        new Object[]{request.getMedecinId()}, Locale.getDefault())));
+        checkParticipants(request);
 
         Rdv rdv = mapper.toRdv(request);
-        rdv.setPatientId(patient.getId());
-        rdv.setMedecinId(medecin.getId());
-        var saveRdv = repository.save(rdv);
+        rdv.setPatientId(request.getPatientId());
+        rdv.setMedecinId(request.getMedecinId());
+        if (rdv.getDuree() == null) {
+            rdv.setDuree(SlotIndex.DEFAULT_DUREE);
+        }
+        var saveRdv = slotIndex.reserve(rdv, repository::save, () -> slotTaken(rdv));
         return mapper.toRdvResponse(saveRdv);
     }
 
+    /**
+     * Cree un lot de rendez-vous : patients et medecins sont resolus par deux appels groupes
+     * en parallele, les creneaux sont reserves pour tout le lot d'un coup, puis les insertions
+     * partent par tranches via {@link BatchWriter}. La transaction n'est ouverte qu'une fois les
+     * participants resolus ; si elle echoue, {@link SlotIndex} libere les creneaux reserves.
+     */
+    @Override
+    public List<RdvResponse> newRdvs(List<RdvRequest> requests) {
+        if (requests.size() > MAX_CREATE_BATCH_SIZE) {
+            throw new RequestException(messageSource.getMessage("batch.create.size.exceeded",
+                    new Object[]{requests.size(), MAX_CREATE_BATCH_SIZE}, Locale.getDefault()), HttpStatus.BAD_REQUEST);
+        }
+        checkParticipants(requests);
+
+        List<Rdv> rdvs = requests.stream()
+                .map(request -> {
+                    Rdv rdv = mapper.toRdv(request);
+                    rdv.setId(null);
+                    rdv.setPatientId(request.getPatientId());
+                    rdv.setMedecinId(request.getMedecinId());
+                    if (rdv.getDuree() == null) {
+                        rdv.setDuree(SlotIndex.DEFAULT_DUREE);
+                    }
+                    return rdv;
+                })
+                .toList();
+        return transactionTemplate.execute(status -> mapper.toRdvResponseList(
+                slotIndex.reserveAll(rdvs, batch -> batchWriter.saveAll(repository, batch), this::slotTaken)));
+    }
+
     @Override
-    public RdvResponse getRdvById(Long id) {
-        return repository.findById(id)
+    public RdvResponse getRdvById(Long id, Set<String> expand) {
+        RdvResponse response = repository.findById(id)
                 .map(mapper::toRdvResponse)
                 .orElseThrow(() -> new EntityNotFoundException(messageSource.getMessage("rdv.notfound", new Object[]{id}, Locale.getDefault())));
+        enricher.enrich(List.of(response), expand);
+        return response;
     }
 
+    /**
+     * Liste paginee par cle (date, id) : chaque page reprend apres la derniere ligne de la
+     * precedente grace au curseur, sans OFFSET ni comptage, et ne charge que {@code size + 1} lignes.
+     * {@code expand} complete la page via {@link RdvEnricher}.
+     */
     @Override
-    public List<RdvResponse> getAllRdv() {
-        return mapper.toRdvResponseList(repository.findAll());
+    public RdvPageResponse getAllRdv(RdvFilter filter, String cursor, int size, Set<String> expand) {
+        int pageSize = pageSize(size);
+        Specification<Rdv> specification = pageSpecification(filter, cursor);
+        List<Rdv> rdvs = repository.findBy(specification, query -> query
+                .sortBy(RdvSpecifications.KEYSET_ORDER)
+                .limit(pageSize + 1)
+                .all());
+        String nextCursor = null;
+        if (rdvs.size() > pageSize) {
+            rdvs = rdvs.subList(0, pageSize);
+            Rdv last = rdvs.get(pageSize - 1);
+            nextCursor = encodeCursor(last.getDate(), last.getId());
+        }
+        List<RdvResponse> content = mapper.toRdvResponseList(rdvs);
+        enricher.enrich(content, expand);
+        return new RdvPageResponse(content, nextCursor);
+    }
+
+    /**
+     * Meme page que {@link #getAllRdv}, reduite aux champs demandes. La date et l'id sont lus
+     * dans tous les cas pour le curseur ; la date est retiree ensuite si elle n'est pas demandee.
+     */
+    @Override
+    public RdvFieldsPageResponse getAllRdvFields(RdvFilter filter, String cursor, int size, Collection<String> fields) {
+        List<String> selection = FieldProjection.selection(fields);
+        List<String> unknown = FieldProjection.unknown(selection, RdvRepository.FIELDS);
+        if (!unknown.isEmpty()) {
+            throw new RequestException(messageSource.getMessage("fields.invalid",
+                    new Object[]{String.join(", ", unknown), String.join(", ", RdvRepository.FIELDS)}, Locale.getDefault()),
+                    HttpStatus.BAD_REQUEST);
+        }
+        boolean withDate = selection.contains("date");
+        if (!withDate) {
+            selection.add("date");
+        }
+        int pageSize = pageSize(size);
+        List<Map<String, Object>> rows = repository.findAllFields(pageSpecification(filter, cursor), selection, pageSize + 1);
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            Map<String, Object> last = rows.get(pageSize - 1);
+            nextCursor = encodeCursor((LocalDateTime) last.get("date"), (Long) last.get(FieldProjection.ID));
+        }
+        if (!withDate) {
+            rows.forEach(row -> row.remove("date"));
+        }
+        return new RdvFieldsPageResponse(rows, nextCursor);
+    }
+
+    private static int pageSize(int size) {
+        return size <= 0 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+    }
+
+    private Specification<Rdv> pageSpecification(RdvFilter filter, String cursor) {
+        Specification<Rdv> specification = RdvSpecifications.matching(filter);
+        if (cursor != null && !cursor.isBlank()) {
+            String[] position = decodeCursor(cursor);
+            specification = specification.and(RdvSpecifications.after(LocalDateTime.parse(position[0]), Long.valueOf(position[1])));
+        }
+        return specification;
     }
 
     @Override
@@ -67,18 +205,16 @@ public class RdvServiceImpl implements RdvService {
         var rdv = repository.findById(request.getId())
                 .orElseThrow(() -> new EntityNotFoundException(messageSource.getMessage("rdv.notfound", new Object[]{request.getId()}, Locale.getDefault())));
 
-        var patient = this.patientClient.findPatientById(request.getPatientId())
-                .orElseThrow(() -> new EntityNotFoundException(messageSource.getMessage("patient.notfound",
-                        new Object[]{request.getPatientId()}, Locale.getDefault())));
-        var medecin = this.medecinClient.findMedecinById(request.getMedecinId())
-                        .orElseThrow(() -> new EntityNotFoundException(messageSource.getMessage("medecin.nofound",
-                                new Object[]{request.getMedecinId()}, Locale.getDefault() )));
+        checkParticipants(request);
 
-        rdv.setPatientId(patient.getId());
-        rdv.setMedecinId(medecin.getId());
+        rdv.setPatientId(request.getPatientId());
+        rdv.setMedecinId(request.getMedecinId());
         rdv.setDate(request.getDate());
         rdv.setMotif(request.getMotif());
-        var updateRdv = repository.save(rdv);
+        if (request.getDuree() != null) {
+            rdv.setDuree(request.getDuree());
+        }
+        var updateRdv = slotIndex.reserve(rdv, repository::save, () -> slotTaken(rdv));
         return mapper.toRdvResponse(updateRdv);
     }
 
@@ -87,6 +223,134 @@ public class RdvServiceImpl implements RdvService {
         Rdv rdv = repository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(messageSource.getMessage("rdv.notfound", new Object[]{id}, Locale.getDefault() )));
         repository.delete(rdv);
+        slotIndex.release(rdv.getId());
+
+    }
+
+    /**
+     * Ecrit les rdvs en NDJSON au fil de la lecture : le curseur JDBC est parcouru dans une
+     * transaction en lecture seule et chaque entite est detachee une fois ecrite, la memoire
+     * utilisee ne depend donc pas du nombre de lignes.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportRdv(OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(RdvResponse.class);
+        try (Stream<Rdv> rdvs = repository.streamAll()) {
+            int count = 0;
+            for (var iterator = rdvs.iterator(); iterator.hasNext(); ) {
+                Rdv rdv = iterator.next();
+                out.write(writer.writeValueAsBytes(mapper.toRdvResponse(rdv)));
+                out.write('\n');
+                entityManager.detach(rdv);
+                if (++count % EXPORT_FLUSH_SIZE == 0) {
+                    out.flush();
+                }
+            }
+        }
+        out.flush();
+    }
+
+    private static String encodeCursor(LocalDateTime date, Long id) {
+        String position = date + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (position.length == 2) {
+                LocalDateTime.parse(position[0]);
+                Long.parseLong(position[1]);
+                return position;
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            // curseur invalide, traite ci-dessous
+        }
+        throw new RequestException(messageSource.getMessage("cursor.invalid", new Object[]{cursor}, Locale.getDefault()),
+                HttpStatus.BAD_REQUEST);
+    }
+
+    private RequestException slotTaken(Rdv rdv) {
+        int duree = rdv.getDuree() == null ? SlotIndex.DEFAULT_DUREE : rdv.getDuree();
+        return new RequestException(messageSource.getMessage("rdv.slot.taken",
+                new Object[]{rdv.getMedecinId(), rdv.getDate(), rdv.getDate().plusMinutes(duree)},
+                Locale.getDefault()), HttpStatus.CONFLICT);
+    }
+
+    /**
+     * Verifie l'existence du patient et du medecin en lancant les deux appels en parallele :
+     * la latence est celle de l'appel le plus lent et non leur somme. Au premier echec, on cesse
+     * d'attendre l'autre appel et c'est son exception qui est remontee ; {@code cancel} n'interrompt
+     * pas la requete Feign deja partie, dont la duree reste bornee par les timeouts du client.
+     */
+    private void checkParticipants(RdvRequest request) {
+        CompletableFuture<PatientResponse> patient = CompletableFuture.supplyAsync(() ->
+                this.patientLookup.findPatientById(request.getPatientId())
+                        .orElseThrow(() -> new EntityNotFoundException(messageSource.getMessage("patient.notfound",
+                                new Object[]{request.getPatientId()}, Locale.getDefault()))), lookupExecutor);
+        CompletableFuture<MedecinResponse> medecin = CompletableFuture.supplyAsync(() ->
+                this.medecinLookup.findMedecinById(request.getMedecinId())
+                        .orElseThrow(() -> new EntityNotFoundException(messageSource.getMessage("medecin.notfound",
+                                new Object[]{request.getMedecinId()}, Locale.getDefault()))), lookupExecutor);
+
+        patient.whenComplete((result, error) -> {
+            if (error != null) {
+                medecin.cancel(true);
+            }
+        });
+        medecin.whenComplete((result, error) -> {
+            if (error != null) {
+                patient.cancel(true);
+            }
+        });
+
+        try {
+            CompletableFuture.allOf(patient, medecin).join();
+        } catch (CompletionException | CancellationException e) {
+            rethrowFailure(patient);
+            rethrowFailure(medecin);
+            throw e;
+        }
+    }
+
+    private void checkParticipants(List<RdvRequest> requests) {
+        Set<Long> patientIds = new LinkedHashSet<>();
+        Set<Long> medecinIds = new LinkedHashSet<>();
+        requests.forEach(request -> {
+            patientIds.add(request.getPatientId());
+            medecinIds.add(request.getMedecinId());
+        });
+        CompletableFuture<Map<Long, PatientResponse>> patients = CompletableFuture.supplyAsync(() ->
+                this.patientLookup.findPatientsByIds(patientIds), lookupExecutor);
+        CompletableFuture<Map<Long, MedecinResponse>> medecins = CompletableFuture.supplyAsync(() ->
+                this.medecinLookup.findMedecinsByIds(medecinIds), lookupExecutor);
+        try {
+            CompletableFuture.allOf(patients, medecins).join();
+        } catch (CompletionException e) {
+            rethrowFailure(patients);
+            rethrowFailure(medecins);
+            throw e;
+        }
+        patientIds.stream().filter(id -> !patients.join().containsKey(id)).findFirst().ifPresent(id -> {
+            throw new EntityNotFoundException(messageSource.getMessage("patient.notfound", new Object[]{id}, Locale.getDefault()));
+        });
+        medecinIds.stream().filter(id -> !medecins.join().containsKey(id)).findFirst().ifPresent(id -> {
+            throw new EntityNotFoundException(messageSource.getMessage("medecin.notfound", new Object[]{id}, Locale.getDefault()));
+        });
+    }
 
+    private static void rethrowFailure(CompletableFuture<?> future) {
+        if (!future.isCompletedExceptionally() || future.isCancelled()) {
+            return;
+        }
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
     }
 }
@@ -0,0 +1,108 @@
+package com.isi.rdv.planning;
+
+import com.isi.rdv.medecin.PlageHoraireResponse;
+import com.isi.rdv.model.Rdv;
+import com.isi.rdv.repository.RdvRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class FreeSlotFinderTest {
+
+    // Lundi
+    private static final LocalDateTime LUNDI = LocalDateTime.of(2024, 6, 17, 0, 0);
+
+    @Mock
+    private RdvRepository repository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private SlotIndex index;
+
+    private FreeSlotFinder finder;
+
+    private final AtomicLong ids = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        index = new SlotIndex(repository, entityManager);
+        finder = new FreeSlotFinder(index);
+    }
+
+    @Test
+    void firstRunFindsConsecutiveBits() {
+        BitSet libres = new BitSet(FreeSlotFinder.QUARTS_PAR_JOUR);
+        libres.set(10, 12);
+        libres.set(20, 24);
+
+        assertEquals(10, FreeSlotFinder.firstRun(libres, 2));
+        assertEquals(20, FreeSlotFinder.firstRun(libres, 3));
+        assertEquals(-1, FreeSlotFinder.firstRun(libres, 5));
+    }
+
+    @Test
+    void skipsBookedSlots() {
+        reserve(1L, LUNDI.withHour(9), 30);
+        reserve(1L, LUNDI.withHour(9).plusMinutes(45), 30);
+
+        List<FreeSlotFinder.Creneau> creneaux = finder.findFirstFree(
+                List.of(plage(1L, DayOfWeek.MONDAY, "09:00", "12:00")), LUNDI, LUNDI.plusDays(7), 30, 1);
+
+        assertEquals(1, creneaux.size());
+        assertEquals(LUNDI.withHour(10).plusMinutes(15), creneaux.get(0).debut());
+        assertEquals(LUNDI.withHour(10).plusMinutes(45), creneaux.get(0).fin());
+    }
+
+    @Test
+    void picksEarliestMedecinAndMovesToNextWorkingDay() {
+        reserve(1L, LUNDI.withHour(9), 180);
+
+        List<FreeSlotFinder.Creneau> creneaux = finder.findFirstFree(List.of(
+                        plage(1L, DayOfWeek.MONDAY, "09:00", "12:00"),
+                        plage(1L, DayOfWeek.WEDNESDAY, "14:00", "18:00"),
+                        plage(2L, DayOfWeek.TUESDAY, "08:00", "10:00")),
+                LUNDI.withHour(8), LUNDI.plusDays(7), 30, 5);
+
+        assertEquals(2, creneaux.size());
+        assertEquals(2L, creneaux.get(0).medecinId());
+        assertEquals(LUNDI.plusDays(1).withHour(8), creneaux.get(0).debut());
+        assertEquals(1L, creneaux.get(1).medecinId());
+        assertEquals(LUNDI.plusDays(2).withHour(14), creneaux.get(1).debut());
+    }
+
+    @Test
+    void respectsSearchWindow() {
+        List<FreeSlotFinder.Creneau> creneaux = finder.findFirstFree(
+                List.of(plage(1L, DayOfWeek.MONDAY, "09:00", "12:00")),
+                LUNDI.withHour(11).plusMinutes(40), LUNDI.plusDays(1), 30, 1);
+
+        assertTrue(creneaux.isEmpty());
+    }
+
+    // Méthodes utilitaires
+    private void reserve(Long medecinId, LocalDateTime date, int duree) {
+        Rdv rdv = Rdv.builder().date(date).duree(duree).patientId(1L).medecinId(medecinId).build();
+        index.reserve(rdv, saved -> {
+            saved.setId(ids.incrementAndGet());
+            return saved;
+        }, () -> new IllegalStateException("creneau pris"));
+    }
+
+    private PlageHoraireResponse plage(Long medecinId, DayOfWeek jour, String debut, String fin) {
+        return new PlageHoraireResponse(null, medecinId, jour, LocalTime.parse(debut), LocalTime.parse(fin));
+    }
+}
@@ -0,0 +1,253 @@
+package com.isi.rdv.planning;
+
+import com.isi.rdv.model.Rdv;
+import com.isi.rdv.repository.RdvRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SlotIndexTest {
+
+    private static final LocalDateTime NEUF_HEURES = LocalDateTime.of(2024, 6, 17, 9, 0);
+
+    @Mock
+    private RdvRepository repository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private SlotIndex index;
+
+    private final AtomicLong ids = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        index = new SlotIndex(repository, entityManager);
+    }
+
+    @Test
+    void reserveRejectsOverlap() {
+        reserve(rdv(null, 1L, NEUF_HEURES, 30));
+
+        assertThrows(IllegalStateException.class, () -> reserve(rdv(null, 1L, NEUF_HEURES.plusMinutes(15), 30)));
+        assertThrows(IllegalStateException.class, () -> reserve(rdv(null, 1L, NEUF_HEURES.minusMinutes(15), 30)));
+        assertThrows(IllegalStateException.class, () -> reserve(rdv(null, 1L, NEUF_HEURES.minusMinutes(15), 60)));
+    }
+
+    @Test
+    void reserveAcceptsAdjacentSlotsAndOtherMedecins() {
+        reserve(rdv(null, 1L, NEUF_HEURES, 30));
+
+        assertNotNull(reserve(rdv(null, 1L, NEUF_HEURES.plusMinutes(30), 30)));
+        assertNotNull(reserve(rdv(null, 1L, NEUF_HEURES.minusMinutes(30), 30)));
+        assertNotNull(reserve(rdv(null, 2L, NEUF_HEURES, 30)));
+    }
+
+    @Test
+    void updateMovesSlotWithoutConflictingWithItself() {
+        Rdv saved = reserve(rdv(null, 1L, NEUF_HEURES, 30));
+
+        reserve(rdv(saved.getId(), 1L, NEUF_HEURES.plusMinutes(15), 30));
+
+        assertNotNull(reserve(rdv(null, 1L, NEUF_HEURES.minusMinutes(30), 45)));
+        assertEquals(1, index.slotsBetween(1L, NEUF_HEURES.plusMinutes(15), NEUF_HEURES.plusMinutes(45)).size());
+    }
+
+    @Test
+    void updateToAnotherMedecinReleasesPreviousSlot() {
+        Rdv saved = reserve(rdv(null, 1L, NEUF_HEURES, 30));
+
+        reserve(rdv(saved.getId(), 2L, NEUF_HEURES, 30));
+
+        assertTrue(index.slotsBetween(1L, NEUF_HEURES, NEUF_HEURES.plusHours(1)).isEmpty());
+        assertNotNull(reserve(rdv(null, 1L, NEUF_HEURES, 30)));
+    }
+
+    @Test
+    void concurrentUpdatesOfTheSameRdvLeaveASingleSlot() throws Exception {
+        Rdv saved = reserve(rdv(null, 1L, NEUF_HEURES, 30));
+
+        updateWhileAnotherUpdateSaves(rdv(saved.getId(), 1L, NEUF_HEURES.plusHours(2), 30),
+                rdv(saved.getId(), 1L, NEUF_HEURES.plusHours(5), 30));
+
+        List<SlotIndex.Slot> slots = index.slotsBetween(1L, NEUF_HEURES.minusHours(1), NEUF_HEURES.plusHours(8));
+        assertEquals(1, slots.size());
+        assertEquals(NEUF_HEURES.plusHours(5), slots.get(0).debut());
+    }
+
+    @Test
+    void concurrentUpdateFollowsTheRdvToItsNewMedecin() throws Exception {
+        Rdv saved = reserve(rdv(null, 1L, NEUF_HEURES, 30));
+
+        updateWhileAnotherUpdateSaves(rdv(saved.getId(), 2L, NEUF_HEURES.plusHours(2), 30),
+                rdv(saved.getId(), 1L, NEUF_HEURES.plusHours(5), 30));
+
+        assertTrue(index.slotsBetween(2L, NEUF_HEURES.minusHours(1), NEUF_HEURES.plusHours(8)).isEmpty());
+        assertEquals(1, index.slotsBetween(1L, NEUF_HEURES.minusHours(1), NEUF_HEURES.plusHours(8)).size());
+    }
+
+    @Test
+    void releaseFreesSlot() {
+        Rdv saved = reserve(rdv(null, 1L, NEUF_HEURES, 30));
+
+        index.release(saved.getId());
+
+        assertNotNull(reserve(rdv(null, 1L, NEUF_HEURES, 30)));
+    }
+
+    @Test
+    void reserveAllRejectsOverlapInsideBatchAndIndexesNothing() {
+        List<Rdv> batch = List.of(rdv(null, 1L, NEUF_HEURES, 30), rdv(null, 1L, NEUF_HEURES.plusMinutes(15), 30));
+
+        assertThrows(IllegalStateException.class, () -> index.reserveAll(batch, this::saveAll,
+                rdv -> new IllegalStateException("creneau pris")));
+
+        assertTrue(index.slotsBetween(1L, NEUF_HEURES, NEUF_HEURES.plusHours(1)).isEmpty());
+    }
+
+    @Test
+    void reserveAllIndexesSavedBatch() {
+        reserve(rdv(null, 2L, NEUF_HEURES, 30));
+        List<Rdv> batch = List.of(rdv(null, 1L, NEUF_HEURES, 30), rdv(null, 1L, NEUF_HEURES.plusMinutes(30), 30),
+                rdv(null, 2L, NEUF_HEURES.plusMinutes(30), 30));
+
+        List<Rdv> saved = index.reserveAll(batch, this::saveAll, rdv -> new IllegalStateException("creneau pris"));
+
+        assertEquals(3, saved.size());
+        assertEquals(2, index.slotsBetween(1L, NEUF_HEURES, NEUF_HEURES.plusHours(1)).size());
+        assertThrows(IllegalStateException.class, () -> reserve(rdv(null, 2L, NEUF_HEURES.plusMinutes(45), 30)));
+    }
+
+    @Test
+    void rebuildLoadsExistingRdv() {
+        when(repository.streamAll()).thenReturn(Stream.of(rdv(10L, 1L, NEUF_HEURES, null)));
+
+        index.rebuild();
+
+        List<SlotIndex.Slot> slots = index.slotsBetween(1L, NEUF_HEURES.minusHours(1), NEUF_HEURES.plusHours(1));
+        assertEquals(1, slots.size());
+        assertEquals(NEUF_HEURES.plusMinutes(SlotIndex.DEFAULT_DUREE), slots.get(0).fin());
+        assertThrows(IllegalStateException.class, () -> reserve(rdv(null, 1L, NEUF_HEURES.plusMinutes(10), 30)));
+    }
+
+    @Test
+    void rebuildKeepsRdvsStartingAtTheSameTime() {
+        when(repository.streamAll()).thenReturn(Stream.of(rdv(10L, 1L, NEUF_HEURES, 30), rdv(11L, 1L, NEUF_HEURES, 60)));
+
+        index.rebuild();
+        index.release(10L);
+
+        assertEquals(1, index.slotsBetween(1L, NEUF_HEURES, NEUF_HEURES.plusHours(1)).size());
+        assertThrows(IllegalStateException.class, () -> reserve(rdv(null, 1L, NEUF_HEURES.plusMinutes(45), 15)));
+    }
+
+    @Test
+    void longerOverlappedRdvStillBlocksAfterRebuild() {
+        when(repository.streamAll()).thenReturn(Stream.of(rdv(10L, 1L, NEUF_HEURES, 120), rdv(11L, 1L, NEUF_HEURES.plusMinutes(30), 15)));
+
+        index.rebuild();
+
+        assertThrows(IllegalStateException.class, () -> reserve(rdv(null, 1L, NEUF_HEURES.plusMinutes(60), 30)));
+        assertEquals(2, index.slotsBetween(1L, NEUF_HEURES.plusMinutes(40), NEUF_HEURES.plusMinutes(50)).size());
+    }
+
+    @Test
+    void rollbackRestoresPreviousSlot() {
+        Rdv saved = reserve(rdv(null, 1L, NEUF_HEURES, 30));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            reserve(rdv(saved.getId(), 1L, NEUF_HEURES.plusHours(2), 30));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(1, index.slotsBetween(1L, NEUF_HEURES, NEUF_HEURES.plusHours(1)).size());
+        assertTrue(index.slotsBetween(1L, NEUF_HEURES.plusHours(2), NEUF_HEURES.plusHours(3)).isEmpty());
+    }
+
+    @Test
+    void rollbackDropsReservedBatch() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.reserveAll(List.of(rdv(null, 1L, NEUF_HEURES, 30)), this::saveAll, rdv -> new IllegalStateException("creneau pris"));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertNotNull(reserve(rdv(null, 1L, NEUF_HEURES, 30)));
+    }
+
+    // Méthodes utilitaires
+    /**
+     * Lance {@code second} pendant que {@code first} est bloque dans son enregistrement, apres
+     * avoir lu l'ancien creneau du rendez-vous.
+     */
+    private void updateWhileAnotherUpdateSaves(Rdv first, Rdv second) throws Exception {
+        CountDownLatch saving = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        CompletableFuture<Rdv> firstUpdate = CompletableFuture.supplyAsync(() -> index.reserve(first, rdv -> {
+            saving.countDown();
+            try {
+                resume.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return save(rdv);
+        }, () -> new IllegalStateException("creneau pris")));
+        assertTrue(saving.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Rdv> secondUpdate = CompletableFuture.supplyAsync(() -> reserve(second));
+        Thread.sleep(100);
+        resume.countDown();
+
+        firstUpdate.get(5, TimeUnit.SECONDS);
+        secondUpdate.get(5, TimeUnit.SECONDS);
+    }
+
+    private Rdv reserve(Rdv rdv) {
+        return index.reserve(rdv, this::save, () -> new IllegalStateException("creneau pris"));
+    }
+
+    private Rdv save(Rdv rdv) {
+        if (rdv.getId() == null) {
+            rdv.setId(ids.incrementAndGet());
+        }
+        return rdv;
+    }
+
+    private List<Rdv> saveAll(List<Rdv> rdvs) {
+        rdvs.forEach(this::save);
+        return rdvs;
+    }
+
+    private Rdv rdv(Long id, Long medecinId, LocalDateTime date, Integer duree) {
+        return Rdv.builder()
+                .id(id)
+                .date(date)
+                .duree(duree)
+                .motif("Consultation")
+                .patientId(1L)
+                .medecinId(medecinId)
+                .build();
+    }
+}
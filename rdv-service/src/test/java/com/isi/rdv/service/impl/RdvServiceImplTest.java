@@ -0,0 +1,382 @@
+package com.isi.rdv.service.impl;
+
+import com.isi.rdv.dto.RdvFieldsPageResponse;
+import com.isi.rdv.dto.RdvFilter;
+import com.isi.rdv.dto.RdvPageResponse;
+import com.isi.rdv.dto.RdvRequest;
+import com.isi.rdv.dto.RdvResponse;
+import com.isi.rdv.exception.EntityNotFoundException;
+import com.isi.rdv.exception.RequestException;
+import com.isi.rdv.mapper.RdvMapper;
+import com.isi.rdv.medecin.MedecinLookup;
+import com.isi.rdv.medecin.MedecinResponse;
+import com.isi.rdv.model.Rdv;
+import com.isi.rdv.patient.PatientLookup;
+import com.isi.rdv.patient.PatientResponse;
+import com.isi.rdv.planning.SlotIndex;
+import com.isi.rdv.repository.RdvRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.MessageSource;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RdvServiceImplTest {
+
+    @Mock
+    private RdvRepository repository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private RdvMapper mapper;
+
+    @Mock
+    private MessageSource messageSource;
+
+    @Mock
+    private PatientLookup patientLookup;
+
+    @Mock
+    private MedecinLookup medecinLookup;
+
+    @Mock
+    private BatchWriter batchWriter;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private ExecutorService executor;
+
+    private SlotIndex slotIndex;
+
+    private RdvServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(2);
+        slotIndex = new SlotIndex(repository, entityManager);
+        service = new RdvServiceImpl(repository, mapper, messageSource, patientLookup, medecinLookup, executor, slotIndex,
+                null, null, batchWriter,
+                new RdvEnricher(patientLookup, medecinLookup, executor, messageSource), transactionTemplate);
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void newRdvOK() {
+        when(patientLookup.findPatientById(anyLong())).thenReturn(Optional.of(getPatientResponse()));
+        when(medecinLookup.findMedecinById(anyLong())).thenReturn(Optional.of(getMedecinResponse()));
+        when(mapper.toRdv(any())).thenReturn(getRdv());
+        when(repository.save(any())).thenReturn(getRdv());
+        when(mapper.toRdvResponse(any())).thenReturn(getRdvResponse());
+
+        RdvResponse response = service.newRdv(getRdvRequest());
+
+        assertNotNull(response);
+        assertEquals(1L, response.getId());
+        verify(patientLookup, times(1)).findPatientById(1L);
+        verify(medecinLookup, times(1)).findMedecinById(2L);
+    }
+
+    @Test
+    void newRdv_LookupsRunInParallel() {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        when(patientLookup.findPatientById(anyLong())).thenAnswer(invocation -> {
+            bothStarted.countDown();
+            assertTrue(bothStarted.await(2, TimeUnit.SECONDS));
+            return Optional.of(getPatientResponse());
+        });
+        when(medecinLookup.findMedecinById(anyLong())).thenAnswer(invocation -> {
+            bothStarted.countDown();
+            assertTrue(bothStarted.await(2, TimeUnit.SECONDS));
+            return Optional.of(getMedecinResponse());
+        });
+        when(mapper.toRdv(any())).thenReturn(getRdv());
+        when(repository.save(any())).thenReturn(getRdv());
+        when(mapper.toRdvResponse(any())).thenReturn(getRdvResponse());
+
+        assertNotNull(service.newRdv(getRdvRequest()));
+    }
+
+    @Test
+    void newRdvKO_PatientNotFound() {
+        when(patientLookup.findPatientById(anyLong())).thenReturn(Optional.empty());
+        lenient().when(medecinLookup.findMedecinById(anyLong())).thenReturn(Optional.of(getMedecinResponse()));
+        when(messageSource.getMessage(eq("patient.notfound"), any(), any(Locale.class)))
+                .thenReturn("Patient not found");
+
+        EntityNotFoundException exception = assertThrows(EntityNotFoundException.class,
+                () -> service.newRdv(getRdvRequest()));
+
+        assertEquals("Patient not found", exception.getMessage());
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void newRdvKO_MedecinNotFound() {
+        lenient().when(patientLookup.findPatientById(anyLong())).thenReturn(Optional.of(getPatientResponse()));
+        when(medecinLookup.findMedecinById(anyLong())).thenReturn(Optional.empty());
+        when(messageSource.getMessage(eq("medecin.notfound"), any(), any(Locale.class)))
+                .thenReturn("Medecin not found");
+
+        EntityNotFoundException exception = assertThrows(EntityNotFoundException.class,
+                () -> service.newRdv(getRdvRequest()));
+
+        assertEquals("Medecin not found", exception.getMessage());
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void newRdvKO_SlotTaken() {
+        when(patientLookup.findPatientById(anyLong())).thenReturn(Optional.of(getPatientResponse()));
+        when(medecinLookup.findMedecinById(anyLong())).thenReturn(Optional.of(getMedecinResponse()));
+        when(mapper.toRdv(any())).thenAnswer(invocation -> {
+            Rdv rdv = getRdv();
+            rdv.setId(null);
+            return rdv;
+        });
+        when(repository.save(any())).thenReturn(getRdv());
+        when(mapper.toRdvResponse(any())).thenReturn(getRdvResponse());
+        when(messageSource.getMessage(eq("rdv.slot.taken"), any(), any(Locale.class)))
+                .thenReturn("Slot taken");
+        service.newRdv(getRdvRequest());
+
+        RequestException exception = assertThrows(RequestException.class,
+                () -> service.newRdv(getRdvRequest()));
+
+        assertEquals("Slot taken", exception.getMessage());
+        assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+        verify(repository, times(1)).save(any());
+    }
+
+    @Test
+    void newRdvsOK() {
+        when(patientLookup.findPatientsByIds(any())).thenReturn(Map.of(1L, getPatientResponse()));
+        when(medecinLookup.findMedecinsByIds(any())).thenReturn(Map.of(2L, getMedecinResponse()));
+        when(mapper.toRdv(any())).thenAnswer(invocation -> {
+            Rdv rdv = getRdv();
+            rdv.setDate(invocation.<RdvRequest>getArgument(0).getDate());
+            return rdv;
+        });
+        when(batchWriter.saveAll(any(), any())).thenAnswer(invocation -> {
+            List<Rdv> rdvs = invocation.getArgument(1);
+            for (int i = 0; i < rdvs.size(); i++) {
+                rdvs.get(i).setId(10L + i);
+            }
+            return rdvs;
+        });
+        when(mapper.toRdvResponseList(any())).thenReturn(List.of(getRdvResponse(), getRdvResponse()));
+        RdvRequest second = getRdvRequest();
+        second.setDate(second.getDate().plusHours(1));
+
+        List<RdvResponse> responses = service.newRdvs(List.of(getRdvRequest(), second));
+
+        assertEquals(2, responses.size());
+        assertEquals(2, slotIndex.slotsBetween(2L, LocalDateTime.of(2024, 6, 15, 0, 0),
+                LocalDateTime.of(2024, 6, 16, 0, 0)).size());
+        verify(patientLookup, never()).findPatientById(anyLong());
+    }
+
+    @Test
+    void newRdvsKO_MedecinNotFound() {
+        when(patientLookup.findPatientsByIds(any())).thenReturn(Map.of(1L, getPatientResponse()));
+        when(medecinLookup.findMedecinsByIds(any())).thenReturn(Map.of());
+        when(messageSource.getMessage(eq("medecin.notfound"), any(), any(Locale.class)))
+                .thenReturn("Medecin not found");
+
+        EntityNotFoundException exception = assertThrows(EntityNotFoundException.class,
+                () -> service.newRdvs(List.of(getRdvRequest())));
+
+        assertEquals("Medecin not found", exception.getMessage());
+        verifyNoInteractions(batchWriter);
+    }
+
+    @Test
+    void getAllRdv_ReturnsCursorWhenMoreRowsExist() {
+        Rdv second = getRdv();
+        second.setId(2L);
+        when(repository.findBy(any(), any())).thenReturn(List.of(getRdv(), second));
+        when(mapper.toRdvResponseList(any())).thenReturn(List.of(getRdvResponse()));
+
+        RdvPageResponse page = service.getAllRdv(new RdvFilter(), null, 1, Set.of());
+
+        assertEquals(1, page.getContent().size());
+        assertNotNull(page.getNextCursor());
+
+        when(repository.findBy(any(), any())).thenReturn(List.of(second));
+        RdvPageResponse next = service.getAllRdv(new RdvFilter(), page.getNextCursor(), 1, Set.of());
+
+        assertNull(next.getNextCursor());
+    }
+
+    @Test
+    void getAllRdvFields_ReadsDateForCursorOnly() {
+        LocalDateTime date = LocalDateTime.of(2024, 6, 22, 9, 15);
+        when(repository.findAllFields(any(), eq(List.of("id", "motif", "date")), eq(2))).thenReturn(new ArrayList<>(List.of(
+                new LinkedHashMap<>(Map.of("id", 1L, "motif", "Suivi", "date", date)),
+                new LinkedHashMap<>(Map.of("id", 2L, "motif", "Bilan", "date", date)))));
+
+        RdvFieldsPageResponse page = service.getAllRdvFields(new RdvFilter(), null, 1, List.of("motif"));
+
+        assertEquals(1, page.getContent().size());
+        assertEquals(Set.of("id", "motif"), page.getContent().get(0).keySet());
+        assertNotNull(page.getNextCursor());
+        verify(repository, never()).findBy(any(), any());
+    }
+
+    @Test
+    void getAllRdv_ExpandResolvesEachServiceOnce() {
+        RdvResponse other = getRdvResponse();
+        other.setId(2L);
+        when(repository.findBy(any(), any())).thenReturn(List.of(getRdv()));
+        when(mapper.toRdvResponseList(any())).thenReturn(List.of(getRdvResponse(), other));
+        when(patientLookup.findPatientsByIds(any())).thenReturn(Map.of(1L, getPatientResponse()));
+        when(medecinLookup.findMedecinsByIds(any())).thenReturn(Map.of(2L, getMedecinResponse()));
+
+        RdvPageResponse page = service.getAllRdv(new RdvFilter(), null, 20, Set.of("patient", "medecin"));
+
+        assertEquals("Doe", page.getContent().get(1).getPatientName());
+        assertEquals("Fatima", page.getContent().get(1).getMedecinPrenom());
+        verify(patientLookup, times(1)).findPatientsByIds(Set.of(1L));
+        verify(medecinLookup, times(1)).findMedecinsByIds(Set.of(2L));
+        verify(patientLookup, never()).findPatientById(anyLong());
+    }
+
+    @Test
+    void getAllRdvKO_UnknownExpand() {
+        when(repository.findBy(any(), any())).thenReturn(List.of(getRdv()));
+        when(mapper.toRdvResponseList(any())).thenReturn(List.of(getRdvResponse()));
+        when(messageSource.getMessage(eq("expand.invalid"), any(), any(Locale.class)))
+                .thenReturn("Invalid expand");
+
+        RequestException exception = assertThrows(RequestException.class,
+                () -> service.getAllRdv(new RdvFilter(), null, 20, Set.of("dossier")));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        verifyNoInteractions(patientLookup, medecinLookup);
+    }
+
+    @Test
+    void getAllRdvKO_InvalidCursor() {
+        when(messageSource.getMessage(eq("cursor.invalid"), any(), any(Locale.class)))
+                .thenReturn("Invalid cursor");
+
+        RequestException exception = assertThrows(RequestException.class,
+                () -> service.getAllRdv(new RdvFilter(), "pas-un-curseur", 20, Set.of()));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        verify(repository, never()).findBy(any(), any());
+    }
+
+    @Test
+    void updateRdvOK() {
+        when(repository.findById(anyLong())).thenReturn(Optional.of(getRdv()));
+        when(patientLookup.findPatientById(anyLong())).thenReturn(Optional.of(getPatientResponse()));
+        when(medecinLookup.findMedecinById(anyLong())).thenReturn(Optional.of(getMedecinResponse()));
+        when(repository.save(any())).thenReturn(getRdv());
+        when(mapper.toRdvResponse(any())).thenReturn(getRdvResponse());
+
+        RdvResponse response = service.updateRdv(getRdvRequest());
+
+        assertNotNull(response);
+        assertEquals(1L, response.getId());
+    }
+
+    @Test
+    void updateRdvKO_RdvNotFound() {
+        when(repository.findById(anyLong())).thenReturn(Optional.empty());
+        when(messageSource.getMessage(eq("rdv.notfound"), any(), any(Locale.class)))
+                .thenReturn("Rdv not found");
+
+        EntityNotFoundException exception = assertThrows(EntityNotFoundException.class,
+                () -> service.updateRdv(getRdvRequest()));
+
+        assertEquals("Rdv not found", exception.getMessage());
+        verifyNoInteractions(patientLookup, medecinLookup);
+    }
+
+    @Test
+    void deleteRdvByIdOK() {
+        when(repository.findById(anyLong())).thenReturn(Optional.of(getRdv()));
+
+        service.deleteRdvById(1L);
+
+        verify(repository, times(1)).delete(any());
+        assertTrue(slotIndex.slotsBetween(2L, LocalDateTime.of(2024, 6, 15, 0, 0),
+                LocalDateTime.of(2024, 6, 16, 0, 0)).isEmpty());
+    }
+
+    // Méthodes utilitaires
+    private RdvRequest getRdvRequest() {
+        RdvRequest request = new RdvRequest();
+        request.setId(1L);
+        request.setDate(LocalDateTime.of(2024, 6, 15, 9, 0));
+        request.setMotif("Consultation annuelle");
+        request.setPatientId(1L);
+        request.setMedecinId(2L);
+        return request;
+    }
+
+    private Rdv getRdv() {
+        Rdv rdv = new Rdv();
+        rdv.setId(1L);
+        rdv.setDate(LocalDateTime.of(2024, 6, 15, 9, 0));
+        rdv.setMotif("Consultation annuelle");
+        rdv.setPatientId(1L);
+        rdv.setMedecinId(2L);
+        return rdv;
+    }
+
+    private RdvResponse getRdvResponse() {
+        RdvResponse response = new RdvResponse();
+        response.setId(1L);
+        response.setDate(LocalDateTime.of(2024, 6, 15, 9, 0));
+        response.setMotif("Consultation annuelle");
+        response.setPatientId(1L);
+        response.setMedecinId(2L);
+        return response;
+    }
+
+    private PatientResponse getPatientResponse() {
+        return new PatientResponse(1L, "Doe", "John", LocalDate.of(1980, 1, 1),
+                "M", "123 Main St", "0102030405", "patient@example.com");
+    }
+
+    private MedecinResponse getMedecinResponse() {
+        return new MedecinResponse(2L, "Sow", "Fatima", "Cardiologie",
+                "0605040302", "fatima.sow@hopital.sn", "Cabinet Plateau");
+    }
+}